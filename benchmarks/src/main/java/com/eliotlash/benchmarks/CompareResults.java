@@ -0,0 +1,146 @@
+package com.eliotlash.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare results
+ *
+ * Prints a table comparing two JMH JSON result files (produced by the
+ * jmh task), benchmark by benchmark, so runs from different commits can
+ * be compared. Changes within the error margin of both runs are marked
+ * with "~".
+ */
+public class CompareResults
+{
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2 || args[0].isEmpty())
+		{
+			System.out.println("Usage: CompareResults <base.json> <current.json>");
+
+			return;
+		}
+
+		Map<String, Score> base = read(args[0]);
+		Map<String, Score> current = read(args[1]);
+
+		System.out.println(String.format("%-70s %14s %14s %9s", "Benchmark", "Base", "Current", "Change"));
+
+		for (Map.Entry<String, Score> entry : current.entrySet())
+		{
+			Score now = entry.getValue();
+			Score was = base.get(entry.getKey());
+
+			if (was == null)
+			{
+				System.out.println(String.format("%-70s %14s %14s %9s", entry.getKey(), "-", now, "new"));
+
+				continue;
+			}
+
+			System.out.println(String.format("%-70s %14s %14s %9s", entry.getKey(), was, now, now.compare(was)));
+		}
+
+		for (String key : base.keySet())
+		{
+			if (!current.containsKey(key))
+			{
+				System.out.println(String.format("%-70s %14s %14s %9s", key, base.get(key), "-", "removed"));
+			}
+		}
+	}
+
+	/**
+	 * Read JMH results, keyed by benchmark name and its parameters
+	 */
+	public static Map<String, Score> read(String path) throws IOException
+	{
+		Map<String, Score> scores = new TreeMap<String, Score>();
+
+		try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8))
+		{
+			for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray())
+			{
+				JsonObject result = element.getAsJsonObject();
+				JsonObject metric = result.getAsJsonObject("primaryMetric");
+				String key = result.get("benchmark").getAsString().replace("com.eliotlash.benchmarks.", "");
+
+				if (result.has("params"))
+				{
+					Map<String, String> params = new LinkedHashMap<String, String>();
+
+					for (Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet())
+					{
+						params.put(param.getKey(), param.getValue().getAsString());
+					}
+
+					key += params.toString();
+				}
+
+				Score score = new Score();
+
+				score.value = metric.get("score").getAsDouble();
+				score.error = metric.get("scoreError").isJsonPrimitive() ? metric.get("scoreError").getAsDouble() : 0;
+				score.unit = metric.get("scoreUnit").getAsString();
+				score.higherIsBetter = result.get("mode").getAsString().equals("thrpt");
+
+				if (Double.isNaN(score.error))
+				{
+					score.error = 0;
+				}
+
+				scores.put(key, score);
+			}
+		}
+
+		return scores;
+	}
+
+	public static class Score
+	{
+		public double value;
+		public double error;
+		public String unit;
+		public boolean higherIsBetter;
+
+		/**
+		 * Relative change against the base score, positive numbers mean
+		 * it got better
+		 */
+		public String compare(Score base)
+		{
+			if (base.value == 0)
+			{
+				return "?";
+			}
+
+			double change = (this.value - base.value) / base.value * 100;
+
+			if (!this.higherIsBetter)
+			{
+				change = -change;
+			}
+
+			boolean noise = Math.abs(this.value - base.value) <= this.error + base.error;
+
+			return String.format("%+.1f%%%s", change, noise ? "~" : "");
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%.3f %s", this.value, this.unit);
+		}
+	}
+}
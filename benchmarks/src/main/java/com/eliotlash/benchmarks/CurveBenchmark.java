@@ -0,0 +1,68 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.molang.MolangException;
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.particlelib.particles.BedrockCurve;
+import com.eliotlash.particlelib.particles.BedrockCurveType;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Curve evaluation for every curve type
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveBenchmark
+{
+	@Param({"linear", "catmull_rom"})
+	public String type;
+
+	public Variable input;
+	public BedrockCurve curve;
+
+	private double step;
+
+	@Setup
+	public void setup() throws MolangException
+	{
+		MolangParser parser = new MolangParser();
+		String json = "{\"type\": \"" + this.type + "\", \"input\": \"variable.particle_age\", \"horizontal_range\": \"variable.particle_lifetime\", \"nodes\": [0, 0.2, 1, 0.6, 0.1, 0]}";
+
+		this.curve = new BedrockCurve();
+		this.curve.fromJson(JsonParser.parseString(json).getAsJsonObject(), parser);
+		this.input = parser.variables.get("variable.particle_age");
+		parser.setValue("variable.particle_lifetime", 1.5);
+
+		if (this.curve.type != BedrockCurveType.fromString(this.type))
+		{
+			throw new IllegalStateException("Wrong curve type " + this.curve.type);
+		}
+	}
+
+	@Benchmark
+	public double compute()
+	{
+		/* Walk the input through the whole range, so all segments are hit */
+		this.step = (this.step + 0.0137) % 1.5;
+		this.input.set(this.step);
+
+		return this.curve.compute();
+	}
+}
@@ -0,0 +1,54 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying a scheme (done for every emitter that needs its own copy)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DupeBenchmark
+{
+	@Param({"rainbow", "loading"})
+	public String preset;
+
+	public BedrockScheme scheme;
+
+	@Setup
+	public void setup()
+	{
+		this.scheme = Presets.load(this.preset);
+	}
+
+	@Benchmark
+	public BedrockScheme dupe()
+	{
+		return BedrockScheme.dupe(this.scheme);
+	}
+
+	/**
+	 * The way dupe() used to copy, for comparison
+	 */
+	@Benchmark
+	public BedrockScheme jsonRoundTrip()
+	{
+		return BedrockScheme.parse(BedrockScheme.toJson(this.scheme));
+	}
+}
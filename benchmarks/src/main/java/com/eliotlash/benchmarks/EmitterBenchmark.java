@@ -0,0 +1,82 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One emitter tick (or one rendered frame, generating billboards into a
+ * byte buffer) with given amount of live particles. Rendering doesn't
+ * change the population, so it's filled before every iteration. Ticks
+ * top it up themselves, so particles that expired don't make later ticks
+ * cheaper (i.e. a tick includes spawning particles that replace expired
+ * ones, like a steady emitter would). Per invocation setup would mostly
+ * measure JMH's own overhead at these timings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmitterBenchmark
+{
+	@Param({"rainbow", "loading"})
+	public String preset;
+
+	@Param({"1000", "10000", "100000"})
+	public int particles;
+
+	public BedrockScheme scheme;
+	public HeadlessBedrockEmitter emitter;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.scheme = Presets.load(this.preset);
+		this.emitter = new HeadlessBedrockEmitter(Presets.WORLD);
+		this.emitter.lastGlobal.set(0, 64, 0);
+		this.emitter.setScheme(this.scheme);
+	}
+
+	@Setup(Level.Iteration)
+	public void populate()
+	{
+		this.emitter.running = true;
+
+		while (this.emitter.particles.size() < this.particles)
+		{
+			this.emitter.spawnParticle();
+		}
+	}
+
+	@Benchmark
+	public HeadlessBedrockEmitter update()
+	{
+		this.populate();
+		this.emitter.update();
+
+		return this.emitter;
+	}
+
+	@Benchmark
+	public HeadlessBedrockEmitter render()
+	{
+		this.emitter.render(0.5F);
+
+		return this.emitter;
+	}
+}
@@ -0,0 +1,70 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.molang.MolangException;
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.molang.expressions.MolangExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of parsed MoLang expressions, similar to the ones used by the
+ * bundled presets
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark
+{
+	@Param({"constant", "variable", "arithmetic", "functions", "ternary", "statements"})
+	public String kind;
+
+	public MolangParser parser;
+	public MolangExpression expression;
+
+	@Setup
+	public void setup() throws MolangException
+	{
+		this.parser = new MolangParser();
+		this.parser.setValue("variable.particle_age", 0.4);
+		this.parser.setValue("variable.particle_random_2", 0.7);
+		this.parser.setValue("variable.emitter_age", 1.3);
+		this.parser.setValue("variable.size", 0.08);
+
+		this.expression = this.parser.parseExpression(this.getSource());
+	}
+
+	private String getSource()
+	{
+		switch (this.kind)
+		{
+			case "constant": return "0.12";
+			case "variable": return "variable.particle_age";
+			case "arithmetic": return "variable.size*(1-variable.particle_age)";
+			case "functions": return "math.cos(variable.emitter_age * 90) * (2.5-variable.particle_random_2)";
+			case "ternary": return "variable.particle_age > 0.5 ? variable.size : variable.size * 2";
+			case "statements": return "variable.radius = 2.5; return variable.radius * math.sin(variable.emitter_age * 360);";
+		}
+
+		throw new IllegalArgumentException(this.kind);
+	}
+
+	@Benchmark
+	public double get()
+	{
+		return this.expression.get();
+	}
+}
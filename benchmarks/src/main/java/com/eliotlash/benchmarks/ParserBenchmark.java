@@ -0,0 +1,76 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.MathBuilder;
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.molang.MolangException;
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.molang.expressions.MolangExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing throughput of math and MoLang expressions
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark
+{
+	@State(Scope.Thread)
+	public static class MathState
+	{
+		@Param({"1 + 2 * 3", "sin(x * 90) * (2.5 - y) + cos(x * 90) / 2", "x > 0.5 ? lerp(x, y, 0.25) : -abs(y)"})
+		public String expression;
+
+		public MathBuilder builder;
+
+		@Setup
+		public void setup()
+		{
+			this.builder = new MathBuilder();
+			this.builder.register(new Variable("x", 0.25));
+			this.builder.register(new Variable("y", 0.75));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MolangState
+	{
+		@Param({"variable.size*(1-variable.particle_age)", "math.cos(variable.emitter_age * 90) * (2.5-variable.particle_random_2)", "variable.radius = 2.5;test = 1;"})
+		public String expression;
+
+		public MolangParser parser;
+
+		@Setup
+		public void setup()
+		{
+			this.parser = new MolangParser();
+		}
+	}
+
+	@Benchmark
+	public IValue mathBuilderParse(MathState state) throws Exception
+	{
+		return state.builder.parse(state.expression);
+	}
+
+	@Benchmark
+	public MolangExpression molangParseExpression(MolangState state) throws MolangException
+	{
+		return state.parser.parseExpression(state.expression);
+	}
+}
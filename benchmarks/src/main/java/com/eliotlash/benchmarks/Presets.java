@@ -0,0 +1,51 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.headless.HeadlessSchemeJsonAdapter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Access to the mod's bundled particle presets for benchmarks
+ */
+public class Presets
+{
+	public static final MemoryWorld WORLD = new MemoryWorld();
+
+	static
+	{
+		BedrockScheme.setJsonAdapter(new HeadlessSchemeJsonAdapter());
+
+		if (!Settings.hasBlockLookupImpl())
+		{
+			Settings.setBlockLookupImpl(WORLD::lookupBlock);
+		}
+	}
+
+	public static String json(String name)
+	{
+		try (InputStream stream = Presets.class.getResourceAsStream("/assets/particleman/particles/" + name + ".particle.json"))
+		{
+			if (stream == null)
+			{
+				throw new IllegalArgumentException("There is no preset " + name + "!");
+			}
+
+			return IOUtils.toString(stream, StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static BedrockScheme load(String name)
+	{
+		return BedrockScheme.parse(json(name));
+	}
+}
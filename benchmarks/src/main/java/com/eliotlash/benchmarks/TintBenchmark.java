@@ -0,0 +1,72 @@
+package com.eliotlash.benchmarks;
+
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.molang.MolangException;
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.particlelib.particles.components.appearance.Tint;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gradient tinting (same gradient as the rainbow preset)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TintBenchmark
+{
+	public Variable interpolant;
+	public Tint gradient;
+	public Tint baked;
+	public BedrockParticle particle = new BedrockParticle();
+
+	private double step;
+
+	@Setup
+	public void setup() throws MolangException
+	{
+		MolangParser parser = new MolangParser();
+		String json = "{\"interpolant\": \"variable.rainbow\", \"gradient\": {\"0.0\": \"#d71c1c\", \"0.16\": \"#ffdf00\", \"0.33\": \"#08ff00\", \"0.5\": \"#00ffff\", \"0.67\": \"#0000ff\", \"0.83\": \"#ff00ff\", \"1.0\": \"#e21111\"}}";
+
+		this.interpolant = new Variable("variable.rainbow", 0);
+		parser.register(this.interpolant);
+		this.gradient = Tint.parseGradient(JsonParser.parseString(json).getAsJsonObject(), parser);
+		this.baked = Tint.parseGradient(JsonParser.parseString(json).getAsJsonObject(), parser);
+		this.baked.bake();
+	}
+
+	@Benchmark
+	public BedrockParticle gradientCompute()
+	{
+		this.step = (this.step + 0.0137) % 1;
+		this.interpolant.set(this.step);
+		this.gradient.compute(this.particle);
+
+		return this.particle;
+	}
+
+	@Benchmark
+	public BedrockParticle bakedGradientCompute()
+	{
+		this.step = (this.step + 0.0137) % 1;
+		this.interpolant.set(this.step);
+		this.baked.compute(this.particle);
+
+		return this.particle;
+	}
+}
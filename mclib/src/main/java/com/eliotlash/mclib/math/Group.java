@@ -15,6 +15,11 @@ public class Group implements IValue
         this.value = value;
     }
 
+    public IValue getValue()
+    {
+        return this.value;
+    }
+
     @Override
     public double get()
     {
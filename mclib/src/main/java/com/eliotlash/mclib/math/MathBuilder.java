@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.eliotlash.mclib.math.functions.Function;
 import com.eliotlash.mclib.math.functions.limit.Clamp;
@@ -45,9 +47,15 @@ public class MathBuilder
 {
     /**
      * Named variables that can be used in math expression by this
-     * builder
+     * builder (concurrent, so expressions can be parsed by several
+     * threads at once)
      */
-    public Map<String, Variable> variables = new HashMap<String, Variable>();
+    public Map<String, Variable> variables = new ConcurrentHashMap<String, Variable>();
+
+    /**
+     * Variables by their slot in {@link VariableContext}s of this builder
+     */
+    private final List<Variable> slots = new CopyOnWriteArrayList<Variable>();
 
     /**
      * Map of functions which can be used in the math expressions
@@ -93,6 +101,33 @@ public class MathBuilder
     public void register(Variable variable)
     {
         this.variables.put(variable.getName(), variable);
+        this.assignSlot(variable);
+    }
+
+    /**
+     * Give a variable a slot, so its value can be kept separately by
+     * every {@link VariableContext} of this builder. Variables that
+     * already have a slot keep it
+     */
+    public synchronized Variable assignSlot(Variable variable)
+    {
+        if (variable.index < 0)
+        {
+            this.slots.add(variable);
+            variable.index = this.slots.size() - 1;
+        }
+
+        return variable;
+    }
+
+    public int getSlotCount()
+    {
+        return this.slots.size();
+    }
+
+    public Variable getSlot(int index)
+    {
+        return this.slots.get(index);
     }
 
     /**
@@ -8,13 +8,21 @@ package com.eliotlash.mclib.math;
  * the expressions parsed by {@link MathBuilder}.
  *
  * But in practice, it's simply returns stored value and provides a
- * method to modify it.
+ * method to modify it. Variables registered in a {@link MathBuilder}
+ * get a slot, and while a {@link VariableContext} of that builder is
+ * entered, they read and write context's value instead.
  */
 public class Variable implements IValue
 {
     private String name;
     private double value;
 
+    /**
+     * Slot of this variable in its builder's contexts, or -1 if it
+     * doesn't have one (see {@link MathBuilder#assignSlot(Variable)})
+     */
+    int index = -1;
+
     public Variable(String name, double value)
     {
         this.name = name;
@@ -26,15 +34,44 @@ public class Variable implements IValue
      */
     public void set(double value)
     {
-        this.value = value;
+        VariableContext context = this.index >= 0 ? VariableContext.current() : null;
+
+        if (context == null || !context.set(this, value))
+        {
+            this.value = value;
+        }
     }
 
     @Override
     public double get()
+    {
+        if (this.index >= 0)
+        {
+            VariableContext context = VariableContext.current();
+
+            if (context != null)
+            {
+                return context.get(this);
+            }
+        }
+
+        return this.value;
+    }
+
+    /**
+     * Get the value of this variable outside of any context, which is
+     * also the value contexts start with
+     */
+    public double getDefault()
     {
         return this.value;
     }
 
+    public int getIndex()
+    {
+        return this.index;
+    }
+
     public String getName()
     {
         return name;
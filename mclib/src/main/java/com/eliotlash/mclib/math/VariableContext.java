@@ -0,0 +1,164 @@
+package com.eliotlash.mclib.math;
+
+import java.util.Arrays;
+
+/**
+ * Variable context
+ *
+ * Values of a {@link MathBuilder}'s variables that belong to one user
+ * of the expressions it parsed. While a context is entered on a thread,
+ * builder's variables read and write context's values instead of their
+ * own, so the same parsed expressions can be evaluated for many users,
+ * and on several threads at once, without modifying them.
+ *
+ * A context itself should be used by one thread at a time.
+ */
+public class VariableContext
+{
+    private static final ThreadLocal<VariableContext> current = new ThreadLocal<VariableContext>();
+
+    private final MathBuilder builder;
+
+    /**
+     * Builder's variables by their slot, so variables of other builders
+     * which happen to have the same slot wouldn't be mixed up
+     */
+    private Variable[] variables = new Variable[0];
+    private double[] values = new double[0];
+
+    /**
+     * Get the context entered on current thread, if any
+     */
+    public static VariableContext current()
+    {
+        return current.get();
+    }
+
+    /**
+     * Leave current context, and restore the context that was current
+     * before it was entered (see {@link #enter()})
+     */
+    public static void exit(VariableContext previous)
+    {
+        if (previous == null)
+        {
+            current.remove();
+        }
+        else
+        {
+            current.set(previous);
+        }
+    }
+
+    public VariableContext(MathBuilder builder)
+    {
+        this.builder = builder;
+        this.grow();
+    }
+
+    public MathBuilder getBuilder()
+    {
+        return this.builder;
+    }
+
+    /**
+     * Make this context current on this thread. Returns the previously
+     * current context, which should be passed to {@link #exit(VariableContext)}
+     */
+    public VariableContext enter()
+    {
+        VariableContext previous = current.get();
+
+        current.set(this);
+
+        return previous;
+    }
+
+    /**
+     * Get the value of given variable in this context
+     */
+    public double get(Variable variable)
+    {
+        int index = variable.index;
+
+        if (index >= this.values.length)
+        {
+            this.grow();
+        }
+
+        if (index >= 0 && index < this.values.length && this.variables[index] == variable)
+        {
+            return this.values[index];
+        }
+
+        return variable.getDefault();
+    }
+
+    /**
+     * Get the value of (first) variable with given name in this context
+     */
+    public double get(String name)
+    {
+        this.grow();
+
+        for (int i = 0; i < this.variables.length; i++)
+        {
+            if (this.variables[i].getName().equals(name))
+            {
+                return this.values[i];
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Set the value of given variable in this context. Returns false if
+     * the variable doesn't belong to context's builder
+     */
+    public boolean set(Variable variable, double value)
+    {
+        int index = variable.index;
+
+        if (index >= this.values.length)
+        {
+            this.grow();
+        }
+
+        if (index >= 0 && index < this.values.length && this.variables[index] == variable)
+        {
+            this.values[index] = value;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Catch up with variables that got a slot after this context was
+     * created, which start with their default values
+     */
+    private void grow()
+    {
+        int count = this.builder.getSlotCount();
+        int length = this.values.length;
+
+        if (count <= length)
+        {
+            return;
+        }
+
+        Variable[] variables = Arrays.copyOf(this.variables, count);
+        double[] values = Arrays.copyOf(this.values, count);
+
+        for (int i = length; i < count; i++)
+        {
+            variables[i] = this.builder.getSlot(i);
+            values[i] = variables[i].getDefault();
+        }
+
+        this.variables = variables;
+        this.values = values;
+    }
+}
@@ -26,6 +26,14 @@ public abstract class Function implements IValue
         this.name = name;
     }
 
+    /**
+     * Get the arguments this function was created with
+     */
+    public IValue[] getArgs()
+    {
+        return this.args;
+    }
+
     /**
      * Get the value of nth argument
      */
@@ -5,13 +5,28 @@ import com.eliotlash.mclib.math.functions.Function;
 
 public class Random extends Function
 {
-    public java.util.Random random;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
 
     public Random(IValue[] values, String name) throws Exception
     {
         super(values, name);
+    }
+
+    /**
+     * Same value as {@link java.util.Random#nextDouble()} of a random
+     * seeded with given seed, but without keeping a random instance
+     * around, so the function can be evaluated on several threads
+     */
+    public static double seeded(long seed)
+    {
+        seed = (seed ^ MULTIPLIER) & MASK;
+
+        long a = (seed = (seed * MULTIPLIER + ADDEND) & MASK) >>> (48 - 26);
+        long b = ((seed * MULTIPLIER + ADDEND) & MASK) >>> (48 - 27);
 
-        this.random = new java.util.Random();
+        return ((a << 27) + b) * 0x1.0p-53;
     }
 
     @Override
@@ -21,8 +36,7 @@ public class Random extends Function
 
         if (this.args.length >= 3)
         {
-            this.random.setSeed((long) this.getArg(2));
-            random = this.random.nextDouble();
+            random = seeded((long) this.getArg(2));
         }
         else
         {
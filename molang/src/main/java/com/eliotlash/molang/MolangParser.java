@@ -15,6 +15,8 @@ import com.eliotlash.mclib.math.Variable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MoLang parser
@@ -29,7 +31,20 @@ public class MolangParser extends MathBuilder
 	public static final MolangExpression ONE = new MolangValue(null, new Constant(1));
 	public static final String RETURN = "return ";
 
-	private MolangMultiStatement currentStatement;
+	/**
+	 * Statement being parsed by current thread (by any parser), so one
+	 * parser can parse expressions on several threads at once
+	 */
+	private static final ThreadLocal<MolangMultiStatement> currentStatement = new ThreadLocal<MolangMultiStatement>();
+
+	/**
+	 * Variables created by assignments to unregistered variables, by
+	 * statement's (lower cased) source and variable name. They belong to
+	 * their statement, and keep their values between its evaluations.
+	 * Statements parsed from the same source share their locals, so
+	 * parsing an expression again doesn't create new variables
+	 */
+	public final Map<String, Map<String, Variable>> locals = new ConcurrentHashMap<String, Map<String, Variable>>();
 
 	public MolangParser()
 	{
@@ -84,7 +99,8 @@ public class MolangParser extends MathBuilder
 	@Override
 	protected Variable getVariable(String name)
 	{
-		Variable variable = this.currentStatement == null ? null : this.currentStatement.locals.get(name);
+		MolangMultiStatement statement = currentStatement.get();
+		Variable variable = statement == null || statement.context != this ? null : statement.locals.get(name);
 
 		if (variable == null)
 		{
@@ -93,9 +109,8 @@ public class MolangParser extends MathBuilder
 
 		if (variable == null)
 		{
-			variable = new Variable(name, 0);
-
-			this.register(variable);
+			/* Another thread might be registering the same variable */
+			variable = this.variables.computeIfAbsent(name, (key) -> this.assignSlot(new Variable(key, 0)));
 		}
 
 		return variable;
@@ -134,7 +149,9 @@ public class MolangParser extends MathBuilder
 	{
 		List<String> lines = new ArrayList<String>();
 
-		for (String split : expression.toLowerCase().trim().split(";"))
+		expression = expression.toLowerCase().trim();
+
+		for (String split : expression.split(";"))
 		{
 			if (!split.trim().isEmpty())
 			{
@@ -148,8 +165,10 @@ public class MolangParser extends MathBuilder
 		}
 
 		MolangMultiStatement result = new MolangMultiStatement(this);
+		MolangMultiStatement previous = currentStatement.get();
 
-		this.currentStatement = result;
+		result.locals = this.locals.computeIfAbsent(expression, (key) -> new ConcurrentHashMap<String, Variable>());
+		currentStatement.set(result);
 
 		try
 		{
@@ -158,15 +177,24 @@ public class MolangParser extends MathBuilder
 				result.expressions.add(this.parseOneLine(line));
 			}
 		}
-		catch (Exception e)
+		finally
 		{
-			this.currentStatement = null;
+			/* Same source always creates the same locals, so most sources don't need an entry */
+			if (result.locals.isEmpty())
+			{
+				this.locals.remove(expression, result.locals);
+			}
 
-			throw e;
+			if (previous == null)
+			{
+				currentStatement.remove();
+			}
+			else
+			{
+				currentStatement.set(previous);
+			}
 		}
 
-		this.currentStatement = null;
-
 		return result;
 	}
 
@@ -201,10 +229,12 @@ public class MolangParser extends MathBuilder
 
 				Variable variable = null;
 
-				if (!this.variables.containsKey(name) && !this.currentStatement.locals.containsKey(name))
+				MolangMultiStatement statement = currentStatement.get();
+
+				if (!this.variables.containsKey(name))
 				{
-					variable = new Variable(name, 0);
-					this.currentStatement.locals.put(name, variable);
+					/* Statement might have been parsed before, or be parsed by another thread */
+					variable = statement.locals.computeIfAbsent(name, (key) -> this.assignSlot(new Variable(key, 0)));
 				}
 				else
 				{
@@ -6,8 +6,18 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
 import com.eliotlash.molang.MolangParser;
 import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Group;
 import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.Negate;
+import com.eliotlash.mclib.math.Negative;
 import com.eliotlash.mclib.math.Operation;
+import com.eliotlash.mclib.math.Operator;
+import com.eliotlash.mclib.math.Ternary;
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.mclib.math.functions.Function;
+import com.eliotlash.mclib.math.functions.utility.Random;
+
+import java.util.Set;
 
 public abstract class MolangExpression implements IValue
 {
@@ -47,6 +57,78 @@ public abstract class MolangExpression implements IValue
 		return false;
 	}
 
+	/**
+	 * Whether given value reads no variables other than given ones, so
+	 * it doesn't have to be recomputed until one of them changes.
+	 * Assignments and random numbers are never considered
+	 * to depend only on given variables
+	 */
+	public static boolean dependsOnlyOn(IValue value, Set<Variable> variables)
+	{
+		if (value instanceof Constant)
+		{
+			return true;
+		}
+		else if (value instanceof Variable)
+		{
+			return variables.contains(value);
+		}
+		else if (value instanceof MolangValue)
+		{
+			return dependsOnlyOn(((MolangValue) value).value, variables);
+		}
+		else if (value instanceof MolangMultiStatement)
+		{
+			for (MolangExpression expression : ((MolangMultiStatement) value).expressions)
+			{
+				if (!dependsOnlyOn(expression, variables))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+		else if (value instanceof Group)
+		{
+			return dependsOnlyOn(((Group) value).getValue(), variables);
+		}
+		else if (value instanceof Negate)
+		{
+			return dependsOnlyOn(((Negate) value).value, variables);
+		}
+		else if (value instanceof Negative)
+		{
+			return dependsOnlyOn(((Negative) value).value, variables);
+		}
+		else if (value instanceof Operator)
+		{
+			Operator operator = (Operator) value;
+
+			return dependsOnlyOn(operator.a, variables) && dependsOnlyOn(operator.b, variables);
+		}
+		else if (value instanceof Ternary)
+		{
+			Ternary ternary = (Ternary) value;
+
+			return dependsOnlyOn(ternary.condition, variables) && dependsOnlyOn(ternary.ifTrue, variables) && dependsOnlyOn(ternary.ifFalse, variables);
+		}
+		else if (value instanceof Function && !(value instanceof Random))
+		{
+			for (IValue arg : ((Function) value).getArgs())
+			{
+				if (!dependsOnlyOn(arg, variables))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
 	public MolangExpression(MolangParser context)
 	{
 		this.context = context;
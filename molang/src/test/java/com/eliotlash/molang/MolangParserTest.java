@@ -1,12 +1,16 @@
 package com.eliotlash.molang;
 
 import com.eliotlash.molang.expressions.MolangExpression;
+import com.eliotlash.mclib.math.Variable;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MolangParserTest {
@@ -57,4 +61,14 @@ class MolangParserTest {
         assertTrue(parser.isOperator("%"));
         assertFalse(parser.isOperator("0"));
     }
+
+    @Test
+    void dependsOnlyOn() throws MolangException {
+        Set<Variable> variables = Collections.singleton(parser.getVariable("variable.a"));
+
+        assertTrue(MolangExpression.dependsOnlyOn(parser.parseOneLine("math.sin(variable.a * 2) + (variable.a > 1 ? 3 : -variable.a)"), variables));
+        assertFalse(MolangExpression.dependsOnlyOn(parser.parseOneLine("variable.a + variable.b"), variables));
+        assertFalse(MolangExpression.dependsOnlyOn(parser.parseOneLine("math.random(0, variable.a)"), variables));
+        assertFalse(MolangExpression.dependsOnlyOn(parser.parseOneLine("variable.a = 2"), variables));
+    }
 }
@@ -5,6 +5,8 @@ package com.eliotlash.particlelib;
 
 import com.eliotlash.particlelib.mcwrapper.IBlock;
 import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.particles.emitter.IEmitterWatchdogListener;
+import com.eliotlash.particlelib.quality.QualityLevel;
 
 import java.util.function.Function;
 
@@ -19,6 +21,138 @@ public class Settings {
         Settings.particleSorting = particleSorting;
     }
 
+    private static int blockRecheckInterval = 20;
+
+    public static int getBlockRecheckInterval() {
+        return blockRecheckInterval;
+    }
+
+    /**
+     * Set how often (in ticks) particles that stay in the same block recheck it against the world,
+     * so block changes the world didn't report still get picked up eventually.
+     * @param blockRecheckInterval Interval in ticks, 0 or less to check every tick
+     */
+    public static void setBlockRecheckInterval(int blockRecheckInterval) {
+        Settings.blockRecheckInterval = blockRecheckInterval;
+    }
+
+    private static int lightRefreshInterval = 0;
+
+    public static int getLightRefreshInterval() {
+        return lightRefreshInterval;
+    }
+
+    /**
+     * Set how often (in ticks) particles look up their light again while they stay in the same block.
+     * Light values are cached per tick anyway, so this only saves the cache look ups of dense effects.
+     * @param lightRefreshInterval Interval in ticks, 0 or less to look up light every frame
+     */
+    public static void setLightRefreshInterval(int lightRefreshInterval) {
+        Settings.lightRefreshInterval = lightRefreshInterval;
+    }
+
+    private static QualityLevel quality = QualityLevel.FULL;
+
+    public static QualityLevel getQuality() {
+        return quality;
+    }
+
+    /**
+     * Set quality reductions applied to all emitters. Usually set by a {@link com.eliotlash.particlelib.quality.QualityGovernor}.
+     * @param quality Quality level, or null for full quality
+     */
+    public static void setQuality(QualityLevel quality) {
+        Settings.quality = quality == null ? QualityLevel.FULL : quality;
+    }
+
+    private static double farEmitterDistance = 32;
+
+    public static double getFarEmitterDistance() {
+        return farEmitterDistance;
+    }
+
+    /**
+     * Set the distance (in blocks) from which emitters count as far, and update their particles' appearance
+     * less often at lower quality levels (see {@link QualityLevel#farTickInterval}).
+     * @param farEmitterDistance Distance in blocks
+     */
+    public static void setFarEmitterDistance(double farEmitterDistance) {
+        Settings.farEmitterDistance = farEmitterDistance;
+    }
+
+    private static int maxEmitterParticles = 16384;
+
+    public static int getMaxEmitterParticles() {
+        return maxEmitterParticles;
+    }
+
+    /**
+     * Set how many particles a single emitter may have alive, no matter what its scheme says.
+     * @param maxEmitterParticles Particle limit per emitter
+     */
+    public static void setMaxEmitterParticles(int maxEmitterParticles) {
+        Settings.maxEmitterParticles = maxEmitterParticles;
+    }
+
+    private static int maxSpawnsPerTick = 4096;
+
+    public static int getMaxSpawnsPerTick() {
+        return maxSpawnsPerTick;
+    }
+
+    /**
+     * Set how many particles a single emitter may spawn per tick (including frames until the next tick).
+     * @param maxSpawnsPerTick Spawn limit per emitter and tick
+     */
+    public static void setMaxSpawnsPerTick(int maxSpawnsPerTick) {
+        Settings.maxSpawnsPerTick = maxSpawnsPerTick;
+    }
+
+    private static int watchdogSuspendTicks = 100;
+
+    public static int getWatchdogSuspendTicks() {
+        return watchdogSuspendTicks;
+    }
+
+    /**
+     * Set for how many ticks in a row an emitter may hit the spawn limit (or produce non-finite particles) before
+     * it gets suspended, and stops spawning particles. Emitters at the particle limit are only clamped.
+     * @param watchdogSuspendTicks Ticks in a row
+     */
+    public static void setWatchdogSuspendTicks(int watchdogSuspendTicks) {
+        Settings.watchdogSuspendTicks = watchdogSuspendTicks;
+    }
+
+    private static IEmitterWatchdogListener watchdogListener;
+
+    public static IEmitterWatchdogListener getWatchdogListener() {
+        return watchdogListener;
+    }
+
+    /**
+     * Set a listener that gets told about emitters that were limited or suspended by their watchdog, so offending
+     * schemes can be logged.
+     * @param watchdogListener Listener, or null to ignore anomalies
+     */
+    public static void setWatchdogListener(IEmitterWatchdogListener watchdogListener) {
+        Settings.watchdogListener = watchdogListener;
+    }
+
+    private static int libraryThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    public static int getLibraryThreads() {
+        return libraryThreads;
+    }
+
+    /**
+     * Set how many threads a particle library parses scheme files with. Only read when the library's loader pool is
+     * created, i.e. on its first load.
+     * @param libraryThreads Number of loader threads, at least 1
+     */
+    public static void setLibraryThreads(int libraryThreads) {
+        Settings.libraryThreads = Math.max(1, libraryThreads);
+    }
+
     private static Function<ResourceLocation, IBlock> blockLookupImpl;
 
     /**
@@ -29,6 +163,10 @@ public class Settings {
     public static void setBlockLookupImpl(Function<ResourceLocation, IBlock> blockLookupImpl) {
         Settings.blockLookupImpl = blockLookupImpl;
     }
+    public static boolean hasBlockLookupImpl() {
+        return blockLookupImpl != null;
+    }
+
     public static IBlock blockLookup(ResourceLocation location) {
         if(blockLookupImpl == null) {
             throw new java.lang.IllegalStateException("Block lookup function must be set by caller using Settings.setBlockLookupImpl before trying to load a particle system.");
@@ -0,0 +1,152 @@
+package com.eliotlash.particlelib.headless;
+
+import com.eliotlash.particlelib.mcwrapper.BlockPos;
+import com.eliotlash.particlelib.mcwrapper.IWorld;
+import com.eliotlash.particlelib.mcwrapper.LightCache;
+import com.eliotlash.particlelib.particles.components.IComponentParticleRenderBase;
+import com.eliotlash.particlelib.particles.components.appearance.BedrockComponentAppearanceBillboard;
+import com.eliotlash.particlelib.particles.components.appearance.BedrockComponentAppearanceTinting;
+import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.particles.render.ByteBufferVertexSink;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
+import com.eliotlash.particlelib.profiler.ParticleProfiler;
+import com.eliotlash.mclib.math.VariableContext;
+
+import java.util.List;
+
+/**
+ * Headless emitter
+ *
+ * Emitter that doesn't depend on the game, so particle simulation can be
+ * run (and measured) anywhere. Rendering evaluates appearance components
+ * for every particle the same way the game does, and writes billboards
+ * into a byte buffer instead of the game's vertex buffer. Camera
+ * properties are set directly on the emitter.
+ */
+public class HeadlessBedrockEmitter extends BedrockEmitter
+{
+	/**
+	 * Vertices generated by the last {@link #render(float)} call
+	 */
+	public ByteBufferVertexSink sink = new ByteBufferVertexSink();
+
+	public HeadlessBedrockEmitter()
+	{}
+
+	public HeadlessBedrockEmitter(IWorld world)
+	{
+		this.world = world;
+	}
+
+	@Override
+	public double getDistanceSq()
+	{
+		double dx = this.cX - this.lastGlobal.x;
+		double dy = this.cY - this.lastGlobal.y;
+		double dz = this.cZ - this.lastGlobal.z;
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	@Override
+	public void renderOnScreen(int x, int y, float scale)
+	{}
+
+	@Override
+	public void render(float partialTicks)
+	{
+		if (this.scheme == null)
+		{
+			return;
+		}
+
+		List<IComponentParticleRenderBase> renders = this.scheme.particleRender;
+		long renderStart = ParticleProfiler.start();
+		Object event = ParticleEvents.beginRender();
+
+		this.sink.reset();
+
+		VariableContext previous = this.enterState();
+
+		try
+		{
+			for (IComponentParticleRenderBase component : renders)
+			{
+				long start = ParticleProfiler.start();
+
+				component.preRender(this, partialTicks);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+
+			boolean emitterVariables = false;
+
+			for (BedrockParticle particle : this.particles)
+			{
+				if (this.isAppearancePerFrame(particle))
+				{
+					if (!emitterVariables)
+					{
+						this.setEmitterVariables(partialTicks);
+						emitterVariables = true;
+					}
+
+					this.setParticleVariables(particle, partialTicks);
+				}
+
+				for (IComponentParticleRenderBase component : renders)
+				{
+					long start = ParticleProfiler.start();
+
+					this.renderParticle(component, particle, partialTicks);
+					ParticleProfiler.record(this.scheme, component, start, 1);
+				}
+			}
+
+			for (IComponentParticleRenderBase component : renders)
+			{
+				long start = ParticleProfiler.start();
+
+				component.postRender(this, partialTicks);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+		}
+		finally
+		{
+			VariableContext.exit(previous);
+		}
+
+		ParticleProfiler.record(this.scheme, ParticleProfiler.RENDER, renderStart, this.particles.size());
+		ParticleEvents.commitRender(event, this.scheme, this.particles.size());
+	}
+
+	/**
+	 * Evaluate given render component for a particle
+	 */
+	protected void renderParticle(IComponentParticleRenderBase component, BedrockParticle particle, float partialTicks)
+	{
+		if (component instanceof BedrockComponentAppearanceBillboard)
+		{
+			((BedrockComponentAppearanceBillboard) component).render(this, particle, this.sink, partialTicks);
+		}
+		else if (component instanceof BedrockComponentAppearanceTinting && this.isAppearancePerFrame(particle))
+		{
+			((BedrockComponentAppearanceTinting) component).compute(particle);
+		}
+	}
+
+	@Override
+	public void setupCameraProperties(float partialTicks)
+	{}
+
+	@Override
+	public int getBrightnessForRender(float partialTicks, double x, double y, double z)
+	{
+		if (this.lit || this.world == null)
+		{
+			return 15728880;
+		}
+
+		return LightCache.SHARED.get(this.world, BlockPos.pack((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z)));
+	}
+}
@@ -0,0 +1,12 @@
+package com.eliotlash.particlelib.headless;
+
+import com.eliotlash.particlelib.particles.BedrockSchemeJsonAdapter;
+
+/**
+ * Headless scheme JSON adapter
+ *
+ * Uses only components from particlelib (appearance components are parsed
+ * into their base classes, which evaluate but don't draw anything)
+ */
+public class HeadlessSchemeJsonAdapter extends BedrockSchemeJsonAdapter
+{}
@@ -0,0 +1,219 @@
+package com.eliotlash.particlelib.headless;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.mcwrapper.IWorld;
+import com.eliotlash.particlelib.mcwrapper.LightCache;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.components.IComponentBase;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless simulation
+ *
+ * Small driver that loads a particle scheme, ticks a number of
+ * {@link HeadlessBedrockEmitter}s in a stand-in world for a number of
+ * ticks and reports how fast it went. Doesn't need the game, so it can be
+ * used in unit tests and for profiling.
+ */
+public class HeadlessSimulation
+{
+	private static final Gson JSON_PARSER = new GsonBuilder()
+		.registerTypeAdapter(BedrockScheme.class, new HeadlessSchemeJsonAdapter())
+		.create();
+
+	public IWorld world;
+	public int emitters = 1;
+	public int ticks = 100;
+
+	/**
+	 * Distance between emitters along X axis, emitters are placed at
+	 * (i * spacing, y, 0)
+	 */
+	public double spacing = 16;
+	public double y = 64;
+
+	/**
+	 * Whether render components should be evaluated every tick too
+	 */
+	public boolean render = true;
+
+	/**
+	 * Whether time spent in every component should be measured (adds
+	 * some overhead of its own)
+	 */
+	public boolean timeComponents = true;
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: HeadlessSimulation <scheme.json> [emitters] [ticks]");
+
+			return;
+		}
+
+		HeadlessSimulation simulation = new HeadlessSimulation(new MemoryWorld());
+
+		if (args.length > 1) simulation.emitters = Integer.parseInt(args[1]);
+		if (args.length > 2) simulation.ticks = Integer.parseInt(args[2]);
+
+		System.out.print(simulation.run(FileUtils.readFileToString(new File(args[0]), StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Parse a scheme using only particlelib's components (doesn't depend
+	 * on the adapter set with {@link BedrockScheme#setJsonAdapter})
+	 */
+	public static BedrockScheme parse(String json)
+	{
+		return JSON_PARSER.fromJson(json, BedrockScheme.class);
+	}
+
+	public HeadlessSimulation(IWorld world)
+	{
+		this.world = world;
+
+		/* Expiry components need to resolve block IDs while parsing */
+		if (world instanceof MemoryWorld && !Settings.hasBlockLookupImpl())
+		{
+			Settings.setBlockLookupImpl(((MemoryWorld) world)::lookupBlock);
+		}
+	}
+
+	public SimulationReport run(String json)
+	{
+		return this.run(parse(json));
+	}
+
+	/**
+	 * Run the simulation. When component timing is enabled, the scheme's
+	 * phase lists get instrumented, so given scheme shouldn't be shared
+	 * with anything else
+	 */
+	public SimulationReport run(BedrockScheme scheme)
+	{
+		SimulationReport report = new SimulationReport();
+		Map<IComponentBase, TimedComponent> timers = new IdentityHashMap<IComponentBase, TimedComponent>();
+
+		if (this.timeComponents)
+		{
+			scheme.emitterInitializes = instrument(scheme.emitterInitializes, timers);
+			scheme.emitterUpdates = instrument(scheme.emitterUpdates, timers);
+			scheme.particleInitializes = instrument(scheme.particleInitializes, timers);
+			scheme.particleUpdates = instrument(scheme.particleUpdates, timers);
+			scheme.particleKernel = ParticleUpdateKernel.create(scheme.particleUpdates);
+		}
+
+		List<HeadlessBedrockEmitter> emitters = new ArrayList<HeadlessBedrockEmitter>();
+
+		for (int i = 0; i < this.emitters; i++)
+		{
+			HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(this.world);
+
+			emitter.lastGlobal.set(i * this.spacing, this.y, 0);
+			emitter.setScheme(scheme);
+			emitters.add(emitter);
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long allocated = getAllocatedBytes(threads, thread);
+		long start = System.nanoTime();
+
+		for (int tick = 0; tick < this.ticks; tick++)
+		{
+			int particles = 0;
+
+			LightCache.SHARED.clear();
+
+			for (HeadlessBedrockEmitter emitter : emitters)
+			{
+				emitter.update();
+				particles += emitter.particles.size();
+			}
+
+			if (this.render)
+			{
+				long renderStart = System.nanoTime();
+
+				for (HeadlessBedrockEmitter emitter : emitters)
+				{
+					emitter.render(0);
+				}
+
+				report.renderNanos += System.nanoTime() - renderStart;
+			}
+
+			report.particleTicks += particles;
+			report.peakParticles = Math.max(report.peakParticles, particles);
+		}
+
+		report.nanos = System.nanoTime() - start;
+
+		if (allocated >= 0)
+		{
+			report.allocatedBytes = getAllocatedBytes(threads, thread) - allocated;
+		}
+
+		report.identifier = scheme.identifier;
+		report.emitters = this.emitters;
+		report.ticks = this.ticks;
+
+		List<TimedComponent> sorted = new ArrayList<TimedComponent>(timers.values());
+
+		sorted.sort(Comparator.comparingLong((TimedComponent timer) -> timer.nanos).reversed());
+
+		for (TimedComponent timer : sorted)
+		{
+			report.componentNanos.put(timer.component.getClass().getSimpleName(), timer.nanos);
+		}
+
+		return report;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends IComponentBase> List<T> instrument(List<T> components, Map<IComponentBase, TimedComponent> timers)
+	{
+		List<T> list = new ArrayList<T>();
+
+		for (T component : components)
+		{
+			/* Components that are in several phases share the same timer */
+			TimedComponent timer = timers.computeIfAbsent(component, TimedComponent::new);
+
+			list.add((T) timer);
+		}
+
+		return list;
+	}
+
+	private static long getAllocatedBytes(ThreadMXBean threads, long thread)
+	{
+		if (threads instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+
+			if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled())
+			{
+				return sun.getThreadAllocatedBytes(thread);
+			}
+		}
+
+		return -1;
+	}
+}
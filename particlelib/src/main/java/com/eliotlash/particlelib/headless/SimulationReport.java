@@ -0,0 +1,74 @@
+package com.eliotlash.particlelib.headless;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simulation report
+ *
+ * Results of a {@link HeadlessSimulation} run
+ */
+public class SimulationReport
+{
+	public String identifier = "";
+	public int emitters;
+	public int ticks;
+
+	/**
+	 * Sum of particle counts over all ticks, i.e. how many particle
+	 * updates were done
+	 */
+	public long particleTicks;
+	public int peakParticles;
+	public long nanos;
+	public long renderNanos;
+
+	/**
+	 * Bytes allocated by the simulating thread, or -1 if the JVM can't
+	 * tell
+	 */
+	public long allocatedBytes = -1;
+
+	/**
+	 * Time spent in every component (by class name), only filled when
+	 * component timing was enabled
+	 */
+	public Map<String, Long> componentNanos = new LinkedHashMap<String, Long>();
+
+	public double getSeconds()
+	{
+		return this.nanos / 1_000_000_000D;
+	}
+
+	public double getParticlesPerSecond()
+	{
+		return this.nanos == 0 ? 0 : this.particleTicks / this.getSeconds();
+	}
+
+	public double getBytesPerParticle()
+	{
+		return this.allocatedBytes < 0 || this.particleTicks == 0 ? -1 : this.allocatedBytes / (double) this.particleTicks;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+
+		builder.append(String.format("%s: %d emitter(s) x %d tick(s)%n", this.identifier, this.emitters, this.ticks));
+		builder.append(String.format("  time: %.3f ms (render %.3f ms)%n", this.nanos / 1_000_000D, this.renderNanos / 1_000_000D));
+		builder.append(String.format("  particles: %d updates, %d peak, %.0f/s%n", this.particleTicks, this.peakParticles, this.getParticlesPerSecond()));
+
+		if (this.allocatedBytes >= 0)
+		{
+			builder.append(String.format("  allocated: %d bytes (%.1f per particle update)%n", this.allocatedBytes, this.getBytesPerParticle()));
+		}
+
+		for (Map.Entry<String, Long> entry : this.componentNanos.entrySet())
+		{
+			builder.append(String.format("  %s: %.3f ms%n", entry.getKey(), entry.getValue() / 1_000_000D));
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,78 @@
+package com.eliotlash.particlelib.headless;
+
+import com.eliotlash.particlelib.particles.components.IComponentBase;
+import com.eliotlash.particlelib.particles.components.IComponentEmitterInitialize;
+import com.eliotlash.particlelib.particles.components.IComponentEmitterUpdate;
+import com.eliotlash.particlelib.particles.components.IComponentParticleInitialize;
+import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
+import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+
+/**
+ * Timed component
+ *
+ * Decorator which measures how much time a component spends in its
+ * simulation phases. It replaces the component in the scheme's phase
+ * lists, so it only ever gets called through the interface it was put
+ * in place of.
+ */
+public class TimedComponent implements IComponentEmitterInitialize, IComponentEmitterUpdate, IComponentParticleInitialize, IComponentParticleUpdate
+{
+	public final IComponentBase component;
+
+	public long nanos;
+	public long calls;
+
+	public TimedComponent(IComponentBase component)
+	{
+		this.component = component;
+	}
+
+	@Override
+	public void apply(BedrockEmitter emitter)
+	{
+		long start = System.nanoTime();
+
+		((IComponentEmitterInitialize) this.component).apply(emitter);
+		this.record(start);
+	}
+
+	@Override
+	public void update(BedrockEmitter emitter)
+	{
+		long start = System.nanoTime();
+
+		((IComponentEmitterUpdate) this.component).update(emitter);
+		this.record(start);
+	}
+
+	@Override
+	public void apply(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		long start = System.nanoTime();
+
+		((IComponentParticleInitialize) this.component).apply(emitter, particle);
+		this.record(start);
+	}
+
+	@Override
+	public void update(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		long start = System.nanoTime();
+
+		((IComponentParticleUpdate) this.component).update(emitter, particle);
+		this.record(start);
+	}
+
+	private void record(long start)
+	{
+		this.nanos += System.nanoTime() - start;
+		this.calls += 1;
+	}
+
+	@Override
+	public int getSortingIndex()
+	{
+		return this.component.getSortingIndex();
+	}
+}
@@ -139,4 +139,8 @@ public class AxisAlignedBB {
     public AxisAlignedBB offset(double x, double y, double z) {
         return new AxisAlignedBB(this.xMin + x, this.yMin + y, this.zMin + z, this.xMax + x, this.yMax + y, this.zMax + z);
     }
+
+    public boolean intersects(AxisAlignedBB other) {
+        return this.xMin < other.xMax && this.xMax > other.xMin && this.yMin < other.yMax && this.yMax > other.yMin && this.zMin < other.zMax && this.zMax > other.zMin;
+    }
 }
@@ -0,0 +1,239 @@
+package com.eliotlash.particlelib.mcwrapper;
+
+import java.util.Arrays;
+
+/**
+ * Block lookup cache
+ *
+ * Remembers blocks resolved during one tick, keyed by packed block
+ * coordinates (see {@link BlockPos#pack(int, int, int)}). It's an open
+ * addressing hash table with generation stamps, so clearing it between
+ * ticks doesn't need to touch the arrays.
+ */
+public class BlockCache
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Global block version, bumped by {@link #invalidate()}. Particles
+	 * remember the version at which they've checked their block, so they
+	 * recheck it once the world changes under them
+	 */
+	private static volatile int version = 1;
+
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private IBlock[] values = new IBlock[INITIAL_CAPACITY];
+	private int[] stamps = new int[INITIAL_CAPACITY];
+	private int generation = 1;
+	private int size;
+
+	/* Batch request buffers */
+	private long[] missing = new long[INITIAL_CAPACITY];
+	private IBlock[] resolved = new IBlock[INITIAL_CAPACITY];
+
+	private BlockPos pos = new BlockPos();
+
+	/* Statistics */
+	public long hits;
+	public long misses;
+
+	public static int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Mark all blocks remembered by particles as stale (e.g. when world
+	 * was changed or reloaded)
+	 */
+	public static void invalidate()
+	{
+		version += 1;
+	}
+
+	/**
+	 * Forget all cached blocks (should be called once per tick)
+	 */
+	public void clear()
+	{
+		this.size = 0;
+		this.generation += 1;
+
+		if (this.generation == 0)
+		{
+			Arrays.fill(this.stamps, 0);
+			this.generation = 1;
+		}
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Get a block at given coordinates, asking the world only if it wasn't
+	 * looked up yet during this tick
+	 */
+	public IBlock get(IWorld world, int x, int y, int z)
+	{
+		return this.get(world, BlockPos.pack(x, y, z));
+	}
+
+	/**
+	 * Get a block at given packed coordinates
+	 */
+	public IBlock get(IWorld world, long key)
+	{
+		int index = this.find(key);
+
+		if (index >= 0)
+		{
+			this.hits += 1;
+
+			return this.values[index];
+		}
+
+		this.misses += 1;
+		this.pos.setPos(key);
+
+		IBlock block = world.getBlockAtPos(this.pos);
+
+		if (block == null)
+		{
+			block = IBlock.Blocks.AIR;
+		}
+
+		this.put(key, block);
+
+		return block;
+	}
+
+	/**
+	 * Resolve all given packed positions which aren't cached yet using a
+	 * single {@link IWorld#getBlocksAtPos(long[], int, IBlock[])} call
+	 */
+	public void prefetch(IWorld world, long[] positions, int count)
+	{
+		int request = 0;
+
+		for (int i = 0; i < count; i++)
+		{
+			long key = positions[i];
+
+			if (this.find(key) >= 0)
+			{
+				continue;
+			}
+
+			/* Reserve the slot, so duplicates in the same batch get skipped */
+			this.put(key, IBlock.Blocks.AIR);
+
+			if (request >= this.missing.length)
+			{
+				this.missing = Arrays.copyOf(this.missing, this.missing.length * 2);
+			}
+
+			this.missing[request++] = key;
+		}
+
+		if (request == 0)
+		{
+			return;
+		}
+
+		if (this.resolved.length < request)
+		{
+			this.resolved = new IBlock[this.missing.length];
+		}
+
+		this.misses += request;
+		world.getBlocksAtPos(this.missing, request, this.resolved);
+
+		for (int i = 0; i < request; i++)
+		{
+			this.put(this.missing[i], this.resolved[i]);
+			this.resolved[i] = null;
+		}
+	}
+
+	private int find(long key)
+	{
+		int mask = this.keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (this.stamps[index] == this.generation)
+		{
+			if (this.keys[index] == key)
+			{
+				return index;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	private void put(long key, IBlock block)
+	{
+		if (block == null)
+		{
+			block = IBlock.Blocks.AIR;
+		}
+
+		if ((this.size + 1) * 4 > this.keys.length * 3)
+		{
+			this.grow();
+		}
+
+		int mask = this.keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (this.stamps[index] == this.generation)
+		{
+			if (this.keys[index] == key)
+			{
+				this.values[index] = block;
+
+				return;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = block;
+		this.stamps[index] = this.generation;
+		this.size += 1;
+	}
+
+	private void grow()
+	{
+		long[] keys = this.keys;
+		IBlock[] values = this.values;
+		int[] stamps = this.stamps;
+		int generation = this.generation;
+
+		this.keys = new long[keys.length * 2];
+		this.values = new IBlock[keys.length * 2];
+		this.stamps = new int[keys.length * 2];
+		this.generation = 1;
+		this.size = 0;
+
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (stamps[i] == generation)
+			{
+				this.put(keys[i], values[i]);
+			}
+		}
+	}
+
+	private static int hash(long key)
+	{
+		key *= 0x9E3779B97F4A7C15L;
+
+		return (int) (key ^ (key >>> 32));
+	}
+}
@@ -1,6 +1,36 @@
 package com.eliotlash.particlelib.mcwrapper;
 
 public class BlockPos {
+    private static final int BITS_X = 26;
+    private static final int BITS_Y = 12;
+    private static final int BITS_Z = 26;
+    private static final int SHIFT_Z = 0;
+    private static final int SHIFT_Y = BITS_Z;
+    private static final int SHIFT_X = BITS_Y + BITS_Z;
+    private static final long MASK_X = (1L << BITS_X) - 1L;
+    private static final long MASK_Y = (1L << BITS_Y) - 1L;
+    private static final long MASK_Z = (1L << BITS_Z) - 1L;
+
+    /**
+     * Pack block coordinates into a single long (same layout as Minecraft's BlockPos.toLong()),
+     * so block positions can be used as primitive hash keys.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x & MASK_X) << SHIFT_X | ((long) y & MASK_Y) << SHIFT_Y | ((long) z & MASK_Z) << SHIFT_Z;
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed << (64 - SHIFT_X - BITS_X) >> (64 - BITS_X));
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << (64 - SHIFT_Y - BITS_Y) >> (64 - BITS_Y));
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << (64 - SHIFT_Z - BITS_Z) >> (64 - BITS_Z));
+    }
+
     int x;
     int y;
     int z;
@@ -28,4 +58,14 @@ public class BlockPos {
         this.y = (int)y;
         this.z = (int)z;
     }
+
+    public void setPos(long packed) {
+        this.x = unpackX(packed);
+        this.y = unpackY(packed);
+        this.z = unpackZ(packed);
+    }
+
+    public long toLong() {
+        return pack(this.x, this.y, this.z);
+    }
 }
@@ -7,7 +7,27 @@ public interface IWorld {
 
     IBlock getBlockAtPos(BlockPos pos);
 
-//    int getCombinedLight(BlockPos pos, int i);
+    /**
+     * Resolve many blocks in one call. Positions are packed with {@link BlockPos#pack(int, int, int)},
+     * and the block at positions[i] is written to result[i]. Implementations backed by a real world
+     * should override this to avoid per-position wrapper overhead.
+     */
+    default void getBlocksAtPos(long[] positions, int count, IBlock[] result) {
+        BlockPos pos = new BlockPos();
+
+        for (int i = 0; i < count; i++) {
+            pos.setPos(positions[i]);
+            result[i] = this.getBlockAtPos(pos);
+        }
+    }
+
+    /**
+     * Get packed sky and block light at given position (same as Minecraft's combined light). Worlds
+     * without lighting are fully bright.
+     */
+    default int getCombinedLight(BlockPos pos, int lightValue) {
+        return 15728880;
+    }
 
     List<AxisAlignedBB> getCollisionBoxes(Size2f entityIn, AxisAlignedBB aabb);
 }
@@ -0,0 +1,142 @@
+package com.eliotlash.particlelib.mcwrapper;
+
+import java.util.Arrays;
+
+/**
+ * Light lookup cache
+ *
+ * Remembers combined light values looked up during one tick, keyed by
+ * packed block coordinates (see {@link BlockPos#pack(int, int, int)}).
+ * Same open addressing table with generation stamps as {@link BlockCache},
+ * but there is one {@link #SHARED} instance used by all emitters, since
+ * neighbouring particles of different emitters mostly share blocks too.
+ * The shared cache assumes all emitters render the same world, and
+ * should be cleared by whoever ticks them, once per tick.
+ */
+public class LightCache
+{
+	private static final int INITIAL_CAPACITY = 256;
+
+	public static final LightCache SHARED = new LightCache();
+
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] values = new int[INITIAL_CAPACITY];
+	private int[] stamps = new int[INITIAL_CAPACITY];
+	private int generation = 1;
+	private int size;
+
+	private BlockPos pos = new BlockPos();
+
+	/* Statistics */
+	public long hits;
+	public long misses;
+
+	/**
+	 * Forget all cached light values (should be called once per tick)
+	 */
+	public void clear()
+	{
+		this.size = 0;
+		this.generation += 1;
+
+		if (this.generation == 0)
+		{
+			Arrays.fill(this.stamps, 0);
+			this.generation = 1;
+		}
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Get combined light at given packed coordinates, asking the world
+	 * only if it wasn't looked up yet during this tick. Unloaded blocks are
+	 * dark
+	 */
+	public int get(IWorld world, long key)
+	{
+		int mask = this.keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (this.stamps[index] == this.generation)
+		{
+			if (this.keys[index] == key)
+			{
+				this.hits += 1;
+
+				return this.values[index];
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		this.misses += 1;
+		this.pos.setPos(key);
+
+		int light = world.isBlockLoaded(this.pos) ? world.getCombinedLight(this.pos, 0) : 0;
+
+		this.put(key, light);
+
+		return light;
+	}
+
+	private void put(long key, int light)
+	{
+		if ((this.size + 1) * 4 > this.keys.length * 3)
+		{
+			this.grow();
+		}
+
+		int mask = this.keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (this.stamps[index] == this.generation)
+		{
+			if (this.keys[index] == key)
+			{
+				this.values[index] = light;
+
+				return;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = light;
+		this.stamps[index] = this.generation;
+		this.size += 1;
+	}
+
+	private void grow()
+	{
+		long[] keys = this.keys;
+		int[] values = this.values;
+		int[] stamps = this.stamps;
+		int generation = this.generation;
+
+		this.keys = new long[keys.length * 2];
+		this.values = new int[keys.length * 2];
+		this.stamps = new int[keys.length * 2];
+		this.generation = 1;
+		this.size = 0;
+
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (stamps[i] == generation)
+			{
+				this.put(keys[i], values[i]);
+			}
+		}
+	}
+
+	private static int hash(long key)
+	{
+		key *= 0x9E3779B97F4A7C15L;
+
+		return (int) (key ^ (key >>> 32));
+	}
+}
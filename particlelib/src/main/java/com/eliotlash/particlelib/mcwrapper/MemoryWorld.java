@@ -0,0 +1,208 @@
+package com.eliotlash.particlelib.mcwrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory world
+ *
+ * A stand-in {@link IWorld} that keeps blocks in a map keyed by packed
+ * block coordinates. Everything that isn't set explicitly is air. Blocks
+ * can also be given collision boxes (in block local coordinates), so
+ * collision can be simulated without the game. It also counts how often
+ * it was queried, which is handy for tests.
+ */
+public class MemoryWorld implements IWorld
+{
+	public static final AxisAlignedBB FULL_BLOCK = new AxisAlignedBB(0, 0, 0, 1, 1, 1);
+
+	private Map<Long, IBlock> blocks = new HashMap<Long, IBlock>();
+	private Map<Long, List<AxisAlignedBB>> boxes = new HashMap<Long, List<AxisAlignedBB>>();
+	private Map<String, IBlock> registry = new HashMap<String, IBlock>();
+	private Map<Long, Integer> lights = new HashMap<Long, Integer>();
+
+	/* Statistics */
+	public int lookups;
+	public int batches;
+	public int collisionQueries;
+	public int lightQueries;
+
+	/**
+	 * Get a block by its ID, creating one if it wasn't requested yet. It
+	 * can be used as block lookup implementation (see
+	 * {@link com.eliotlash.particlelib.Settings#setBlockLookupImpl})
+	 */
+	public IBlock lookupBlock(ResourceLocation location)
+	{
+		String key = location.namespace + ":" + location.path;
+		IBlock block = this.registry.get(key);
+
+		if (block == null)
+		{
+			block = () -> location;
+			this.registry.put(key, block);
+		}
+
+		return block;
+	}
+
+	public void setBlock(int x, int y, int z, IBlock block)
+	{
+		long key = BlockPos.pack(x, y, z);
+
+		this.boxes.remove(key);
+
+		if (block == null || block == IBlock.Blocks.AIR)
+		{
+			this.blocks.remove(key);
+		}
+		else
+		{
+			this.blocks.put(key, block);
+		}
+	}
+
+	/**
+	 * Set a block that fully occupies its space
+	 */
+	public void setSolid(int x, int y, int z, IBlock block)
+	{
+		this.setBlock(x, y, z, block);
+		this.addCollisionBox(x, y, z, FULL_BLOCK);
+	}
+
+	/**
+	 * Add a collision box (relative to block's origin) to given block
+	 */
+	public void addCollisionBox(int x, int y, int z, AxisAlignedBB box)
+	{
+		long key = BlockPos.pack(x, y, z);
+		List<AxisAlignedBB> list = this.boxes.get(key);
+
+		if (list == null)
+		{
+			list = new ArrayList<AxisAlignedBB>();
+			this.boxes.put(key, list);
+		}
+
+		list.add(box.offset(x, y, z));
+	}
+
+	/**
+	 * Fill a box of blocks (inclusive) with solid blocks
+	 */
+	public void fillSolid(int x1, int y1, int z1, int x2, int y2, int z2, IBlock block)
+	{
+		for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++)
+		{
+			for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++)
+			{
+				for (int z = Math.min(z1, z2); z <= Math.max(z1, z2); z++)
+				{
+					this.setSolid(x, y, z, block);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set combined light at given block (blocks are fully lit by default)
+	 */
+	public void setLight(int x, int y, int z, int light)
+	{
+		this.lights.put(BlockPos.pack(x, y, z), light);
+	}
+
+	public IBlock getBlock(long packed)
+	{
+		IBlock block = this.blocks.get(packed);
+
+		return block == null ? IBlock.Blocks.AIR : block;
+	}
+
+	@Override
+	public boolean isBlockLoaded(BlockPos pos)
+	{
+		return true;
+	}
+
+	@Override
+	public IBlock getBlockAtPos(BlockPos pos)
+	{
+		this.lookups += 1;
+
+		return this.getBlock(pos.toLong());
+	}
+
+	@Override
+	public void getBlocksAtPos(long[] positions, int count, IBlock[] result)
+	{
+		this.batches += 1;
+
+		for (int i = 0; i < count; i++)
+		{
+			result[i] = this.getBlock(positions[i]);
+		}
+	}
+
+	@Override
+	public int getCombinedLight(BlockPos pos, int lightValue)
+	{
+		this.lightQueries += 1;
+
+		Integer light = this.lights.get(pos.toLong());
+
+		return light == null ? 15728880 : light;
+	}
+
+	@Override
+	public List<AxisAlignedBB> getCollisionBoxes(Size2f entityIn, AxisAlignedBB aabb)
+	{
+		this.collisionQueries += 1;
+
+		if (this.boxes.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		List<AxisAlignedBB> list = new ArrayList<AxisAlignedBB>();
+
+		/* Boxes may stick out of their block (like fences), so look at
+		 * the neighbours too, like Minecraft does */
+		int minX = (int) Math.floor(aabb.getXMin()) - 1;
+		int minY = (int) Math.floor(aabb.getYMin()) - 1;
+		int minZ = (int) Math.floor(aabb.getZMin()) - 1;
+		int maxX = (int) Math.floor(aabb.getXMax()) + 1;
+		int maxY = (int) Math.floor(aabb.getYMax()) + 1;
+		int maxZ = (int) Math.floor(aabb.getZMax()) + 1;
+
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int y = minY; y <= maxY; y++)
+			{
+				for (int z = minZ; z <= maxZ; z++)
+				{
+					List<AxisAlignedBB> boxes = this.boxes.get(BlockPos.pack(x, y, z));
+
+					if (boxes == null)
+					{
+						continue;
+					}
+
+					for (AxisAlignedBB box : boxes)
+					{
+						if (box.intersects(aabb))
+						{
+							list.add(box);
+						}
+					}
+				}
+			}
+		}
+
+		return list;
+	}
+}
@@ -15,4 +15,24 @@ public class ResourceLocation {
         this.namespace = namespace;
         this.path = path;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ResourceLocation)) return false;
+
+        ResourceLocation location = (ResourceLocation) obj;
+
+        return this.namespace.equals(location.namespace) && this.path.equals(location.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.namespace.hashCode() + this.path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.namespace + ":" + this.path;
+    }
 }
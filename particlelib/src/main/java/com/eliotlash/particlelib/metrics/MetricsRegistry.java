@@ -0,0 +1,241 @@
+package com.eliotlash.particlelib.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics registry
+ *
+ * Named counters, gauges and histograms. Updating them doesn't lock
+ * (they're made of {@link LongAdder}s and volatile fields), so they can
+ * be fed from render and update loops. Metrics are created once and
+ * kept in fields by whoever feeds them, looking them up by name is only
+ * meant for queries.
+ */
+public class MetricsRegistry
+{
+	private final Map<String, Object> metrics = new ConcurrentHashMap<String, Object>();
+
+	public Counter counter(String name)
+	{
+		return (Counter) this.metrics.computeIfAbsent(name, (k) -> new Counter());
+	}
+
+	/**
+	 * Gauge whose value is set by whoever feeds it
+	 */
+	public Gauge gauge(String name)
+	{
+		return (Gauge) this.metrics.computeIfAbsent(name, (k) -> new Gauge(null));
+	}
+
+	/**
+	 * Gauge whose value is read from given supplier when queried
+	 */
+	public Gauge gauge(String name, LongSupplier supplier)
+	{
+		return (Gauge) this.metrics.computeIfAbsent(name, (k) -> new Gauge(supplier));
+	}
+
+	public Histogram histogram(String name)
+	{
+		return (Histogram) this.metrics.computeIfAbsent(name, (k) -> new Histogram());
+	}
+
+	public Object get(String name)
+	{
+		return this.metrics.get(name);
+	}
+
+	/**
+	 * Reset all counters and histograms (gauges keep their values)
+	 */
+	public void reset()
+	{
+		for (Object metric : this.metrics.values())
+		{
+			if (metric instanceof Counter)
+			{
+				((Counter) metric).adder.reset();
+			}
+			else if (metric instanceof Histogram)
+			{
+				((Histogram) metric).reset();
+			}
+		}
+	}
+
+	/**
+	 * Current values of all metrics, sorted by name. Histograms are
+	 * flattened into <code>name.count</code>, <code>name.mean</code>,
+	 * <code>name.p50</code>, <code>name.p99</code> and <code>name.max</code>
+	 */
+	public Map<String, Double> snapshot()
+	{
+		Map<String, Double> snapshot = new TreeMap<String, Double>();
+
+		for (Map.Entry<String, Object> entry : this.metrics.entrySet())
+		{
+			String name = entry.getKey();
+			Object metric = entry.getValue();
+
+			if (metric instanceof Counter)
+			{
+				snapshot.put(name, (double) ((Counter) metric).get());
+			}
+			else if (metric instanceof Gauge)
+			{
+				snapshot.put(name, (double) ((Gauge) metric).get());
+			}
+			else if (metric instanceof Histogram)
+			{
+				Histogram histogram = (Histogram) metric;
+
+				snapshot.put(name + ".count", (double) histogram.getCount());
+				snapshot.put(name + ".mean", histogram.getMean());
+				snapshot.put(name + ".p50", (double) histogram.getPercentile(0.5));
+				snapshot.put(name + ".p99", (double) histogram.getPercentile(0.99));
+				snapshot.put(name + ".max", (double) histogram.getMax());
+			}
+		}
+
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Monotonic counter
+	 */
+	public static class Counter
+	{
+		private final LongAdder adder = new LongAdder();
+
+		public void increment()
+		{
+			this.adder.increment();
+		}
+
+		public void add(long value)
+		{
+			this.adder.add(value);
+		}
+
+		public long get()
+		{
+			return this.adder.sum();
+		}
+	}
+
+	/**
+	 * Current value of something
+	 */
+	public static class Gauge
+	{
+		private final LongSupplier supplier;
+		private volatile long value;
+
+		private Gauge(LongSupplier supplier)
+		{
+			this.supplier = supplier;
+		}
+
+		public void set(long value)
+		{
+			this.value = value;
+		}
+
+		public long get()
+		{
+			return this.supplier == null ? this.value : this.supplier.getAsLong();
+		}
+	}
+
+	/**
+	 * Distribution of (non-negative) values, in power of two buckets, so
+	 * percentiles are approximate: they're the upper bound of the bucket
+	 * the percentile falls into
+	 */
+	public static class Histogram
+	{
+		private final LongAdder[] buckets = new LongAdder[64];
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private Histogram()
+		{
+			for (int i = 0; i < this.buckets.length; i++)
+			{
+				this.buckets[i] = new LongAdder();
+			}
+		}
+
+		public void record(long value)
+		{
+			value = Math.max(value, 0);
+
+			this.buckets[64 - Long.numberOfLeadingZeros(value) - (value == 0 ? 0 : 1)].increment();
+			this.count.increment();
+			this.sum.add(value);
+			this.max.accumulate(value);
+		}
+
+		public long getCount()
+		{
+			return this.count.sum();
+		}
+
+		public double getMean()
+		{
+			long count = this.count.sum();
+
+			return count == 0 ? 0 : this.sum.sum() / (double) count;
+		}
+
+		public long getMax()
+		{
+			return this.max.get();
+		}
+
+		public long getPercentile(double percentile)
+		{
+			long count = this.count.sum();
+
+			if (count == 0)
+			{
+				return 0;
+			}
+
+			long rank = (long) Math.ceil(count * percentile);
+			long seen = 0;
+
+			for (int i = 0; i < this.buckets.length; i++)
+			{
+				seen += this.buckets[i].sum();
+
+				if (seen >= rank)
+				{
+					return Math.min((1L << i + 1) - 1, this.getMax());
+				}
+			}
+
+			return this.getMax();
+		}
+
+		private void reset()
+		{
+			for (LongAdder bucket : this.buckets)
+			{
+				bucket.reset();
+			}
+
+			this.count.reset();
+			this.sum.reset();
+			this.max.reset();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.eliotlash.particlelib.metrics;
+
+import com.eliotlash.particlelib.mcwrapper.LightCache;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Particle metrics
+ *
+ * Standard metrics of the particle system. Emitters feed spawns, deaths
+ * and tick times, the library feeds scheme loads, and whoever owns the
+ * emitters (the renderer) feeds live counts and frame times. They can be
+ * queried through {@link #REGISTRY} or over JMX, once {@link #register()}
+ * is called.
+ *
+ * Counters are monotonic, so rates (spawns per second, etc.) are meant to
+ * be derived by the monitoring side from two samples.
+ */
+public class ParticleMetrics implements ParticleMetricsMXBean
+{
+	public static final String OBJECT_NAME = "com.eliotlash.particlelib:type=ParticleMetrics";
+
+	public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	/* Emitters */
+	public static final MetricsRegistry.Gauge LIVE_EMITTERS = REGISTRY.gauge("emitters.live");
+	public static final MetricsRegistry.Counter EMITTERS_REMOVED = REGISTRY.counter("emitters.removed");
+	public static final MetricsRegistry.Histogram EMITTER_TICK_NANOS = REGISTRY.histogram("emitters.tick_nanos");
+
+	/* Particles */
+	public static final MetricsRegistry.Gauge LIVE_PARTICLES = REGISTRY.gauge("particles.live");
+	public static final MetricsRegistry.Counter PARTICLES_SPAWNED = REGISTRY.counter("particles.spawned");
+	public static final MetricsRegistry.Counter PARTICLES_DIED = REGISTRY.counter("particles.died");
+
+	/* Rendering */
+	public static final MetricsRegistry.Histogram FRAME_NANOS = REGISTRY.histogram("render.frame_nanos");
+	public static final MetricsRegistry.Gauge DRAW_CALLS = REGISTRY.gauge("render.draw_calls");
+
+	/* Library */
+	public static final MetricsRegistry.Counter SCHEMES_LOADED = REGISTRY.counter("library.schemes_loaded");
+	public static final MetricsRegistry.Counter SCHEME_ERRORS = REGISTRY.counter("library.scheme_errors");
+	public static final MetricsRegistry.Histogram SCHEME_LOAD_NANOS = REGISTRY.histogram("library.load_nanos");
+	public static final MetricsRegistry.Counter SCHEME_CACHE_HITS = REGISTRY.counter("library.cache_hits");
+	public static final MetricsRegistry.Counter SCHEME_CACHE_MISSES = REGISTRY.counter("library.cache_misses");
+
+	/* Caches */
+	public static final MetricsRegistry.Gauge LIGHT_CACHE_HITS = REGISTRY.gauge("cache.light.hits", () -> LightCache.SHARED.hits);
+	public static final MetricsRegistry.Gauge LIGHT_CACHE_MISSES = REGISTRY.gauge("cache.light.misses", () -> LightCache.SHARED.misses);
+
+	private static boolean registered;
+
+	/**
+	 * Register metrics' MBean in the platform MBean server (only once)
+	 */
+	public static synchronized void register()
+	{
+		if (registered)
+		{
+			return;
+		}
+
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+
+			if (!server.isRegistered(name))
+			{
+				server.registerMBean(new ParticleMetrics(), name);
+			}
+
+			registered = true;
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public long getLiveEmitters()
+	{
+		return LIVE_EMITTERS.get();
+	}
+
+	@Override
+	public long getLiveParticles()
+	{
+		return LIVE_PARTICLES.get();
+	}
+
+	@Override
+	public long getParticlesSpawned()
+	{
+		return PARTICLES_SPAWNED.get();
+	}
+
+	@Override
+	public long getParticlesDied()
+	{
+		return PARTICLES_DIED.get();
+	}
+
+	@Override
+	public long getEmittersRemoved()
+	{
+		return EMITTERS_REMOVED.get();
+	}
+
+	@Override
+	public double getMeanEmitterTickNanos()
+	{
+		return EMITTER_TICK_NANOS.getMean();
+	}
+
+	@Override
+	public double getMeanFrameNanos()
+	{
+		return FRAME_NANOS.getMean();
+	}
+
+	@Override
+	public long getP99FrameNanos()
+	{
+		return FRAME_NANOS.getPercentile(0.99);
+	}
+
+	@Override
+	public double getLightCacheHitRate()
+	{
+		long hits = LIGHT_CACHE_HITS.get();
+		long total = hits + LIGHT_CACHE_MISSES.get();
+
+		return total == 0 ? 0 : hits / (double) total;
+	}
+
+	@Override
+	public Map<String, Double> getMetrics()
+	{
+		return REGISTRY.snapshot();
+	}
+
+	@Override
+	public void reset()
+	{
+		REGISTRY.reset();
+	}
+}
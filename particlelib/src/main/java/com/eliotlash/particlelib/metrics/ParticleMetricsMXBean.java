@@ -0,0 +1,35 @@
+package com.eliotlash.particlelib.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ParticleMetrics}, registered as
+ * {@value ParticleMetrics#OBJECT_NAME}
+ */
+public interface ParticleMetricsMXBean
+{
+	public long getLiveEmitters();
+
+	public long getLiveParticles();
+
+	public long getParticlesSpawned();
+
+	public long getParticlesDied();
+
+	public long getEmittersRemoved();
+
+	public double getMeanEmitterTickNanos();
+
+	public double getMeanFrameNanos();
+
+	public long getP99FrameNanos();
+
+	public double getLightCacheHitRate();
+
+	/**
+	 * All metrics by name (see {@link MetricsRegistry#snapshot()})
+	 */
+	public Map<String, Double> getMetrics();
+
+	public void reset();
+}
@@ -10,6 +10,8 @@ import com.eliotlash.mclib.math.Variable;
 import com.eliotlash.mclib.utils.Interpolations;
 import com.eliotlash.mclib.utils.MathUtils;
 
+import java.util.Set;
+
 public class BedrockCurve
 {
 	public BedrockCurveType type = BedrockCurveType.LINEAR;
@@ -18,6 +20,27 @@ public class BedrockCurve
 	public MolangExpression range;
 	public Variable variable;
 
+	/**
+	 * Whether this curve reads no variables other than given ones
+	 */
+	public boolean dependsOnlyOn(Set<Variable> variables)
+	{
+		if (!MolangExpression.dependsOnlyOn(this.input, variables) || !MolangExpression.dependsOnlyOn(this.range, variables))
+		{
+			return false;
+		}
+
+		for (MolangExpression node : this.nodes)
+		{
+			if (!MolangExpression.dependsOnlyOn(node, variables))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	public double compute()
 	{
 		return this.computeCurve(this.input.get() / this.range.get());
@@ -1,32 +1,122 @@
 package com.eliotlash.particlelib.particles;
 
 import com.eliotlash.mclib.utils.JsonUtils;
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Bedrock library
+ *
+ * Loads schemes from a folder. Files are read and parsed in parallel on
+ * a small pool of daemon threads (see {@link Settings#getLibraryThreads()}),
+ * and {@link #presets} and {@link #factory} are replaced by new read-only
+ * maps once everything is parsed, so other threads (i.e. the render
+ * thread) can keep reading them during a reload without locking.
+ * Factory presets are loaded in the background too, starting with the
+ * constructor, and {@link #reloadAsync()} waits for them.
+ *
+ * Parse time of every file is recorded in {@link #loadTimes} and in
+ * {@link ParticleMetrics#SCHEME_LOAD_NANOS}.
+ *
+ * Once {@link #startWatching()} is called, files created, modified or
+ * deleted in the folder are reloaded one by one (see
+ * {@link #refresh(String)}). Every time a preset gets replaced, its
+ * {@link #getVersion(String) version} is bumped, so users of a preset
+ * can tell when to pick up the new one. A full reload doesn't replace
+ * presets that were refreshed or saved while it was loading.
+ * {@link #addListener(IBedrockLibraryListener) Listeners} are told about
+ * every replaced preset as well.
+ *
+ * Parsed schemes are cached in a folder next to the library's (see
+ * {@link SchemeCache}), so files that didn't change since the last start
+ * don't have to be parsed again.
+ */
 public class BedrockLibrary
 {
+	private static final AtomicInteger threads = new AtomicInteger();
+
+	/**
+	 * Time of last change of any library's presets
+	 *
+	 * @deprecated Use per-preset {@link #getVersion(String)}
+	 */
+	@Deprecated
 	public static long lastUpdate;
 
-	public Map<String, BedrockScheme> presets = new HashMap<String, BedrockScheme>();
-	public Map<String, BedrockScheme> factory = new HashMap<String, BedrockScheme>();
+	public volatile Map<String, BedrockScheme> presets = Collections.emptyMap();
+	public volatile Map<String, BedrockScheme> factory = Collections.emptyMap();
 	public File folder;
 
+	/**
+	 * Parse time of last load of every file (or factory preset) in
+	 * nanoseconds, by preset name
+	 */
+	public final Map<String, Long> loadTimes = new ConcurrentHashMap<String, Long>();
+
+	private final Map<String, Long> versions = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * Modification time and length of files written by {@link #save(String, BedrockScheme)},
+	 * so the watcher doesn't parse back what was just saved
+	 */
+	private final Map<String, long[]> saved = new ConcurrentHashMap<String, long[]>();
+
+	private final List<IBedrockLibraryListener> listeners = new CopyOnWriteArrayList<IBedrockLibraryListener>();
+
+	private final CompletableFuture<Map<String, BedrockScheme>> factoryLoading;
+	private final SchemeCache cache;
+	private ExecutorService executor;
+	private BedrockLibraryWatcher watcher;
+
 	public BedrockLibrary(File folder)
+	{
+		this(folder, new File(folder.getAbsoluteFile().getParentFile(), folder.getName() + "_cache"));
+	}
+
+	/**
+	 * @param cacheFolder Folder to cache parsed schemes in, or null to
+	 *                    always parse them
+	 */
+	public BedrockLibrary(File folder, File cacheFolder)
 	{
 		this.folder = folder;
 		this.folder.mkdirs();
+		this.cache = cacheFolder == null ? null : new SchemeCache(cacheFolder);
+
+		if (this.cache != null)
+		{
+			cacheFolder.mkdirs();
+		}
 
 		/* Load factory (default) presets */
-		this.storeFactory("default_fire");
-		this.storeFactory("default_magic");
-		this.storeFactory("default_rain");
-		this.storeFactory("default_snow");
+		this.factoryLoading = this.loadAll(Arrays.asList("default_fire", "default_magic", "default_rain", "default_snow"), null).thenApply((map) ->
+		{
+			this.factory = Collections.unmodifiableMap(map);
+
+			return this.factory;
+		});
 	}
 
 	public File file(String name)
@@ -39,18 +129,131 @@ public class BedrockLibrary
 		return this.file(name).isFile();
 	}
 
+	/**
+	 * Reload all presets, and wait until they're loaded
+	 */
 	public void reload()
 	{
-		this.presets.clear();
-		this.presets.putAll(this.factory);
+		this.reloadAsync().join();
+	}
 
-		for (File file : this.folder.listFiles())
+	/**
+	 * Reload all presets in the background. Until returned future
+	 * completes, {@link #presets} keeps previously loaded presets, and
+	 * presets that get refreshed or saved in the meantime are kept too
+	 */
+	public CompletableFuture<Map<String, BedrockScheme>> reloadAsync()
+	{
+		Map<String, Long> versions;
+
+		synchronized (this)
+		{
+			versions = new HashMap<String, Long>(this.versions);
+		}
+
+		List<String> names = new ArrayList<String>();
+		List<File> files = new ArrayList<File>();
+		File[] list = this.folder.listFiles();
+
+		if (list != null)
+		{
+			for (File file : list)
+			{
+				String name = file.getName();
+
+				if (file.isFile() && name.endsWith(".json"))
+				{
+					names.add(name.substring(0, name.indexOf(".json")));
+					files.add(file);
+				}
+			}
+		}
+
+		return this.factoryLoading.thenCombine(this.loadAll(names, files), (factory, loaded) ->
 		{
-			if (file.isFile() && file.getName().endsWith(".json"))
+			Map<String, BedrockScheme> changed = new HashMap<String, BedrockScheme>();
+			Map<String, BedrockScheme> reloaded = new HashMap<String, BedrockScheme>(factory);
+
+			reloaded.putAll(loaded);
+
+			if (this.cache != null)
+			{
+				this.cache.prune();
+			}
+
+			synchronized (this)
+			{
+				Map<String, BedrockScheme> old = this.presets;
+				Map<String, BedrockScheme> presets = new HashMap<String, BedrockScheme>(old);
+				Set<String> all = new HashSet<String>(old.keySet());
+
+				all.addAll(reloaded.keySet());
+
+				for (String name : all)
+				{
+					/* Refreshed or saved since the reload started, so it's
+					 * newer than what was loaded */
+					if (this.getVersion(name) != versions.getOrDefault(name, 0L))
+					{
+						continue;
+					}
+
+					BedrockScheme scheme = reloaded.get(name);
+
+					if (scheme == null)
+					{
+						presets.remove(name);
+					}
+					else
+					{
+						presets.put(name, scheme);
+					}
+
+					changed.put(name, scheme);
+					this.bumpVersion(name);
+				}
+
+				this.presets = Collections.unmodifiableMap(presets);
+			}
+
+			for (Map.Entry<String, BedrockScheme> entry : changed.entrySet())
 			{
-				this.storeScheme(file);
+				this.notifyListeners(entry.getKey(), entry.getValue());
 			}
+
+			return this.presets;
+		});
+	}
+
+	/**
+	 * Load given files (or factory presets, if files are null) in
+	 * parallel, into a map of successfully loaded schemes by name
+	 */
+	private CompletableFuture<Map<String, BedrockScheme>> loadAll(List<String> names, List<File> files)
+	{
+		List<CompletableFuture<BedrockScheme>> futures = new ArrayList<CompletableFuture<BedrockScheme>>();
+
+		for (int i = 0; i < names.size(); i++)
+		{
+			futures.add(files == null ? this.loadFactoryAsync(names.get(i)) : this.loadAsync(files.get(i)));
 		}
+
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply((v) ->
+		{
+			Map<String, BedrockScheme> map = new HashMap<String, BedrockScheme>();
+
+			for (int i = 0; i < names.size(); i++)
+			{
+				BedrockScheme scheme = futures.get(i).join();
+
+				if (scheme != null)
+				{
+					map.put(names.get(i), scheme);
+				}
+			}
+
+			return map;
+		});
 	}
 
 	public BedrockScheme load(String name)
@@ -65,15 +268,194 @@ public class BedrockLibrary
 		return this.loadFactory(name);
 	}
 
-	private void storeScheme(File file)
+	/**
+	 * Load a scheme from a file on library's loader pool. The future
+	 * completes with null if the file couldn't be loaded
+	 */
+	public CompletableFuture<BedrockScheme> loadAsync(File file)
 	{
-		BedrockScheme scheme = this.loadScheme(file);
+		return CompletableFuture.supplyAsync(() -> this.loadScheme(file), this.getExecutor());
+	}
 
-		if (scheme != null)
+	/**
+	 * Load a factory preset on library's loader pool
+	 */
+	public CompletableFuture<BedrockScheme> loadFactoryAsync(String name)
+	{
+		return CompletableFuture.supplyAsync(() -> this.loadFactory(name), this.getExecutor());
+	}
+
+	private synchronized ExecutorService getExecutor()
+	{
+		if (this.executor == null)
+		{
+			this.executor = Executors.newFixedThreadPool(Settings.getLibraryThreads(), new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "Particle library loader #" + threads.incrementAndGet());
+
+					thread.setDaemon(true);
+
+					return thread;
+				}
+			});
+		}
+
+		return this.executor;
+	}
+
+	/**
+	 * Reload only given preset's file in the background, and swap it into
+	 * {@link #presets}. If the file is gone, the preset is removed (or
+	 * falls back to the factory preset of the same name). If it can't be
+	 * parsed, the previous version is kept, since it's likely to be saved
+	 * again in a moment
+	 */
+	public CompletableFuture<BedrockScheme> refresh(String name)
+	{
+		File file = this.file(name);
+
+		if (!file.isFile())
+		{
+			this.update(name, null);
+
+			return CompletableFuture.completedFuture(this.presets.get(name));
+		}
+
+		long[] saved = this.saved.remove(name);
+
+		if (saved != null && saved[0] == file.lastModified() && saved[1] == file.length())
+		{
+			return CompletableFuture.completedFuture(this.presets.get(name));
+		}
+
+		return this.loadAsync(file).thenApply((scheme) ->
+		{
+			if (scheme != null)
+			{
+				this.update(name, scheme);
+			}
+
+			return scheme;
+		});
+	}
+
+	/**
+	 * Replace (or remove, if given scheme is null) one preset
+	 */
+	private void update(String name, BedrockScheme scheme)
+	{
+		synchronized (this)
+		{
+			Map<String, BedrockScheme> presets = new HashMap<String, BedrockScheme>(this.presets);
+
+			if (scheme == null)
+			{
+				scheme = this.factory.get(name);
+			}
+
+			if (scheme == null ? presets.remove(name) == null : presets.put(name, scheme) == scheme)
+			{
+				return;
+			}
+
+			this.presets = Collections.unmodifiableMap(presets);
+			this.bumpVersion(name);
+		}
+
+		this.notifyListeners(name, scheme);
+	}
+
+	/**
+	 * Add a listener of replaced presets. Listeners are called outside of
+	 * library's lock, on the thread that replaced the preset
+	 */
+	public void addListener(IBedrockLibraryListener listener)
+	{
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(IBedrockLibraryListener listener)
+	{
+		this.listeners.remove(listener);
+	}
+
+	private void notifyListeners(String name, BedrockScheme scheme)
+	{
+		for (IBedrockLibraryListener listener : this.listeners)
+		{
+			listener.presetChanged(name, scheme);
+		}
+	}
+
+	private void bumpVersion(String name)
+	{
+		this.versions.merge(name, 1L, Long::sum);
+		lastUpdate = System.currentTimeMillis();
+	}
+
+	/**
+	 * Version of given preset, which changes every time the preset is
+	 * replaced or removed (0 if it was never loaded)
+	 */
+	public long getVersion(String name)
+	{
+		Long version = this.versions.get(name);
+
+		return version == null ? 0 : version;
+	}
+
+	/**
+	 * Start reloading changed files as soon as they change
+	 */
+	public synchronized void startWatching() throws IOException
+	{
+		if (this.watcher == null)
+		{
+			this.watcher = new BedrockLibraryWatcher(this);
+		}
+	}
+
+	public synchronized void stopWatching()
+	{
+		if (this.watcher != null)
+		{
+			this.watcher.close();
+			this.watcher = null;
+		}
+	}
+
+	public synchronized boolean isWatching()
+	{
+		return this.watcher != null;
+	}
+
+	/**
+	 * Called by the watcher's thread when it stops
+	 */
+	synchronized void watcherStopped(BedrockLibraryWatcher watcher)
+	{
+		if (this.watcher == watcher)
 		{
-			String name = file.getName();
+			this.watcher = null;
+		}
+	}
+
+	/**
+	 * Stop watching the folder, and shut down the loader pool once loads
+	 * that were already started are done. The library can still be used
+	 * afterwards, it would start a new pool
+	 */
+	public synchronized void close()
+	{
+		this.stopWatching();
 
-			this.presets.put(name.substring(0, name.indexOf(".json")), scheme);
+		if (this.executor != null)
+		{
+			this.executor.shutdown();
+			this.executor = null;
 		}
 	}
 
@@ -87,26 +469,28 @@ public class BedrockLibrary
 			return null;
 		}
 
+		Object event = ParticleEvents.beginLoad();
+		long start = System.nanoTime();
+		BedrockScheme scheme = null;
+
 		try
 		{
-			return BedrockScheme.parse(FileUtils.readFileToString(file, Charset.defaultCharset()));
+			scheme = this.parse(FileUtils.readFileToString(file, Charset.defaultCharset()));
+
+			ParticleMetrics.SCHEMES_LOADED.increment();
 		}
 		catch (Exception e)
 		{
+			ParticleMetrics.SCHEME_ERRORS.increment();
 			e.printStackTrace();
 		}
 
-		return null;
-	}
+		String name = file.getName();
 
-	private void storeFactory(String name)
-	{
-		BedrockScheme scheme = this.loadFactory(name);
+		this.recordLoad(name.endsWith(".json") ? name.substring(0, name.length() - 5) : name, start);
+		ParticleEvents.commitLoad(event, name, file.length(), scheme);
 
-		if (scheme != null)
-		{
-			this.factory.put(name, scheme);
-		}
+		return scheme;
 	}
 
 	/**
@@ -114,18 +498,64 @@ public class BedrockLibrary
 	 */
 	public BedrockScheme loadFactory(String name)
 	{
+		long start = System.nanoTime();
+
 		try
 		{
-			return BedrockScheme.parse(IOUtils.toString(this.getClass().getClassLoader().getResourceAsStream("assets/blockbuster/particles/" + name + ".json"), Charset.defaultCharset())).factory(true);
+			BedrockScheme scheme = this.parse(IOUtils.toString(this.getClass().getClassLoader().getResourceAsStream("assets/blockbuster/particles/" + name + ".json"), Charset.defaultCharset())).factory(true);
+
+			ParticleMetrics.SCHEMES_LOADED.increment();
+
+			return scheme;
 		}
 		catch (Exception e)
 		{
+			ParticleMetrics.SCHEME_ERRORS.increment();
 			e.printStackTrace();
 		}
+		finally
+		{
+			this.recordLoad(name, start);
+		}
 
 		return null;
 	}
 
+	/**
+	 * Parse a scheme, or read it from the cache if the same JSON was
+	 * parsed before
+	 */
+	private BedrockScheme parse(String json)
+	{
+		if (this.cache == null)
+		{
+			return BedrockScheme.parse(json);
+		}
+
+		String key = SchemeCache.key(json);
+		BedrockScheme scheme = this.cache.read(key);
+
+		if (scheme == null)
+		{
+			scheme = BedrockScheme.parse(json);
+			this.cache.write(key, scheme);
+		}
+
+		return scheme;
+	}
+
+	private void recordLoad(String name, long start)
+	{
+		long nanos = System.nanoTime() - start;
+
+		this.loadTimes.put(name, nanos);
+		ParticleMetrics.SCHEME_LOAD_NANOS.record(nanos);
+	}
+
+	/**
+	 * Save given scheme to a file, and store its copy as a preset (rather
+	 * than parsing the file back)
+	 */
 	public void save(String filename, BedrockScheme scheme)
 	{
 		String json = JsonUtils.jsonToPretty(BedrockScheme.toJson(scheme));
@@ -136,10 +566,13 @@ public class BedrockLibrary
 			FileUtils.writeStringToFile(file, json, Charset.defaultCharset());
 		}
 		catch (Exception e)
-		{}
+		{
+			e.printStackTrace();
 
-		this.storeScheme(file);
+			return;
+		}
 
-		lastUpdate = System.currentTimeMillis();
+		this.saved.put(filename, new long[] {file.lastModified(), file.length()});
+		this.update(filename, scheme.copy().factory(false));
 	}
 }
@@ -0,0 +1,152 @@
+package com.eliotlash.particlelib.particles;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bedrock library watcher
+ *
+ * Watches library's folder on a daemon thread, and refreshes presets
+ * whose files were created, modified or deleted. Editors usually write a
+ * file in several steps, so changes are collected until the folder was
+ * quiet for {@link #SETTLE_MILLIS}, and each changed file is parsed once.
+ * If the watch service lost events, the whole library is reloaded.
+ * Once the thread stops (the watcher was closed, or the folder is
+ * gone), the library forgets about the watcher, so it can be started
+ * again.
+ */
+class BedrockLibraryWatcher implements Runnable
+{
+	public static final long SETTLE_MILLIS = 100;
+
+	private final BedrockLibrary library;
+	private final WatchService service;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	public BedrockLibraryWatcher(BedrockLibrary library) throws IOException
+	{
+		Path folder = library.folder.toPath();
+
+		this.library = library;
+		this.service = folder.getFileSystem().newWatchService();
+
+		folder.register(this.service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+		this.thread = new Thread(this, "Particle library watcher");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	@Override
+	public void run()
+	{
+		Set<String> changed = new HashSet<String>();
+		boolean overflow = false;
+
+		try
+		{
+			while (this.running)
+			{
+				WatchKey key = changed.isEmpty() && !overflow ? this.service.take() : this.service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+
+				if (key == null)
+				{
+					if (overflow)
+					{
+						this.reload();
+					}
+					else
+					{
+						for (String name : changed)
+						{
+							this.refresh(name);
+						}
+					}
+
+					changed.clear();
+					overflow = false;
+
+					continue;
+				}
+
+				for (WatchEvent<?> event : key.pollEvents())
+				{
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						overflow = true;
+
+						continue;
+					}
+
+					String file = event.context().toString();
+
+					if (file.endsWith(".json"))
+					{
+						changed.add(file.substring(0, file.length() - 5));
+					}
+				}
+
+				/* The folder itself is gone */
+				if (!key.reset())
+				{
+					break;
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{}
+		finally
+		{
+			this.close();
+			this.library.watcherStopped(this);
+		}
+	}
+
+	private void reload()
+	{
+		try
+		{
+			this.library.reloadAsync();
+		}
+		catch (RuntimeException e)
+		{
+			System.out.println("Couldn't reload particle library " + this.library.folder + ":");
+			e.printStackTrace();
+		}
+	}
+
+	private void refresh(String name)
+	{
+		try
+		{
+			this.library.refresh(name);
+		}
+		catch (RuntimeException e)
+		{
+			System.out.println("Couldn't refresh particle preset " + name + ":");
+			e.printStackTrace();
+		}
+	}
+
+	public void close()
+	{
+		this.running = false;
+		this.thread.interrupt();
+
+		try
+		{
+			this.service.close();
+		}
+		catch (IOException e)
+		{}
+	}
+}
@@ -1,6 +1,7 @@
 package com.eliotlash.particlelib.particles;
 
 import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.mclib.math.VariableContext;
 import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -12,16 +13,28 @@ import com.eliotlash.particlelib.particles.components.IComponentEmitterUpdate;
 import com.eliotlash.particlelib.particles.components.IComponentParticleInitialize;
 import com.eliotlash.particlelib.particles.components.IComponentParticleRenderBase;
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentExpireBlocks;
+import com.eliotlash.particlelib.particles.components.motion.BedrockComponentMotionCollision;
+import com.eliotlash.particlelib.particles.components.meta.BedrockComponentInitialization;
 import com.eliotlash.particlelib.particles.components.motion.BedrockComponentInitialSpeed;
+import com.eliotlash.particlelib.particles.emitter.EmitterState;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
+import com.eliotlash.particlelib.particles.render.AtlasRegion;
+import com.eliotlash.particlelib.particles.render.TextureAtlas;
 import com.eliotlash.molang.MolangParser;
+import com.eliotlash.molang.expressions.MolangExpression;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public class BedrockScheme
 {
@@ -31,12 +44,14 @@ public class BedrockScheme
 	}
 
 	public static Gson JSON_PARSER;
+	static BedrockSchemeJsonAdapter jsonAdapter;
 
 	/**
 	 * MUST be called before trying to parse JSON to register your concrete JSON adapter
 	 * @param jsonAdapter Implementing your concrete types for renderable components
 	 */
 	public static void setJsonAdapter(BedrockSchemeJsonAdapter jsonAdapter) {
+		BedrockScheme.jsonAdapter = jsonAdapter;
 		JSON_PARSER = new GsonBuilder()
 				.registerTypeAdapter(BedrockScheme.class, jsonAdapter)
 				.create();
@@ -45,26 +60,98 @@ public class BedrockScheme
 	/* Particles identifier */
 	public String identifier = "";
 
-	/* Particle description */
+	/**
+	 * Variables that are the same for all particles of an emitter
+	 */
+	public static final String[] EMITTER_VARIABLES = {
+		"variable.emitter_age", "variable.emitter_lifetime",
+		"variable.emitter_random_1", "variable.emitter_random_2", "variable.emitter_random_3", "variable.emitter_random_4"
+	};
+
+	/**
+	 * Component interfaces, besides the phases below, which get their
+	 * dispatch lists built in {@link #setup()} (renderer specific phases)
+	 */
+	private static final Set<Class<? extends IComponentBase>> dispatchTypes = new CopyOnWriteArraySet<Class<? extends IComponentBase>>();
+
+	/* Particle description. Transient fields below are derived from it in
+	 * setup(), see SchemeCopier */
 	public BedrockMaterial material = BedrockMaterial.OPAQUE;
 	public ResourceLocation texture = defaultTexture;
 
+	/**
+	 * Region of a texture atlas the texture was packed into, if any (see
+	 * {@link TextureAtlas#apply})
+	 */
+	public AtlasRegion atlas;
+
+	/**
+	 * Whether render components (size, UVs, tint) should be evaluated
+	 * every frame, instead of once per tick and interpolated. Needed only
+	 * for effects whose appearance changes faster than linearly within a
+	 * tick
+	 */
+	public boolean perFrameAppearance;
+
 	/* Particle's curves */
 	public Map<String, BedrockCurve> curves = new HashMap<String, BedrockCurve>();
 
+	/**
+	 * Curves that depend on particle variables (or anything else that may
+	 * change between particles), filled in {@link #setup()}. Other curves
+	 * only need to be updated once emitter variables change
+	 */
+	public transient List<BedrockCurve> particleCurves;
+
 	/* Particle's components */
 	public List<BedrockComponentBase> components = new ArrayList<BedrockComponentBase>();
-	public List<IComponentEmitterInitialize> emitterInitializes;
-	public List<IComponentEmitterUpdate> emitterUpdates;
-	public List<IComponentParticleInitialize> particleInitializes;
-	public List<IComponentParticleUpdate> particleUpdates;
-	public List<IComponentParticleRenderBase> particleRender;
+	public transient List<IComponentEmitterInitialize> emitterInitializes;
+	public transient List<IComponentEmitterUpdate> emitterUpdates;
+	public transient List<IComponentParticleInitialize> particleInitializes;
+	public transient List<IComponentParticleUpdate> particleUpdates;
+	public transient List<IComponentParticleRenderBase> particleRender;
+
+	/**
+	 * Particle update components assembled into one routine, built in
+	 * {@link #setup()} from {@link #particleUpdates}
+	 */
+	public transient ParticleUpdateKernel particleKernel;
+
+	/* Dispatch lists of phases and registered interfaces, by interface */
+	private transient Map<Class<?>, List<?>> dispatch = Collections.emptyMap();
+
+	/**
+	 * Whether any of the components looks up blocks at particle positions
+	 * (so the emitter can batch those look ups)
+	 */
+	public transient boolean blockQueries;
+
+	/**
+	 * Whether any of the components depends on the block particles are in,
+	 * so the emitter has to track block crossings
+	 */
+	public transient boolean blockTracking;
+
+	/**
+	 * Whether emitter has a per update script, which may change variables
+	 */
+	public transient boolean emitterScripts;
 
 	private boolean factory;
 
 	/* MoLang integration */
 	public MolangParser parser;
 
+	/**
+	 * Register a component interface to build a dispatch list for when
+	 * schemes get set up, so {@link #getDispatch(Class)} doesn't need to
+	 * look for its components. Should be done before loading schemes
+	 */
+	public static void registerDispatchType(Class<? extends IComponentBase> clazz)
+	{
+		dispatchTypes.add(clazz);
+	}
+
 	public static BedrockScheme parse(String json)
 	{
 		return JSON_PARSER.fromJson(json, BedrockScheme.class);
@@ -81,12 +168,27 @@ public class BedrockScheme
 	}
 
 	/**
-	 * Probably it's very expensive, but it's much easier than implementing copy methods
-	 * to every component in the particle system...
+	 * Make an independent copy of given scheme (see {@link #copy()}). Emitters don't need
+	 * their own copy though, since they keep their variables in their {@link EmitterState}
 	 */
 	public static BedrockScheme dupe(BedrockScheme scheme)
 	{
-		return parse(toJson(scheme));
+		return scheme.copy();
+	}
+
+	/**
+	 * Deep copy this scheme without going through JSON. Components,
+	 * curves and expressions are copied as they are, with the copied
+	 * expressions referring to the copy's parser and variables, and then
+	 * the copy gets set up
+	 */
+	public BedrockScheme copy()
+	{
+		BedrockScheme scheme = new SchemeCopier().copy(this);
+
+		scheme.setup();
+
+		return scheme;
 	}
 
 	public BedrockScheme()
@@ -108,6 +210,15 @@ public class BedrockScheme
 		this.parser.register(new Variable("variable.emitter_random_4", 0));
 	}
 
+	/**
+	 * Texture which should be bound to render this scheme, either the
+	 * atlas page or scheme's own texture
+	 */
+	public ResourceLocation getRenderTexture()
+	{
+		return this.atlas == null ? this.texture : this.atlas.page.location;
+	}
+
 	public BedrockScheme factory(boolean factory)
 	{
 		this.factory = factory;
@@ -124,17 +235,111 @@ public class BedrockScheme
 	{
 		this.getOrCreate(BedrockComponentInitialSpeed.class);
 
-		this.emitterInitializes = this.getComponents(IComponentEmitterInitialize.class);
-		this.emitterUpdates = this.getComponents(IComponentEmitterUpdate.class);
-		this.particleInitializes = this.getComponents(IComponentParticleInitialize.class);
-		this.particleUpdates = this.getComponents(IComponentParticleUpdate.class);
-		this.particleRender = this.getComponents(IComponentParticleRenderBase.class);
+		Map<Class<?>, List<?>> dispatch = new IdentityHashMap<Class<?>, List<?>>();
+
+		this.emitterInitializes = this.buildDispatch(dispatch, IComponentEmitterInitialize.class);
+		this.emitterUpdates = this.buildDispatch(dispatch, IComponentEmitterUpdate.class);
+		this.particleInitializes = this.buildDispatch(dispatch, IComponentParticleInitialize.class);
+		this.particleUpdates = this.buildDispatch(dispatch, IComponentParticleUpdate.class);
+		this.particleRender = this.buildDispatch(dispatch, IComponentParticleRenderBase.class);
+
+		for (Class<? extends IComponentBase> clazz : dispatchTypes)
+		{
+			this.buildDispatch(dispatch, clazz);
+		}
+
+		this.dispatch = dispatch;
+		this.particleKernel = ParticleUpdateKernel.create(this.particleUpdates);
+		this.blockQueries = this.get(BedrockComponentExpireBlocks.class) != null;
+		this.blockTracking = this.blockQueries || this.get(BedrockComponentMotionCollision.class) != null;
+
+		BedrockComponentInitialization initialization = this.get(BedrockComponentInitialization.class);
+
+		this.emitterScripts = initialization != null && !MolangExpression.isZero(initialization.update);
 
 		/* Link variables with curves */
 		for (Map.Entry<String, BedrockCurve> entry : this.curves.entrySet())
 		{
 			entry.getValue().variable = this.parser.variables.get(entry.getKey());
 		}
+
+		this.particleCurves = this.findParticleCurves();
+
+		for (BedrockComponentBase component : this.components)
+		{
+			component.setup(this);
+		}
+	}
+
+	/**
+	 * Find curves which have to be recomputed for every particle. A curve
+	 * is emitter scoped when its input, range and nodes only read emitter
+	 * variables or other emitter scoped curves
+	 */
+	private List<BedrockCurve> findParticleCurves()
+	{
+		Set<Variable> emitterScope = new HashSet<Variable>();
+
+		for (String name : EMITTER_VARIABLES)
+		{
+			Variable variable = this.parser.variables.get(name);
+
+			if (variable != null)
+			{
+				emitterScope.add(variable);
+			}
+		}
+
+		List<BedrockCurve> particleCurves = new ArrayList<BedrockCurve>();
+		boolean changed = true;
+
+		while (changed)
+		{
+			changed = false;
+
+			for (BedrockCurve curve : this.curves.values())
+			{
+				if (curve.variable != null && !emitterScope.contains(curve.variable) && curve.dependsOnlyOn(emitterScope))
+				{
+					emitterScope.add(curve.variable);
+					changed = true;
+				}
+			}
+		}
+
+		for (BedrockCurve curve : this.curves.values())
+		{
+			if (curve.variable != null && !emitterScope.contains(curve.variable))
+			{
+				particleCurves.add(curve);
+			}
+		}
+
+		return particleCurves;
+	}
+
+	private <T extends IComponentBase> List<T> buildDispatch(Map<Class<?>, List<?>> dispatch, Class<T> clazz)
+	{
+		List<T> list = Collections.unmodifiableList(this.getComponents(clazz));
+
+		dispatch.put(clazz, list);
+
+		return list;
+	}
+
+	/**
+	 * Get sorted components implementing given interface. Lists of phases
+	 * and registered interfaces (see {@link #registerDispatchType(Class)})
+	 * are built once in {@link #setup()} and can't be modified, other
+	 * interfaces are looked up like {@link #getComponents(Class)} does
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends IComponentBase> List<T> getDispatch(Class<T> clazz)
+	{
+		/* Lists are only put by buildDispatch() under their own class */
+		List<?> list = this.dispatch.get(clazz);
+
+		return list == null ? this.getComponents(clazz) : (List<T>) list;
 	}
 
 	public <T extends IComponentBase> List<T> getComponents(Class<T> clazz)
@@ -215,6 +420,7 @@ public class BedrockScheme
 			if (clazz.isAssignableFrom(component.getClass()))
 			{
 				it.remove();
+				this.setup();
 
 				return (T) component;
 			}
@@ -231,15 +437,34 @@ public class BedrockScheme
 	}
 
 	/**
-	 * Update curve values
+	 * Update values of curves that depend on particle variables in given
+	 * (entered) context
+	 */
+	public void updateParticleCurves(VariableContext context)
+	{
+		if (this.particleCurves == null)
+		{
+			this.updateCurves(context);
+
+			return;
+		}
+
+		for (BedrockCurve curve : this.particleCurves)
+		{
+			context.set(curve.variable, curve.compute());
+		}
+	}
+
+	/**
+	 * Update curve values in given (entered) context
 	 */
-	public void updateCurves()
+	public void updateCurves(VariableContext context)
 	{
 		for (BedrockCurve curve : this.curves.values())
 		{
 			if (curve.variable != null)
 			{
-				curve.variable.set(curve.compute());
+				context.set(curve.variable, curve.compute());
 			}
 		}
 	}
@@ -103,9 +103,9 @@ public abstract class BedrockSchemeJsonAdapter implements JsonDeserializer<Bedro
 		this.components.put("minecraft:particle_kill_plane", BedrockComponentKillPlane.class);
 
 		/* Appearance */
-//		this.components.put("minecraft:particle_appearance_billboard", BedrockComponentAppearanceBillboard.class);
+		this.components.put("minecraft:particle_appearance_billboard", BedrockComponentAppearanceBillboard.class);
 		this.components.put("minecraft:particle_appearance_lighting", BedrockComponentAppearanceLighting.class);
-//		this.components.put("minecraft:particle_appearance_tinting", BedrockComponentAppearanceTinting.class);
+		this.components.put("minecraft:particle_appearance_tinting", BedrockComponentAppearanceTinting.class);
 
 		/* Motion & Rotation */
 		this.components.put("minecraft:particle_initial_speed", BedrockComponentInitialSpeed.class);
@@ -169,6 +169,11 @@ public abstract class BedrockSchemeJsonAdapter implements JsonDeserializer<Bedro
 			scheme.identifier = description.get("identifier").getAsString();
 		}
 
+		if (description.has("per_frame_appearance"))
+		{
+			scheme.perFrameAppearance = description.get("per_frame_appearance").getAsBoolean();
+		}
+
 		JsonObject parameters = this.getObject(description, "basic_render_parameters", "No particle_effect.basic_render_parameters was found...");
 
 		if (parameters.has("material"))
@@ -277,6 +282,11 @@ public abstract class BedrockSchemeJsonAdapter implements JsonDeserializer<Bedro
 		desc.addProperty("identifier", scheme.identifier);
 		desc.add("basic_render_parameters", render);
 
+		if (scheme.perFrameAppearance)
+		{
+			desc.addProperty("per_frame_appearance", true);
+		}
+
 		render.addProperty("material", scheme.material.id);
 		render.addProperty("texture", "textures/particle/particles");
 
@@ -0,0 +1,16 @@
+package com.eliotlash.particlelib.particles;
+
+/**
+ * Listener of presets replaced in a {@link BedrockLibrary}
+ */
+public interface IBedrockLibraryListener
+{
+	/**
+	 * Called on the thread that replaced the preset (usually one of
+	 * library's loader threads)
+	 *
+	 * @param name Preset's name
+	 * @param scheme New scheme of the preset, or null if it was removed
+	 */
+	public void presetChanged(String name, BedrockScheme scheme);
+}
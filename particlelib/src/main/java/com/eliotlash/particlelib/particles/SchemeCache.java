@@ -0,0 +1,1000 @@
+package com.eliotlash.particlelib.particles;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.mcwrapper.IBlock;
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
+import com.eliotlash.particlelib.particles.render.AtlasRegion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scheme cache
+ *
+ * Keeps parsed schemes in a folder as compact binary files, so a preset
+ * whose JSON didn't change since last time is read back, rather than
+ * parsed again along with all of its Molang expressions. Entries are
+ * keyed by a hash of the JSON, {@link #FORMAT_VERSION}, the JSON adapter
+ * (which picks component classes) and the default texture. Entries are
+ * small, so they're read whole into memory (rather than mapped, as a
+ * mapped file can't be deleted or replaced on Windows while the mapping
+ * is reachable).
+ *
+ * An entry is a dump of scheme's object graph, following the same rules
+ * as {@link SchemeCopier}: transient fields are skipped (the scheme gets
+ * set up after it's read), constants are stored as references to their
+ * fields, blocks by their location, and objects reached more than once
+ * are stored once, and so are strings. Fields of every class are stored
+ * in a fixed order, along with a fingerprint of their names and types,
+ * so entries written by a different version of the library are detected
+ * as stale. Only classes of this library (and vecmath) are instantiated
+ * or referenced when reading, so a tampered entry can't create arbitrary
+ * objects.
+ *
+ * Stale or broken entries are deleted, and the caller is expected to
+ * parse the JSON and {@link #write(String, BedrockScheme)} it again.
+ */
+class SchemeCache
+{
+	public static final int MAGIC = 0x504C5343;
+	public static final int FORMAT_VERSION = 1;
+
+	/* Value tags */
+	private static final byte NULL = 0;
+	private static final byte REFERENCE = 1;
+	private static final byte STRING = 2;
+	private static final byte BOXED = 3;
+	private static final byte ENUM = 4;
+	private static final byte CONSTANT = 5;
+	private static final byte RESOURCE = 6;
+	private static final byte BLOCK = 7;
+	private static final byte ARRAY = 8;
+	private static final byte RANDOM = 9;
+	private static final byte COLLECTION = 10;
+	private static final byte MAP = 11;
+	private static final byte OBJECT = 12;
+	private static final byte CLASS = 13;
+
+	private static final String[] ALLOWED_PACKAGES = {"com.eliotlash.", "javax.vecmath."};
+
+	private static final Map<Class<?>, Long> FINGERPRINTS = new ConcurrentHashMap<Class<?>, Long>();
+	private static final Map<String, Class<?>> CLASSES = new ConcurrentHashMap<String, Class<?>>();
+
+	public final File folder;
+
+	/* Keys of entries read or written by this cache */
+	private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+	public SchemeCache(File folder)
+	{
+		this.folder = folder;
+	}
+
+	/**
+	 * Cache key of given scheme JSON
+	 */
+	public static String key(String json)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			StringBuilder builder = new StringBuilder();
+
+			digest.update((FORMAT_VERSION + "|" + BedrockScheme.jsonAdapter.getClass().getName() + "|" + BedrockScheme.defaultTexture + "|").getBytes(StandardCharsets.UTF_8));
+
+			for (byte b : digest.digest(json.getBytes(StandardCharsets.UTF_8)))
+			{
+				builder.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+
+			return builder.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public File file(String key)
+	{
+		return new File(this.folder, key + ".bin");
+	}
+
+	/**
+	 * Read a set up scheme with given key, or null if there is no (valid)
+	 * entry
+	 */
+	public BedrockScheme read(String key)
+	{
+		File file = this.file(key);
+
+		this.used.add(key);
+
+		if (!file.isFile())
+		{
+			ParticleMetrics.SCHEME_CACHE_MISSES.increment();
+
+			return null;
+		}
+
+		try
+		{
+			BedrockScheme scheme = new Reader(ByteBuffer.wrap(Files.readAllBytes(file.toPath()))).readScheme(key);
+
+			scheme.setup();
+			ParticleMetrics.SCHEME_CACHE_HITS.increment();
+
+			return scheme;
+		}
+		catch (IllegalStateException e)
+		{
+			/* Stale or broken entry, detected by the reader */
+			System.out.println("Discarding cached scheme " + file.getName() + ": " + e.getMessage());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Discarding cached scheme " + file.getName() + ":");
+			e.printStackTrace();
+		}
+
+		ParticleMetrics.SCHEME_CACHE_MISSES.increment();
+		file.delete();
+
+		return null;
+	}
+
+	/**
+	 * Store given freshly parsed scheme (i.e. before any emitter ran it,
+	 * since variables are stored with their values). Schemes that can't be
+	 * stored (e.g. with components of other libraries) aren't
+	 */
+	public void write(String key, BedrockScheme scheme)
+	{
+		byte[] bytes;
+
+		try
+		{
+			bytes = new Writer().writeScheme(key, scheme);
+		}
+		catch (Exception e)
+		{
+			return;
+		}
+
+		this.used.add(key);
+
+		try
+		{
+			File temporary = File.createTempFile(key, ".tmp", this.folder);
+
+			Files.write(temporary.toPath(), bytes);
+
+			try
+			{
+				Files.move(temporary.toPath(), this.file(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException e)
+			{
+				Files.move(temporary.toPath(), this.file(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Delete entries that weren't read or written by this cache, e.g.
+	 * of files that changed or were removed since they were cached
+	 */
+	public void prune()
+	{
+		File[] files = this.folder.listFiles();
+
+		if (files == null)
+		{
+			return;
+		}
+
+		for (File file : files)
+		{
+			String name = file.getName();
+
+			if ((name.endsWith(".bin") && !this.used.contains(name.substring(0, name.length() - 4))) || name.endsWith(".tmp"))
+			{
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Fingerprint of given class' fields (declaring classes, names and
+	 * types, in the order they're stored), so entries written while the
+	 * class looked differently can be told apart
+	 */
+	private static long fingerprint(Class<?> clazz)
+	{
+		Long fingerprint = FINGERPRINTS.get(clazz);
+
+		if (fingerprint != null)
+		{
+			return fingerprint;
+		}
+
+		long hash = 0xcbf29ce484222325L;
+
+		for (Field field : SchemeCopier.getFields(clazz))
+		{
+			String id = field.getDeclaringClass().getName() + " " + field.getName() + " " + field.getType().getName() + ";";
+
+			for (int i = 0; i < id.length(); i++)
+			{
+				hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+			}
+		}
+
+		FINGERPRINTS.put(clazz, hash);
+
+		return hash;
+	}
+
+	private static boolean isAllowed(Class<?> clazz)
+	{
+		while (clazz.isArray())
+		{
+			clazz = clazz.getComponentType();
+		}
+
+		if (clazz.isPrimitive() || clazz == Object.class || SchemeCopier.isShared(clazz))
+		{
+			return true;
+		}
+
+		for (String prefix : ALLOWED_PACKAGES)
+		{
+			if (clazz.getName().startsWith(prefix))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Object graph writer
+	 */
+	private static class Writer
+	{
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+		private final Map<Object, Integer> ids = new IdentityHashMap<Object, Integer>(512);
+		private final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+		private final Set<Class<?>> described = new HashSet<Class<?>>();
+		private boolean restart;
+
+		public byte[] writeScheme(String key, BedrockScheme scheme) throws IOException, ReflectiveOperationException
+		{
+			/* Same as with copying, a constant may be reached before its
+			 * class was, and then it has to be done again */
+			while (true)
+			{
+				this.out.writeInt(MAGIC);
+				this.out.writeInt(FORMAT_VERSION);
+				this.writeString(key);
+				this.writeValue(scheme);
+
+				if (!this.restart)
+				{
+					return this.bytes.toByteArray();
+				}
+
+				this.restart = false;
+				this.bytes.reset();
+				this.ids.clear();
+				this.classes.clear();
+				this.strings.clear();
+				this.described.clear();
+			}
+		}
+
+		private void writeValue(Object object) throws IOException, ReflectiveOperationException
+		{
+			if (object == null)
+			{
+				this.out.writeByte(NULL);
+
+				return;
+			}
+
+			Class<?> clazz = object.getClass();
+
+			if (clazz == String.class)
+			{
+				this.out.writeByte(STRING);
+				this.writeString((String) object);
+			}
+			else if (object instanceof Enum)
+			{
+				this.out.writeByte(ENUM);
+				this.writeClass(((Enum<?>) object).getDeclaringClass());
+				this.writeString(((Enum<?>) object).name());
+			}
+			else if (clazz == ResourceLocation.class)
+			{
+				this.out.writeByte(RESOURCE);
+				this.writeString(((ResourceLocation) object).namespace);
+				this.writeString(((ResourceLocation) object).path);
+			}
+			else if (object instanceof IBlock)
+			{
+				ResourceLocation location = ((IBlock) object).getResourceLocation();
+
+				this.out.writeByte(BLOCK);
+				this.writeString(location.namespace);
+				this.writeString(location.path);
+			}
+			else if (clazz == Class.class)
+			{
+				this.out.writeByte(CLASS);
+				this.writeClass((Class<?>) object);
+			}
+			else if (clazz == AtlasRegion.class)
+			{
+				throw new IllegalStateException("Can't store " + clazz.getName());
+			}
+			else if (SchemeCopier.isShared(clazz))
+			{
+				this.out.writeByte(BOXED);
+				this.writeClass(clazz);
+				this.writePrimitive(unbox(clazz), object);
+			}
+			else if (this.ids.containsKey(object))
+			{
+				this.out.writeByte(REFERENCE);
+				this.writeVarInt(this.ids.get(object));
+			}
+			else if (SchemeCopier.getConstant(object) != null)
+			{
+				this.writeConstant(SchemeCopier.getConstant(object));
+			}
+			else
+			{
+				this.writeObject(object, clazz);
+			}
+		}
+
+		private void writeConstant(Field field) throws IOException
+		{
+			this.out.writeByte(CONSTANT);
+			this.writeClass(field.getDeclaringClass());
+			this.writeString(field.getName());
+		}
+
+		private void writeObject(Object object, Class<?> clazz) throws IOException, ReflectiveOperationException
+		{
+			if (clazz.isArray())
+			{
+				int length = Array.getLength(object);
+				Class<?> component = clazz.getComponentType();
+
+				this.ids.put(object, this.ids.size());
+				this.out.writeByte(ARRAY);
+				this.writeClass(clazz);
+				this.writeVarInt(length);
+
+				for (int i = 0; i < length; i++)
+				{
+					if (component.isPrimitive())
+					{
+						this.writePrimitive(component, Array.get(object, i));
+					}
+					else
+					{
+						this.writeValue(((Object[]) object)[i]);
+					}
+				}
+			}
+			else if (clazz == Random.class)
+			{
+				this.ids.put(object, this.ids.size());
+				this.out.writeByte(RANDOM);
+			}
+			else if (SchemeCopier.isCollection(clazz))
+			{
+				Collection<?> collection = (Collection<?>) object;
+
+				this.ids.put(object, this.ids.size());
+				this.out.writeByte(COLLECTION);
+				this.writeClass(clazz);
+				this.writeVarInt(collection.size());
+
+				for (Object element : collection)
+				{
+					this.writeValue(element);
+				}
+			}
+			else if (SchemeCopier.isMap(clazz))
+			{
+				Map<?, ?> map = (Map<?, ?>) object;
+
+				this.ids.put(object, this.ids.size());
+				this.out.writeByte(MAP);
+				this.writeClass(clazz);
+				this.writeVarInt(map.size());
+
+				for (Map.Entry<?, ?> entry : map.entrySet())
+				{
+					this.writeValue(entry.getKey());
+					this.writeValue(entry.getValue());
+				}
+			}
+			else
+			{
+				if (!isAllowed(clazz))
+				{
+					throw new IllegalStateException("Can't store " + clazz.getName());
+				}
+
+				this.restart |= SchemeCopier.registerConstants(clazz, this.ids);
+
+				/* Its own class might have made the object a constant */
+				if (SchemeCopier.getConstant(object) != null)
+				{
+					this.writeConstant(SchemeCopier.getConstant(object));
+
+					return;
+				}
+
+				Field[] fields = SchemeCopier.getFields(clazz);
+
+				this.ids.put(object, this.ids.size());
+				this.out.writeByte(OBJECT);
+				this.writeClass(clazz);
+
+				if (this.described.add(clazz))
+				{
+					this.out.writeLong(fingerprint(clazz));
+				}
+
+				for (Field field : fields)
+				{
+					if (field.getType().isPrimitive())
+					{
+						this.writePrimitive(field.getType(), field.get(object));
+					}
+					else
+					{
+						this.writeValue(field.get(object));
+					}
+				}
+			}
+		}
+
+		private void writePrimitive(Class<?> type, Object value) throws IOException
+		{
+			if (type == double.class) this.out.writeDouble((Double) value);
+			else if (type == float.class) this.out.writeFloat((Float) value);
+			else if (type == int.class) this.out.writeInt((Integer) value);
+			else if (type == long.class) this.out.writeLong((Long) value);
+			else if (type == boolean.class) this.out.writeBoolean((Boolean) value);
+			else if (type == short.class) this.out.writeShort((Short) value);
+			else if (type == byte.class) this.out.writeByte((Byte) value);
+			else if (type == char.class) this.out.writeChar((Character) value);
+			else throw new IllegalStateException("Can't store " + type.getName());
+		}
+
+		private void writeClass(Class<?> clazz) throws IOException
+		{
+			Integer id = this.classes.get(clazz);
+
+			if (id != null)
+			{
+				this.writeVarInt(id + 1);
+
+				return;
+			}
+
+			this.classes.put(clazz, this.classes.size());
+			this.writeVarInt(0);
+			this.writeString(clazz.getName());
+		}
+
+		/**
+		 * Write a string (0 is null, 1 is a new string, and more is a
+		 * string that was written before)
+		 */
+		private void writeString(String string) throws IOException
+		{
+			if (string == null)
+			{
+				this.writeVarInt(0);
+
+				return;
+			}
+
+			Integer id = this.strings.get(string);
+
+			if (id != null)
+			{
+				this.writeVarInt(id + 2);
+
+				return;
+			}
+
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+			this.strings.put(string, this.strings.size());
+			this.writeVarInt(1);
+			this.writeVarInt(bytes.length);
+			this.out.write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException
+		{
+			while ((value & ~0x7f) != 0)
+			{
+				this.out.writeByte((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+
+			this.out.writeByte(value);
+		}
+	}
+
+	/**
+	 * Object graph reader
+	 */
+	private static class Reader
+	{
+		private final ByteBuffer in;
+
+		private final List<Object> objects = new ArrayList<Object>(512);
+		private final List<Class<?>> classes = new ArrayList<Class<?>>();
+		private final List<String> strings = new ArrayList<String>();
+		private final Set<Class<?>> described = new HashSet<Class<?>>();
+
+		public Reader(ByteBuffer in)
+		{
+			this.in = in;
+		}
+
+		public BedrockScheme readScheme(String key) throws ReflectiveOperationException
+		{
+			if (this.in.getInt() != MAGIC || this.in.getInt() != FORMAT_VERSION || !key.equals(this.readString()))
+			{
+				throw new IllegalStateException("Stale entry");
+			}
+
+			Object scheme = this.readValue();
+
+			if (!(scheme instanceof BedrockScheme) || this.in.hasRemaining())
+			{
+				throw new IllegalStateException("Broken entry");
+			}
+
+			return (BedrockScheme) scheme;
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Object readValue() throws ReflectiveOperationException
+		{
+			byte tag = this.in.get();
+
+			switch (tag)
+			{
+				case NULL:
+					return null;
+
+				case REFERENCE:
+					return this.objects.get(this.readVarInt());
+
+				case STRING:
+					return this.readString();
+
+				case BOXED:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!SchemeCopier.isShared(clazz) || clazz == String.class)
+					{
+						throw new IllegalStateException("Not a boxed type " + clazz.getName());
+					}
+
+					return this.readPrimitive(unbox(clazz));
+				}
+
+				case ENUM:
+				{
+					Class clazz = this.readClass();
+
+					if (!clazz.isEnum() || !isAllowed(clazz))
+					{
+						throw new IllegalStateException("Not an allowed enum " + clazz.getName());
+					}
+
+					return Enum.valueOf(clazz, this.readString());
+				}
+
+				case CONSTANT:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!isAllowed(clazz))
+					{
+						throw new IllegalStateException("Not allowed " + clazz.getName());
+					}
+
+					Field field = clazz.getDeclaredField(this.readString());
+
+					field.setAccessible(true);
+
+					return field.get(null);
+				}
+
+				case CLASS:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!isAllowed(clazz))
+					{
+						throw new IllegalStateException("Not allowed " + clazz.getName());
+					}
+
+					return clazz;
+				}
+
+				case RESOURCE:
+					return new ResourceLocation(this.readString(), this.readString());
+
+				case BLOCK:
+				{
+					IBlock block = Settings.blockLookup(new ResourceLocation(this.readString(), this.readString()));
+
+					if (block == null)
+					{
+						throw new IllegalStateException("Unknown block");
+					}
+
+					return block;
+				}
+
+				case ARRAY:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!clazz.isArray() || !isAllowed(clazz))
+					{
+						throw new IllegalStateException("Not an allowed array " + clazz.getName());
+					}
+
+					Class<?> component = clazz.getComponentType();
+					int length = this.readLength(component.isPrimitive() ? primitiveSize(component) : 1);
+					Object array = Array.newInstance(component, length);
+
+					this.objects.add(array);
+
+					if (component.isPrimitive())
+					{
+						this.readPrimitives(array, component, length);
+					}
+					else
+					{
+						Object[] objects = (Object[]) array;
+
+						for (int i = 0; i < length; i++)
+						{
+							objects[i] = this.readValue();
+						}
+					}
+
+					return array;
+				}
+
+				case RANDOM:
+				{
+					Random random = new Random();
+
+					this.objects.add(random);
+
+					return random;
+				}
+
+				case COLLECTION:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!SchemeCopier.isCollection(clazz))
+					{
+						throw new IllegalStateException("Not allowed " + clazz.getName());
+					}
+
+					Collection<Object> collection = (Collection<Object>) clazz.newInstance();
+					int size = this.readLength(1);
+
+					this.objects.add(collection);
+
+					for (int i = 0; i < size; i++)
+					{
+						collection.add(this.readValue());
+					}
+
+					return collection;
+				}
+
+				case MAP:
+				{
+					Class<?> clazz = this.readClass();
+
+					if (!SchemeCopier.isMap(clazz))
+					{
+						throw new IllegalStateException("Not allowed " + clazz.getName());
+					}
+
+					Map<Object, Object> map = (Map<Object, Object>) clazz.newInstance();
+					int size = this.readLength(2);
+
+					this.objects.add(map);
+
+					for (int i = 0; i < size; i++)
+					{
+						map.put(this.readValue(), this.readValue());
+					}
+
+					return map;
+				}
+
+				case OBJECT:
+					return this.readObject();
+			}
+
+			throw new IllegalStateException("Unknown tag " + tag);
+		}
+
+		private Object readObject() throws ReflectiveOperationException
+		{
+			Class<?> clazz = this.readClass();
+
+			if (!isAllowed(clazz) || clazz.isArray() || clazz.isInterface() || SchemeCopier.isShared(clazz))
+			{
+				throw new IllegalStateException("Not allowed " + clazz.getName());
+			}
+
+			Field[] fields = SchemeCopier.getFields(clazz);
+
+			if (this.described.add(clazz) && this.in.getLong() != fingerprint(clazz))
+			{
+				throw new IllegalStateException("Fields of " + clazz.getName() + " changed");
+			}
+
+			Object object = SchemeCopier.instantiate(clazz);
+
+			this.objects.add(object);
+
+			for (Field field : fields)
+			{
+				Class<?> type = field.getType();
+
+				if (type == double.class) field.setDouble(object, this.in.getDouble());
+				else if (type == float.class) field.setFloat(object, this.in.getFloat());
+				else if (type == int.class) field.setInt(object, this.in.getInt());
+				else if (type == long.class) field.setLong(object, this.in.getLong());
+				else if (type == boolean.class) field.setBoolean(object, this.in.get() != 0);
+				else if (type.isPrimitive()) field.set(object, this.readPrimitive(type));
+				else field.set(object, this.readValue());
+			}
+
+			return object;
+		}
+
+		private void readPrimitives(Object array, Class<?> type, int length)
+		{
+			int position = this.in.position();
+
+			if (type == double.class)
+			{
+				this.in.asDoubleBuffer().get((double[]) array);
+				this.in.position(position + length * 8);
+			}
+			else if (type == float.class)
+			{
+				this.in.asFloatBuffer().get((float[]) array);
+				this.in.position(position + length * 4);
+			}
+			else if (type == int.class)
+			{
+				this.in.asIntBuffer().get((int[]) array);
+				this.in.position(position + length * 4);
+			}
+			else if (type == long.class)
+			{
+				this.in.asLongBuffer().get((long[]) array);
+				this.in.position(position + length * 8);
+			}
+			else if (type == byte.class)
+			{
+				this.in.get((byte[]) array);
+			}
+			else
+			{
+				for (int i = 0; i < length; i++)
+				{
+					Array.set(array, i, this.readPrimitive(type));
+				}
+			}
+		}
+
+		private Object readPrimitive(Class<?> type)
+		{
+			if (type == double.class) return this.in.getDouble();
+			if (type == float.class) return this.in.getFloat();
+			if (type == int.class) return this.in.getInt();
+			if (type == long.class) return this.in.getLong();
+			if (type == boolean.class) return this.in.get() != 0;
+			if (type == short.class) return this.in.getShort();
+			if (type == byte.class) return this.in.get();
+			if (type == char.class) return this.in.getChar();
+
+			throw new IllegalStateException("Not a primitive " + type.getName());
+		}
+
+		private Class<?> readClass() throws ClassNotFoundException
+		{
+			int id = this.readVarInt();
+
+			if (id > 0)
+			{
+				return this.classes.get(id - 1);
+			}
+
+			String name = this.readString();
+			Class<?> clazz = CLASSES.get(name);
+
+			if (clazz == null)
+			{
+				clazz = Class.forName(name, false, SchemeCache.class.getClassLoader());
+				CLASSES.put(name, clazz);
+			}
+
+			this.classes.add(clazz);
+
+			return clazz;
+		}
+
+		private String readString()
+		{
+			int id = this.readVarInt();
+
+			if (id == 0)
+			{
+				return null;
+			}
+
+			if (id > 1)
+			{
+				return this.strings.get(id - 2);
+			}
+
+			String string = this.readNewString();
+
+			this.strings.add(string);
+
+			return string;
+		}
+
+		private String readNewString()
+		{
+			int length = this.readLength(1);
+			int start = this.in.position();
+			char[] chars = new char[length];
+			String string = null;
+
+			/* Most strings are ASCII, which doesn't need a decoder */
+			for (int i = 0; i < length; i++)
+			{
+				byte b = this.in.get();
+
+				if (b < 0)
+				{
+					byte[] bytes = new byte[length];
+
+					this.in.position(start);
+					this.in.get(bytes);
+					string = new String(bytes, StandardCharsets.UTF_8);
+
+					break;
+				}
+
+				chars[i] = (char) b;
+			}
+
+			return string == null ? new String(chars) : string;
+		}
+
+		/**
+		 * Read a length of something whose elements take at least given
+		 * number of bytes each, so a broken length can't make the reader
+		 * allocate more than the entry could possibly hold
+		 */
+		private int readLength(int elementSize)
+		{
+			int length = this.readVarInt();
+
+			if (length < 0 || (long) length * elementSize > this.in.remaining())
+			{
+				throw new IllegalStateException("Broken entry");
+			}
+
+			return length;
+		}
+
+		private static int primitiveSize(Class<?> type)
+		{
+			if (type == double.class || type == long.class) return 8;
+			if (type == float.class || type == int.class) return 4;
+			if (type == short.class || type == char.class) return 2;
+
+			return 1;
+		}
+
+		private int readVarInt()
+		{
+			int value = 0;
+
+			for (int shift = 0; shift < 32; shift += 7)
+			{
+				byte b = this.in.get();
+
+				value |= (b & 0x7f) << shift;
+
+				if ((b & 0x80) == 0)
+				{
+					return value;
+				}
+			}
+
+			throw new IllegalStateException("Broken number");
+		}
+	}
+
+	/**
+	 * Primitive type of given boxed type
+	 */
+	private static Class<?> unbox(Class<?> clazz)
+	{
+		if (clazz == Double.class) return double.class;
+		if (clazz == Float.class) return float.class;
+		if (clazz == Integer.class) return int.class;
+		if (clazz == Long.class) return long.class;
+		if (clazz == Boolean.class) return boolean.class;
+		if (clazz == Short.class) return short.class;
+		if (clazz == Byte.class) return byte.class;
+		if (clazz == Character.class) return char.class;
+
+		throw new IllegalStateException("Can't store " + clazz.getName());
+	}
+}
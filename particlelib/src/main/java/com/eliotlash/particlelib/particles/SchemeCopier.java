@@ -0,0 +1,409 @@
+package com.eliotlash.particlelib.particles;
+
+import com.eliotlash.particlelib.mcwrapper.IBlock;
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.particles.render.AtlasRegion;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Scheme copier
+ *
+ * Copies a scheme's object graph field by field, so components don't
+ * need copy methods of their own. Objects that are reached more than once
+ * are copied once, so expressions that referred to the same parser and
+ * variables refer to the same copies of them afterwards, without having
+ * to be printed and parsed again.
+ *
+ * Constants (values of static final fields, like default expressions or
+ * shape directions) of copied classes are shared rather than copied, as
+ * components may compare against them by identity. Resource locations,
+ * blocks and atlas regions are shared too, and unknown JDK classes are refused,
+ * rather than copied through their internals.
+ *
+ * Copies are allocated without calling constructors (which would only
+ * build defaults to be overwritten).
+ *
+ * In scheme classes, {@code transient} marks fields that are derived from
+ * the rest in {@link BedrockScheme#setup()} (dispatch lists, kernels,
+ * flags), rather than serialization. They're skipped here and by
+ * {@link SchemeCache}, and start with the values of a prototype that is
+ * constructed once per class (so those should be immutable, like empty
+ * arrays), until the copy is set up. Fields that hold the description
+ * itself must not be transient, or copies and cached schemes lose them.
+ */
+class SchemeCopier
+{
+	private static final Map<Class<?>, Field[]> FIELDS = new HashMap<Class<?>, Field[]>();
+	private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new HashMap<Class<?>, Constructor<?>>();
+	private static final Map<Class<?>, Object> PROTOTYPES = new HashMap<Class<?>, Object>();
+	private static final Map<Class<?>, Field[]> TRANSIENT_FIELDS = new HashMap<Class<?>, Field[]>();
+	private static final Object UNSAFE = findUnsafe();
+	private static final Method ALLOCATE = findAllocate();
+
+	/* Constants of all classes copied so far, and fields they're in
+	 * (replaced, not modified, so it can be read without locking) */
+	private static final Set<Class<?>> registered = new HashSet<Class<?>>();
+	private static volatile Map<Object, Field> constants = new IdentityHashMap<Object, Field>();
+
+	private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>(512);
+	private final Set<Class<?>> classes = new HashSet<Class<?>>();
+	private boolean restart;
+
+	private static Object findUnsafe()
+	{
+		try
+		{
+			Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+
+			field.setAccessible(true);
+
+			return field.get(null);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	private static Method findAllocate()
+	{
+		try
+		{
+			return UNSAFE == null ? null : UNSAFE.getClass().getMethod("allocateInstance", Class.class);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	public BedrockScheme copy(BedrockScheme scheme)
+	{
+		try
+		{
+			/* A constant may be reached before its class was, in which case
+			 * it was copied by mistake, and the copy has to be done again.
+			 * It only happens the first time a class is copied */
+			while (true)
+			{
+				BedrockScheme copy = (BedrockScheme) this.copyObject(scheme);
+
+				if (!this.restart)
+				{
+					return copy;
+				}
+
+				this.restart = false;
+				this.copies.clear();
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Couldn't copy scheme " + scheme.identifier, e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object copyObject(Object object) throws ReflectiveOperationException
+	{
+		if (object == null || isShared(object.getClass()) || constants.containsKey(object))
+		{
+			return object;
+		}
+
+		Object copy = this.copies.get(object);
+
+		if (copy != null)
+		{
+			return copy;
+		}
+
+		Class<?> clazz = object.getClass();
+
+		if (clazz.isArray())
+		{
+			int length = Array.getLength(object);
+
+			copy = Array.newInstance(clazz.getComponentType(), length);
+			this.copies.put(object, copy);
+
+			if (clazz.getComponentType().isPrimitive())
+			{
+				System.arraycopy(object, 0, copy, 0, length);
+
+				return copy;
+			}
+
+			Object[] source = (Object[]) object;
+			Object[] target = (Object[]) copy;
+
+			for (int i = 0; i < length; i++)
+			{
+				target[i] = this.copyObject(source[i]);
+			}
+
+			return copy;
+		}
+
+		if (clazz == Random.class)
+		{
+			copy = new Random();
+			this.copies.put(object, copy);
+
+			return copy;
+		}
+
+		if (isCollection(clazz))
+		{
+			Collection<Object> collection = (Collection<Object>) clazz.newInstance();
+
+			this.copies.put(object, collection);
+
+			for (Object element : (Collection<?>) object)
+			{
+				collection.add(this.copyObject(element));
+			}
+
+			return collection;
+		}
+
+		if (isMap(clazz))
+		{
+			Map<Object, Object> map = (Map<Object, Object>) clazz.newInstance();
+
+			this.copies.put(object, map);
+
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet())
+			{
+				map.put(this.copyObject(entry.getKey()), this.copyObject(entry.getValue()));
+			}
+
+			return map;
+		}
+
+		if (clazz.getName().startsWith("java.") || clazz.getName().startsWith("sun."))
+		{
+			throw new IllegalStateException("Can't copy " + clazz.getName());
+		}
+
+		if (this.classes.add(clazz))
+		{
+			this.restart |= registerConstants(clazz, this.copies);
+
+			/* Its own class might have made the object a constant */
+			if (constants.containsKey(object))
+			{
+				return object;
+			}
+		}
+
+		copy = instantiate(clazz);
+		this.copies.put(object, copy);
+
+		for (Field field : getFields(clazz))
+		{
+			Object value = field.get(object);
+
+			field.set(copy, field.getType().isPrimitive() ? value : this.copyObject(value));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Remember constants of given class and its super classes, and check
+	 * whether any of them was among already visited objects
+	 */
+	static boolean registerConstants(Class<?> clazz, Map<Object, ?> visited) throws ReflectiveOperationException
+	{
+		boolean found = false;
+
+		synchronized (registered)
+		{
+			if (!registered.add(clazz))
+			{
+				return false;
+			}
+
+			Map<Object, Field> map = new IdentityHashMap<Object, Field>(constants);
+
+			for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass())
+			{
+				for (Field field : c.getDeclaredFields())
+				{
+					int modifiers = field.getModifiers();
+
+					if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.getType().isPrimitive())
+					{
+						continue;
+					}
+
+					field.setAccessible(true);
+
+					Object constant = field.get(null);
+
+					if (constant != null && !isShared(constant.getClass()) && !map.containsKey(constant))
+					{
+						map.put(constant, field);
+						found |= visited.containsKey(constant);
+					}
+				}
+			}
+
+			constants = map;
+		}
+
+		return found;
+	}
+
+	/**
+	 * Static final field holding given object, if it's a constant of an
+	 * already registered class
+	 */
+	static Field getConstant(Object object)
+	{
+		return constants.get(object);
+	}
+
+	static boolean isShared(Class<?> clazz)
+	{
+		return clazz == String.class || clazz == Class.class || clazz.isEnum() || (Number.class.isAssignableFrom(clazz) && clazz.getName().startsWith("java.lang."))
+			|| clazz == Boolean.class || clazz == Character.class
+			|| clazz == ResourceLocation.class || clazz == AtlasRegion.class || IBlock.class.isAssignableFrom(clazz)
+			|| (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum());
+	}
+
+	static boolean isCollection(Class<?> clazz)
+	{
+		return clazz == ArrayList.class || clazz == LinkedList.class || clazz == HashSet.class || clazz == LinkedHashSet.class
+			|| clazz == CopyOnWriteArrayList.class;
+	}
+
+	static boolean isMap(Class<?> clazz)
+	{
+		return clazz == HashMap.class || clazz == LinkedHashMap.class || clazz == IdentityHashMap.class
+			|| clazz == ConcurrentHashMap.class;
+	}
+
+	/**
+	 * Create an instance of given class, see class' description
+	 */
+	static Object instantiate(Class<?> clazz) throws ReflectiveOperationException
+	{
+		if (ALLOCATE == null)
+		{
+			return getConstructor(clazz).newInstance();
+		}
+
+		Object object = ALLOCATE.invoke(UNSAFE, clazz);
+		Field[] fields = getFields(clazz, true);
+
+		if (fields.length > 0)
+		{
+			Object prototype;
+
+			synchronized (PROTOTYPES)
+			{
+				prototype = PROTOTYPES.get(clazz);
+
+				if (prototype == null)
+				{
+					prototype = getConstructor(clazz).newInstance();
+					PROTOTYPES.put(clazz, prototype);
+				}
+			}
+
+			for (Field field : fields)
+			{
+				field.set(object, field.get(prototype));
+			}
+		}
+
+		return object;
+	}
+
+	private static Constructor<?> getConstructor(Class<?> clazz) throws ReflectiveOperationException
+	{
+		synchronized (CONSTRUCTORS)
+		{
+			Constructor<?> constructor = CONSTRUCTORS.get(clazz);
+
+			if (constructor == null)
+			{
+				constructor = clazz.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				CONSTRUCTORS.put(clazz, constructor);
+			}
+
+			return constructor;
+		}
+	}
+
+	/**
+	 * Get all copied (non-static, non-transient) fields of given class
+	 * and its super classes
+	 */
+	static Field[] getFields(Class<?> clazz)
+	{
+		return getFields(clazz, false);
+	}
+
+	/**
+	 * Get all non-static fields of given class and its super classes that
+	 * are (or aren't) transient
+	 */
+	private static Field[] getFields(Class<?> clazz, boolean transients)
+	{
+		Map<Class<?>, Field[]> cache = transients ? TRANSIENT_FIELDS : FIELDS;
+
+		synchronized (cache)
+		{
+			Field[] fields = cache.get(clazz);
+
+			if (fields != null)
+			{
+				return fields;
+			}
+
+			List<Field> list = new ArrayList<Field>();
+
+			for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass())
+			{
+				for (Field field : c.getDeclaredFields())
+				{
+					int modifiers = field.getModifiers();
+
+					if (!Modifier.isStatic(modifiers) && Modifier.isTransient(modifiers) == transients)
+					{
+						field.setAccessible(true);
+						list.add(field);
+					}
+				}
+			}
+
+			fields = list.toArray(new Field[list.size()]);
+			cache.put(clazz, fields);
+
+			return fields;
+		}
+	}
+}
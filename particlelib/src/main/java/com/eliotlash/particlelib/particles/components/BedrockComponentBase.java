@@ -1,5 +1,6 @@
 package com.eliotlash.particlelib.particles.components;
 
+import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.eliotlash.molang.MolangException;
@@ -12,6 +13,14 @@ public abstract class BedrockComponentBase
 		return this;
 	}
 
+	/**
+	 * Called once the scheme is complete (see {@link BedrockScheme#setup()}),
+	 * components can precompute here whatever doesn't change between
+	 * particles
+	 */
+	public void setup(BedrockScheme scheme)
+	{}
+
 	public JsonElement toJson()
 	{
 		return new JsonObject();
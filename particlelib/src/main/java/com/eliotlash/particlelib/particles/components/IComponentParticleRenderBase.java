@@ -1,6 +1,7 @@
 package com.eliotlash.particlelib.particles.components;
 
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
 
 public interface IComponentParticleRenderBase extends IComponentBase
 {
@@ -11,4 +12,12 @@ public interface IComponentParticleRenderBase extends IComponentBase
 //	public void renderOnScreen(BedrockParticle particle, int x, int y, float scale, float partialTicks, IBufferBuilder builder);
 
 	public void postRender(BedrockEmitter emitter, float partialTicks);
+
+	/**
+	 * Evaluate particle's appearance at the end of the tick, and store it
+	 * in the particle, so it can be interpolated while rendering (unless
+	 * the scheme evaluates appearance every frame)
+	 */
+	public default void updateAppearance(BedrockEmitter emitter, BedrockParticle particle)
+	{}
 }
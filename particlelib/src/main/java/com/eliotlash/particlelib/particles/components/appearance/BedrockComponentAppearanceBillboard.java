@@ -1,5 +1,7 @@
 package com.eliotlash.particlelib.particles.components.appearance;
 
+import com.eliotlash.mclib.utils.Interpolations;
+import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
@@ -10,8 +12,10 @@ import com.eliotlash.particlelib.particles.components.IComponentParticleRenderBa
 import com.eliotlash.molang.MolangException;
 import com.eliotlash.molang.MolangParser;
 import com.eliotlash.molang.expressions.MolangExpression;
+import com.eliotlash.particlelib.particles.render.AtlasRegion;
+import com.eliotlash.particlelib.particles.render.IParticleVertexSink;
 
-public abstract class BedrockComponentAppearanceBillboard extends BedrockComponentBase implements IComponentParticleRenderBase
+public class BedrockComponentAppearanceBillboard extends BedrockComponentBase implements IComponentParticleRenderBase
 {
 	/* Options */
 	public MolangExpression sizeW = MolangParser.ZERO;
@@ -32,14 +36,21 @@ public abstract class BedrockComponentAppearanceBillboard extends BedrockCompone
 	public boolean stretchFPS = false;
 	public boolean loop = false;
 
-	/* Runtime properties */
-	protected float w;
-	protected float h;
+	/* UVs (u1, v1, u2, v2) of every frame from 0 to bakedMax, when they
+	 * don't depend on the particle, see bakeFrames() */
+	private float[] frames;
+	private int bakedMax;
 
-	protected float u1;
-	protected float v1;
-	protected float u2;
-	protected float v2;
+	/* Texture atlas region (normalized), UVs are mapped into it */
+	private float atlasU = 0;
+	private float atlasV = 0;
+	private float atlasW = 1;
+	private float atlasH = 1;
+
+	/**
+	 * Flipbooks with more frames than that aren't baked
+	 */
+	public static final int MAX_BAKED_FRAMES = 4096;
 
 	public BedrockComponentAppearanceBillboard() {}
 
@@ -229,51 +240,459 @@ public abstract class BedrockComponentAppearanceBillboard extends BedrockCompone
 		return object;
 	}
 
+	/**
+	 * Remap UVs into given atlas region, or back to the whole texture if
+	 * null
+	 */
+	public void setAtlasRegion(AtlasRegion region)
+	{
+		if (region == null)
+		{
+			this.atlasU = this.atlasV = 0;
+			this.atlasW = this.atlasH = 1;
+		}
+		else
+		{
+			this.atlasU = region.getU(0);
+			this.atlasV = region.getV(0);
+			this.atlasW = region.getU(1) - this.atlasU;
+			this.atlasH = region.getV(1) - this.atlasV;
+		}
+	}
+
+	/**
+	 * Whether UVs are constant and never leave the texture (including all
+	 * flipbook frames), so the texture can be packed into an atlas
+	 */
+	public boolean hasBoundedUVs()
+	{
+		if (!MolangExpression.isExpressionConstant(this.uvX) || !MolangExpression.isExpressionConstant(this.uvY) ||
+			!MolangExpression.isExpressionConstant(this.uvW) || !MolangExpression.isExpressionConstant(this.uvH))
+		{
+			return false;
+		}
+
+		double u = this.uvX.get();
+		double v = this.uvY.get();
+		double w = this.uvW.get();
+		double h = this.uvH.get();
+
+		if (this.flipbook)
+		{
+			if (!MolangExpression.isExpressionConstant(this.maxFrame))
+			{
+				return false;
+			}
+
+			int max = Math.max((int) this.maxFrame.get(), 0);
+
+			/* Frames go linearly, so the first and the last are the extremes */
+			u = Math.min(u, u + this.stepX * max);
+			v = Math.min(v, v + this.stepY * max);
+			w += Math.abs(this.stepX * max);
+			h += Math.abs(this.stepY * max);
+		}
+
+		return inRange(u, w, this.textureWidth) && inRange(v, h, this.textureHeight);
+	}
+
+	private static boolean inRange(double start, double size, int max)
+	{
+		return Math.min(start, start + size) >= 0 && Math.max(start, start + size) <= max;
+	}
+
 	@Override
 	public void preRender(BedrockEmitter emitter, float partialTicks)
-	{}
+	{
+		this.setupBasis(emitter.quad, emitter);
+	}
 
-	public void calculateUVs(BedrockParticle particle, float partialTicks)
+	@Override
+	public void updateAppearance(BedrockEmitter emitter, BedrockParticle particle)
 	{
-		/* Update particle's UVs and size */
-		this.w = (float) this.sizeW.get() * 2.25F;
-		this.h = (float) this.sizeH.get() * 2.25F;
+		BillboardQuad quad = emitter.quad;
+
+		this.calculateUVs(quad, particle, 1);
+
+		particle.width = quad.w;
+		particle.height = quad.h;
+		particle.u1 = quad.u1;
+		particle.v1 = quad.v1;
+		particle.u2 = quad.u2;
+		particle.v2 = quad.v2;
+	}
+
+	/**
+	 * Set up size, UVs and color of given particle's quad, either by
+	 * evaluating them, or by interpolating values evaluated every tick
+	 */
+	protected void setupAppearance(BillboardQuad quad, BedrockEmitter emitter, BedrockParticle particle, float partialTicks)
+	{
+		if (emitter.isAppearancePerFrame(particle))
+		{
+			this.calculateUVs(quad, particle, partialTicks);
+
+			quad.r = particle.r;
+			quad.g = particle.g;
+			quad.b = particle.b;
+			quad.a = particle.a;
+
+			return;
+		}
+
+		quad.w = Interpolations.lerp(particle.prevWidth, particle.width, partialTicks);
+		quad.h = Interpolations.lerp(particle.prevHeight, particle.height, partialTicks);
+		quad.u1 = particle.u1;
+		quad.v1 = particle.v1;
+		quad.u2 = particle.u2;
+		quad.v2 = particle.v2;
+		quad.r = Interpolations.lerp(particle.prevR, particle.r, partialTicks);
+		quad.g = Interpolations.lerp(particle.prevG, particle.g, partialTicks);
+		quad.b = Interpolations.lerp(particle.prevB, particle.b, partialTicks);
+		quad.a = Interpolations.lerp(particle.prevA, particle.a, partialTicks);
+	}
+
+	@Override
+	public void setup(BedrockScheme scheme)
+	{
+		this.bakeFrames();
+	}
+
+	/**
+	 * Precompute UVs of every flipbook frame (or the only frame of a
+	 * still billboard), if base UV, UV size and max frame are constant,
+	 * so per particle only the frame index has to be found
+	 */
+	public void bakeFrames()
+	{
+		this.frames = null;
+
+		if (!MolangExpression.isExpressionConstant(this.uvX) || !MolangExpression.isExpressionConstant(this.uvY) ||
+			!MolangExpression.isExpressionConstant(this.uvW) || !MolangExpression.isExpressionConstant(this.uvH) ||
+			this.flipbook && !MolangExpression.isExpressionConstant(this.maxFrame))
+		{
+			return;
+		}
+
+		int max = this.flipbook ? (int) this.maxFrame.get() : 0;
+
+		if (max < 0 || max >= MAX_BAKED_FRAMES)
+		{
+			return;
+		}
 
 		float u = (float) this.uvX.get();
 		float v = (float) this.uvY.get();
 		float w = (float) this.uvW.get();
 		float h = (float) this.uvH.get();
+		float[] frames = new float[(max + 1) * 4];
 
-		if (this.flipbook)
+		for (int i = 0; i <= max; i++)
 		{
-			int index = (int) (particle.getAge(partialTicks) * this.fps);
-			int max = (int) this.maxFrame.get();
+			float fu = u + this.stepX * i;
+			float fv = v + this.stepY * i;
 
-			if (this.stretchFPS)
-			{
-				float lifetime = particle.lifetime <= 0 ? 0 : (particle.age + partialTicks) / particle.lifetime;
+			frames[i * 4] = fu;
+			frames[i * 4 + 1] = fv;
+			frames[i * 4 + 2] = fu + w;
+			frames[i * 4 + 3] = fv + h;
+		}
 
-				index = (int) (lifetime * max);
-			}
+		this.bakedMax = max;
+		this.frames = frames;
+	}
 
-			if (this.loop && max != 0)
-			{
-				index = index % max;
-			}
+	public boolean hasBakedFrames()
+	{
+		return this.frames != null;
+	}
 
-			if (index > max)
+	public void calculateUVs(BillboardQuad quad, BedrockParticle particle, float partialTicks)
+	{
+		/* Update particle's UVs and size */
+		quad.w = (float) this.sizeW.get() * 2.25F;
+		quad.h = (float) this.sizeH.get() * 2.25F;
+
+		if (this.frames != null)
+		{
+			int index = this.flipbook ? this.getFrame(particle, partialTicks, this.bakedMax) : 0;
+
+			if (index >= 0)
 			{
-				index = max;
+				index *= 4;
+
+				quad.u1 = this.frames[index];
+				quad.v1 = this.frames[index + 1];
+				quad.u2 = this.frames[index + 2];
+				quad.v2 = this.frames[index + 3];
+
+				return;
 			}
+		}
+
+		float u = (float) this.uvX.get();
+		float v = (float) this.uvY.get();
+		float w = (float) this.uvW.get();
+		float h = (float) this.uvH.get();
+
+		if (this.flipbook)
+		{
+			int index = this.getFrame(particle, partialTicks, (int) this.maxFrame.get());
 
 			u += this.stepX * index;
 			v += this.stepY * index;
 		}
 
-		this.u1 = u;
-		this.v1 = v;
-		this.u2 = u + w;
-		this.v2 = v + h;
+		quad.u1 = u;
+		quad.v1 = v;
+		quad.u2 = u + w;
+		quad.v2 = v + h;
+	}
+
+	/**
+	 * Get flipbook's frame index of given particle
+	 */
+	private int getFrame(BedrockParticle particle, float partialTicks, int max)
+	{
+		int index = (int) (particle.getAge(partialTicks) * this.fps);
+
+		if (this.stretchFPS)
+		{
+			float lifetime = particle.lifetime <= 0 ? 0 : (particle.age + partialTicks) / particle.lifetime;
+
+			index = (int) (lifetime * max);
+		}
+
+		if (this.loop && max != 0)
+		{
+			index = index % max;
+		}
+
+		if (index > max)
+		{
+			index = max;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Compute the plane of billboards from emitter's camera. In rotate
+	 * modes it's the same for all particles of the frame, so it's done
+	 * once instead of building rotation matrices for every particle
+	 * (right = Ry * Rx * (1, 0, 0), up = Ry * Rx * (0, 1, 0))
+	 */
+	public void setupBasis(BillboardQuad quad, BedrockEmitter emitter)
+	{
+		quad.basisComponent = this;
+		quad.basisPerspective = emitter.perspective;
+		quad.basisYaw = emitter.cYaw;
+		quad.basisPitch = emitter.cPitch;
+
+		boolean xyz = this.facing == CameraFacing.ROTATE_XYZ || this.facing == CameraFacing.LOOKAT_XYZ;
+		boolean y = this.facing == CameraFacing.ROTATE_Y || this.facing == CameraFacing.LOOKAT_Y;
+
+		if (!xyz && !y)
+		{
+			this.setBasis(quad, 1, 0, 1, 0, false);
+
+			return;
+		}
+
+		float yaw = emitter.cYaw;
+
+		/* In GUI renderer */
+		if (emitter.perspective == 100)
+		{
+			yaw = 180 - yaw;
+		}
+
+		float yawRad = yaw / 180 * (float) Math.PI;
+		float pitchRad = emitter.cPitch / 180 * (float) Math.PI;
+
+		this.setBasis(quad, (float) Math.cos(yawRad), (float) Math.sin(yawRad), (float) Math.cos(pitchRad), (float) Math.sin(pitchRad), xyz);
+	}
+
+	private void setBasis(BillboardQuad quad, float cosYaw, float sinYaw, float cosPitch, float sinPitch, boolean pitch)
+	{
+		quad.rightX = cosYaw;
+		quad.rightY = 0;
+		quad.rightZ = -sinYaw;
+
+		if (pitch)
+		{
+			quad.upX = sinYaw * sinPitch;
+			quad.upY = cosPitch;
+			quad.upZ = cosYaw * sinPitch;
+		}
+		else
+		{
+			quad.upX = 0;
+			quad.upY = 1;
+			quad.upZ = 0;
+		}
+	}
+
+	/**
+	 * Generate the billboard of given particle in the world, facing the
+	 * emitter's camera
+	 */
+	public void render(BedrockEmitter emitter, BedrockParticle particle, IParticleVertexSink sink, float partialTicks)
+	{
+		BillboardQuad quad = emitter.quad;
+
+		this.setupAppearance(quad, emitter, particle, partialTicks);
+
+		/* Render the particle */
+		double px = Interpolations.lerp(particle.prevPosition.x, particle.position.x, partialTicks);
+		double py = Interpolations.lerp(particle.prevPosition.y, particle.position.y, partialTicks);
+		double pz = Interpolations.lerp(particle.prevPosition.z, particle.position.z, partialTicks);
+		float angle = Interpolations.lerp(particle.prevRotation, particle.rotation, partialTicks);
+
+		if (particle.relativePosition && particle.relativeRotation)
+		{
+			quad.vector.set((float) px, (float) py, (float) pz);
+			emitter.rotation.transform(quad.vector);
+
+			px = quad.vector.x;
+			py = quad.vector.y;
+			pz = quad.vector.z;
+
+			px += emitter.lastGlobal.x;
+			py += emitter.lastGlobal.y;
+			pz += emitter.lastGlobal.z;
+		}
+
+		boolean lookAt = this.facing == CameraFacing.LOOKAT_XYZ || this.facing == CameraFacing.LOOKAT_Y;
+
+		/* Flip width when frontal perspective mode */
+		if (emitter.perspective == 2)
+		{
+			quad.w = -quad.w;
+		}
+		/* In GUI renderer */
+		else if (emitter.perspective == 100 && !lookAt)
+		{
+			quad.w = -quad.w;
+			quad.h = -quad.h;
+		}
+
+		if (lookAt)
+		{
+			this.setupLookAt(quad, emitter, px, py, pz);
+		}
+		else if (quad.basisComponent != this || emitter.perspective != quad.basisPerspective || emitter.cYaw != quad.basisYaw || emitter.cPitch != quad.basisPitch)
+		{
+			this.setupBasis(quad, emitter);
+		}
+
+		int light = emitter.getBrightnessForRender(particle, partialTicks, px, py, pz);
+
+		this.outputQuad(quad, particle, sink, px, py, pz, angle, light);
+	}
+
+	/**
+	 * Compute the plane of a billboard that faces the camera from given
+	 * position. Sine and cosine of the yaw and pitch are taken directly
+	 * from the normalized direction to the camera
+	 */
+	private void setupLookAt(BillboardQuad quad, BedrockEmitter emitter, double px, double py, double pz)
+	{
+		double dX = emitter.cX - px;
+		double dY = emitter.cY - py;
+		double dZ = emitter.cZ - pz;
+		double horizontal = Math.sqrt(dX * dX + dZ * dZ);
+
+		/* yaw = 90 - atan2(dZ, dX) */
+		float cosYaw = horizontal == 0 ? 0 : (float) (dZ / horizontal);
+		float sinYaw = horizontal == 0 ? 1 : (float) (dX / horizontal);
+
+		if (this.facing == CameraFacing.LOOKAT_Y)
+		{
+			this.setBasis(quad, cosYaw, sinYaw, 1, 0, false);
+
+			return;
+		}
+
+		/* pitch = 180 - atan2(dY, horizontal) */
+		double length = Math.sqrt(horizontal * horizontal + dY * dY);
+		float cosPitch = length == 0 ? -1 : (float) (-horizontal / length);
+		float sinPitch = length == 0 ? 0 : (float) (dY / length);
+
+		this.setBasis(quad, cosYaw, sinYaw, cosPitch, sinPitch, true);
+		quad.basisComponent = null;
+	}
+
+	/**
+	 * Generate the billboard of given particle on the screen (in GUI)
+	 */
+	public void renderOnScreen(BedrockParticle particle, int x, int y, float scale, float partialTicks, IParticleVertexSink sink)
+	{
+		BillboardQuad quad = new BillboardQuad();
+
+		this.calculateUVs(quad, particle, partialTicks);
+
+		quad.r = particle.r;
+		quad.g = particle.g;
+		quad.b = particle.b;
+		quad.a = particle.a;
+		quad.w = quad.h = 0.5F;
+		float angle = Interpolations.lerp(particle.prevRotation, particle.rotation, partialTicks);
+		float size = scale * 2.75F;
+
+		quad.rightX = size;
+		quad.rightY = quad.rightZ = 0;
+		quad.upY = size;
+		quad.upX = quad.upZ = 0;
+		quad.basisComponent = null;
+
+		this.outputQuad(quad, particle, sink, x, y - scale / 2, 0, angle, 15728880);
+	}
+
+	/**
+	 * Output the quad centered at given position in current basis,
+	 * rotated by given angle (in degrees) within its plane
+	 */
+	protected void outputQuad(BillboardQuad quad, BedrockParticle particle, IParticleVertexSink sink, double px, double py, double pz, float angle, int light)
+	{
+		float w = quad.w / 2;
+		float h = quad.h / 2;
+		float cos = 1;
+		float sin = 0;
+
+		if (angle != 0)
+		{
+			float radians = angle / 180 * (float) Math.PI;
+
+			cos = (float) Math.cos(radians);
+			sin = (float) Math.sin(radians);
+		}
+
+		/* Corner offsets rotated by the angle, other two corners are
+		 * opposite to these */
+		float ax = -w * cos + h * sin;
+		float ay = -w * sin - h * cos;
+		float bx = w * cos + h * sin;
+		float by = w * sin - h * cos;
+
+		this.corner(quad, 0, px, py, pz, ax, ay);
+		this.corner(quad, 1, px, py, pz, bx, by);
+		this.corner(quad, 2, px, py, pz, -ax, -ay);
+		this.corner(quad, 3, px, py, pz, -bx, -by);
+
+		float u1 = this.atlasU + quad.u1 / (float) this.textureWidth * this.atlasW;
+		float u2 = this.atlasU + quad.u2 / (float) this.textureWidth * this.atlasW;
+		float v1 = this.atlasV + quad.v1 / (float) this.textureHeight * this.atlasH;
+		float v2 = this.atlasV + quad.v2 / (float) this.textureHeight * this.atlasH;
+
+		sink.quad(quad.positions, u1, v1, u2, v2, light, quad.r, quad.g, quad.b, quad.a);
+	}
+
+	private void corner(BillboardQuad quad, int index, double px, double py, double pz, float x, float y)
+	{
+		quad.positions[index * 3] = (float) (px + x * quad.rightX + y * quad.upX);
+		quad.positions[index * 3 + 1] = (float) (py + x * quad.rightY + y * quad.upY);
+		quad.positions[index * 3 + 2] = (float) (pz + x * quad.rightZ + y * quad.upZ);
 	}
 
 	@Override
@@ -1,7 +1,9 @@
 package com.eliotlash.particlelib.particles.components.appearance;
 
+import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.eliotlash.particlelib.particles.BedrockSchemeJsonAdapter;
@@ -10,7 +12,7 @@ import com.eliotlash.molang.MolangException;
 import com.eliotlash.molang.MolangParser;
 //import net.minecraft.client.renderer.BufferBuilder;
 
-public abstract class BedrockComponentAppearanceTinting extends BedrockComponentBase implements IComponentParticleRenderBase
+public class BedrockComponentAppearanceTinting extends BedrockComponentBase implements IComponentParticleRenderBase
 {
 	public Tint color = new Tint.Solid(MolangParser.ONE, MolangParser.ONE, MolangParser.ONE, MolangParser.ONE);
 
@@ -52,8 +54,38 @@ public abstract class BedrockComponentAppearanceTinting extends BedrockComponent
 		return object;
 	}
 
+	@Override
+	public void setup(BedrockScheme scheme)
+	{
+		if (this.color != null)
+		{
+			this.color.bake();
+		}
+	}
+
+	/**
+	 * Compute the color of given particle
+	 */
+	public void compute(BedrockParticle particle)
+	{
+		if (this.color != null)
+		{
+			this.color.compute(particle);
+		}
+		else
+		{
+			particle.r = particle.g = particle.b = particle.a = 1;
+		}
+	}
+
 	/* Interface implementations */
 
+	@Override
+	public void updateAppearance(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		this.compute(particle);
+	}
+
 	@Override
 	public void preRender(BedrockEmitter emitter, float partialTicks)
 	{}
@@ -0,0 +1,43 @@
+package com.eliotlash.particlelib.particles.components.appearance;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Billboard quad
+ *
+ * Size, UVs, color and plane of the billboard being generated by
+ * {@link BedrockComponentAppearanceBillboard}. Every emitter has its
+ * own, so rendering doesn't write to (shared) scheme's components
+ */
+public class BillboardQuad
+{
+	public float w;
+	public float h;
+
+	public float u1;
+	public float v1;
+	public float u2;
+	public float v2;
+
+	public float r;
+	public float g;
+	public float b;
+	public float a;
+
+	/* Camera basis (right and up vectors of the billboard plane), and
+	 * the component and camera it was computed for */
+	public BedrockComponentAppearanceBillboard basisComponent;
+	public int basisPerspective;
+	public float basisYaw;
+	public float basisPitch;
+
+	public float rightX;
+	public float rightY;
+	public float rightZ;
+	public float upX;
+	public float upY;
+	public float upZ;
+
+	public final Vector3f vector = new Vector3f();
+	public final float[] positions = new float[12];
+}
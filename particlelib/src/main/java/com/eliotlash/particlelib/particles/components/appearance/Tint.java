@@ -120,6 +120,13 @@ public abstract class Tint
 
 	public abstract void compute(BedrockParticle particle);
 
+	/**
+	 * Precompute whatever doesn't depend on particles (called when the
+	 * scheme is set up)
+	 */
+	public void bake()
+	{}
+
 	public abstract JsonElement toJson();
 
 	/**
@@ -209,10 +216,18 @@ public abstract class Tint
 	 */
 	public static class Gradient extends Tint
 	{
+		/**
+		 * Amount of colors sampled along baked gradients
+		 */
+		public static final int LUT_SIZE = 256;
+
 		public List<ColorStop> stops;
 		public MolangExpression interpolant;
 		public boolean equal;
 
+		/* Baked RGBA colors, evenly sampled from 0 to 1 */
+		private float[] lut;
+
 		public Gradient(List<ColorStop> stops, MolangExpression interpolant, boolean equal)
 		{
 			this.stops = stops;
@@ -220,8 +235,74 @@ public abstract class Tint
 			this.equal = equal;
 		}
 
+		/**
+		 * Sample the gradient into a lookup table, if all of its stops
+		 * are constant, so computing a color doesn't need to search
+		 * the stops and evaluate their expressions. Only the interpolant
+		 * gets evaluated for every particle afterwards
+		 */
+		@Override
+		public void bake()
+		{
+			this.lut = null;
+
+			if (this.stops.size() < 2)
+			{
+				return;
+			}
+
+			for (ColorStop stop : this.stops)
+			{
+				if (!stop.color.isConstant())
+				{
+					return;
+				}
+			}
+
+			float[] lut = new float[LUT_SIZE * 4];
+			BedrockParticle sample = new BedrockParticle();
+
+			for (int i = 0; i < LUT_SIZE; i++)
+			{
+				this.compute(sample, i / (double) (LUT_SIZE - 1));
+
+				lut[i * 4] = sample.r;
+				lut[i * 4 + 1] = sample.g;
+				lut[i * 4 + 2] = sample.b;
+				lut[i * 4 + 3] = sample.a;
+			}
+
+			this.lut = lut;
+		}
+
+		public boolean isBaked()
+		{
+			return this.lut != null;
+		}
+
 		@Override
 		public void compute(BedrockParticle particle)
+		{
+			if (this.lut != null)
+			{
+				double factor = MathUtils.clamp(this.interpolant.get(), 0, 1);
+				int index = (int) (factor * (LUT_SIZE - 1) + 0.5) * 4;
+
+				particle.r = this.lut[index];
+				particle.g = this.lut[index + 1];
+				particle.b = this.lut[index + 2];
+				particle.a = this.lut[index + 3];
+
+				return;
+			}
+
+			this.compute(particle, this.interpolant.get());
+		}
+
+		/**
+		 * Compute the color at given factor by searching the stops
+		 */
+		private void compute(BedrockParticle particle, double factor)
 		{
 			int length = this.stops.size();
 
@@ -238,8 +319,6 @@ public abstract class Tint
 				return;
 			}
 
-			double factor = this.interpolant.get();
-
 			factor = MathUtils.clamp(factor, 0, 1);
 
 			ColorStop prev = this.stops.get(0);
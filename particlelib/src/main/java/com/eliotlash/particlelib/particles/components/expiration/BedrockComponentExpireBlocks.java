@@ -1,7 +1,6 @@
 package com.eliotlash.particlelib.particles.components.expiration;
 
 import com.eliotlash.particlelib.Settings;
-import com.eliotlash.particlelib.mcwrapper.BlockPos;
 import com.eliotlash.particlelib.mcwrapper.IBlock;
 import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
 import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
@@ -12,15 +11,20 @@ import com.google.gson.JsonElement;
 import com.eliotlash.molang.MolangException;
 import com.eliotlash.molang.MolangParser;
 
-import javax.vecmath.Vector3d;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class BedrockComponentExpireBlocks extends BedrockComponentBase
 {
 	public List<IBlock> blocks = new ArrayList<IBlock>();
 
-	private BlockPos pos = new BlockPos();
+	/**
+	 * Identity set of {@link #blocks}, so checking the block doesn't require
+	 * scanning the list. Call {@link #updateFilter()} after changing blocks
+	 */
+	private Map<IBlock, Boolean> filter = new IdentityHashMap<IBlock, Boolean>();
 
 	@Override
 	public BedrockComponentBase fromJson(JsonElement element, MolangParser parser) throws MolangException
@@ -40,6 +44,8 @@ public abstract class BedrockComponentExpireBlocks extends BedrockComponentBase
 			}
 		}
 
+		this.updateFilter();
+
 		return super.fromJson(element, parser);
 	}
 
@@ -62,6 +68,25 @@ public abstract class BedrockComponentExpireBlocks extends BedrockComponentBase
 		return array;
 	}
 
+	public void updateFilter()
+	{
+		this.filter.clear();
+
+		for (IBlock block : this.blocks)
+		{
+			this.filter.put(block, Boolean.TRUE);
+		}
+	}
+
+	public boolean contains(IBlock block)
+	{
+		return this.filter.containsKey(block);
+	}
+
+	/**
+	 * Get the block particle is in (as tracked by
+	 * {@link BedrockParticle#updateBlock(BedrockEmitter)})
+	 */
 	public IBlock getBlock(BedrockEmitter emitter, BedrockParticle particle)
 	{
 		if (emitter.world == null)
@@ -69,10 +94,6 @@ public abstract class BedrockComponentExpireBlocks extends BedrockComponentBase
 			return IBlock.Blocks.AIR;
 		}
 
-		Vector3d position = particle.getGlobalPosition(emitter);
-
-		this.pos.setPos(position.getX(), position.getY(), position.getZ());
-
-		return emitter.world.getBlockAtPos(this.pos);
+		return emitter.blockCache.get(emitter.world, particle.blockKey);
 	}
 }
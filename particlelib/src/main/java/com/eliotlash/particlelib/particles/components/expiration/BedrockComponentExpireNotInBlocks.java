@@ -10,21 +10,17 @@ public class BedrockComponentExpireNotInBlocks extends BedrockComponentExpireBlo
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
 	{
-		if (particle.dead || emitter.world == null)
+		/* Same block as on the previous check, so the result would be the same too */
+		if (particle.dead || emitter.world == null || !particle.blockChanged)
 		{
 			return;
 		}
 
 		IBlock current = this.getBlock(emitter, particle);
 
-		for (IBlock block : this.blocks)
+		if (!this.contains(current))
 		{
-			if (block == current)
-			{
-				return;
-			}
+			particle.dead = true;
 		}
-
-		particle.dead = true;
 	}
 }
@@ -4,14 +4,13 @@ import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.eliotlash.molang.MolangException;
 import com.eliotlash.molang.MolangParser;
 import com.eliotlash.mclib.math.Operation;
 
-import javax.vecmath.Vector3d;
-
 public class BedrockComponentKillPlane extends BedrockComponentBase implements IComponentParticleUpdate
 {
 	public float a;
@@ -60,23 +59,40 @@ public class BedrockComponentKillPlane extends BedrockComponentBase implements I
 
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		this.checkCrossing(emitter, particle);
+	}
+
+	/**
+	 * Kill given particle if it crossed the plane since the last update
+	 * (also called directly by {@link ParticleUpdateKernel})
+	 */
+	public final void checkCrossing(BedrockEmitter emitter, BedrockParticle particle)
 	{
 		if (particle.dead)
 		{
 			return;
 		}
 
-		Vector3d prevLocal = new Vector3d(particle.prevPosition);
-		Vector3d local = new Vector3d(particle.position);
+		double px = particle.prevPosition.x;
+		double py = particle.prevPosition.y;
+		double pz = particle.prevPosition.z;
+		double x = particle.position.x;
+		double y = particle.position.y;
+		double z = particle.position.z;
 
 		if (!particle.relativePosition)
 		{
-			local.sub(emitter.lastGlobal);
-			prevLocal.sub(emitter.lastGlobal);
+			px -= emitter.lastGlobal.x;
+			py -= emitter.lastGlobal.y;
+			pz -= emitter.lastGlobal.z;
+			x -= emitter.lastGlobal.x;
+			y -= emitter.lastGlobal.y;
+			z -= emitter.lastGlobal.z;
 		}
 
-		double prev = this.a * prevLocal.x + this.b * prevLocal.y + this.c * prevLocal.z + this.d;
-		double now = this.a * local.x + this.b * local.y + this.c * local.z + this.d;
+		double prev = this.a * px + this.b * py + this.c * pz + this.d;
+		double now = this.a * x + this.b * y + this.c * z + this.d;
 
 		if ((prev > 0 && now < 0) || (prev < 0 && now > 0))
 		{
@@ -5,6 +5,7 @@ import com.eliotlash.particlelib.particles.components.IComponentParticleInitiali
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
@@ -57,6 +58,15 @@ public class BedrockComponentParticleLifetime extends BedrockComponentBase imple
 
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		this.checkExpiration(particle);
+	}
+
+	/**
+	 * Kill given particle if the expiration expression says so (also
+	 * called directly by {@link ParticleUpdateKernel})
+	 */
+	public final void checkExpiration(BedrockParticle particle)
 	{
 		if (!this.max && this.expression.get() != 0)
 		{
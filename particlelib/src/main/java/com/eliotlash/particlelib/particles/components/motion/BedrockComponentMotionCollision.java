@@ -1,5 +1,6 @@
 package com.eliotlash.particlelib.particles.components.motion;
 
+import com.eliotlash.particlelib.Settings;
 import com.eliotlash.particlelib.mcwrapper.AxisAlignedBB;
 import com.eliotlash.particlelib.mcwrapper.BlockPos;
 import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
@@ -27,9 +28,6 @@ public class BedrockComponentMotionCollision extends BedrockComponentBase implem
 
 	/* Runtime options */
 	public boolean json;
-	private Vector3d previous = new Vector3d();
-	private Vector3d current = new Vector3d();
-	private BlockPos pos = new BlockPos();
 
 	@Override
 	public BedrockComponentBase fromJson(JsonElement elem, MolangParser parser) throws MolangException
@@ -69,7 +67,7 @@ public class BedrockComponentMotionCollision extends BedrockComponentBase implem
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
 	{
-		if (emitter.world == null)
+		if (emitter.world == null || !Settings.getQuality().collision)
 		{
 			return;
 		}
@@ -78,31 +76,44 @@ public class BedrockComponentMotionCollision extends BedrockComponentBase implem
 		{
 			float r = this.radius;
 
-			this.previous.set(particle.getGlobalPosition(emitter, particle.prevPosition));
-			this.current.set(particle.getGlobalPosition(emitter));
-
-			Vector3d prev = this.previous;
-			Vector3d now = this.current;
+			/* Particle reuses the vector it returns global position in */
+			Vector3d prev = new Vector3d(particle.getGlobalPosition(emitter, particle.prevPosition));
+			Vector3d now = new Vector3d(particle.getGlobalPosition(emitter));
 
 			double x = now.x - prev.x;
 			double y = now.y - prev.y;
 			double z = now.z - prev.z;
 			boolean veryBig = Math.abs(x) > 10 || Math.abs(y) > 10 || Math.abs(z) > 10;
 
-			this.pos.setPos(now.x, now.y, now.z);
-
-			if (veryBig || !emitter.world.isBlockLoaded(this.pos))
+			if (veryBig)
 			{
 				return;
 			}
 
 			AxisAlignedBB aabb = new AxisAlignedBB(prev.x - r, prev.y - r, prev.z - r, prev.x + r, prev.y + r, prev.z + r);
+			AxisAlignedBB swept = aabb.expand(x, y, z);
+
+			/* Particle's movement stays within a block that has nothing to
+			 * collide with, so there is no need to ask the world */
+			if (this.isInsideEmptyBlock(emitter, particle, swept))
+			{
+				return;
+			}
+
+			BlockPos pos = new BlockPos();
+
+			pos.setPos(now.x, now.y, now.z);
+
+			if (!emitter.world.isBlockLoaded(pos))
+			{
+				return;
+			}
 
 			double d0 = y;
 			double origX = x;
 			double origZ = z;
 
-			List<AxisAlignedBB> list = emitter.world.getCollisionBoxes(null, aabb.expand(x, y, z));
+			List<AxisAlignedBB> list = emitter.world.getCollisionBoxes(null, swept);
 
 			for (AxisAlignedBB axisalignedbb : list)
 			{
@@ -166,6 +177,48 @@ public class BedrockComponentMotionCollision extends BedrockComponentBase implem
 		}
 	}
 
+	/**
+	 * Check whether given box fits into the block particle is in, and that
+	 * block doesn't have any collision boxes. Emptiness of the block gets
+	 * queried only once per block crossing (see
+	 * {@link BedrockParticle#updateBlock(BedrockEmitter)})
+	 */
+	private boolean isInsideEmptyBlock(BedrockEmitter emitter, BedrockParticle particle, AxisAlignedBB box)
+	{
+		int x = (int) Math.floor(box.getXMin());
+		int y = (int) Math.floor(box.getYMin());
+		int z = (int) Math.floor(box.getZMin());
+
+		if (x != (int) Math.floor(box.getXMax()) || y != (int) Math.floor(box.getYMax()) || z != (int) Math.floor(box.getZMax()))
+		{
+			return false;
+		}
+
+		if (BlockPos.pack(x, y, z) != particle.blockKey)
+		{
+			return false;
+		}
+
+		if (particle.blockCollision == BedrockParticle.COLLISION_UNKNOWN)
+		{
+			BlockPos pos = new BlockPos();
+
+			pos.setPos(x, y, z);
+
+			if (!emitter.world.isBlockLoaded(pos))
+			{
+				return false;
+			}
+
+			AxisAlignedBB block = new AxisAlignedBB(x, y, z, x + 1, y + 1, z + 1);
+			boolean empty = emitter.world.getCollisionBoxes(null, block).isEmpty();
+
+			particle.blockCollision = empty ? BedrockParticle.COLLISION_EMPTY : BedrockParticle.COLLISION_SOLID;
+		}
+
+		return particle.blockCollision == BedrockParticle.COLLISION_EMPTY;
+	}
+
 	@Override
 	public int getSortingIndex()
 	{
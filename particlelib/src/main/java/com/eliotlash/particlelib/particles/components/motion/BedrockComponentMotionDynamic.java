@@ -4,6 +4,7 @@ import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -66,6 +67,15 @@ public class BedrockComponentMotionDynamic extends BedrockComponentMotion implem
 
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		this.accelerate(particle);
+	}
+
+	/**
+	 * Add this component's acceleration and drag to given particle
+	 * (also called directly by {@link ParticleUpdateKernel})
+	 */
+	public final void accelerate(BedrockParticle particle)
 	{
 		particle.acceleration.x += (float) this.motionAcceleration[0].get();
 		particle.acceleration.y += (float) this.motionAcceleration[1].get();
@@ -5,6 +5,7 @@ import com.eliotlash.particlelib.particles.components.IComponentParticleInitiali
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.particles.emitter.ParticleUpdateKernel;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -12,7 +13,7 @@ import com.eliotlash.molang.MolangException;
 import com.eliotlash.molang.MolangParser;
 import com.eliotlash.molang.expressions.MolangExpression;
 
-import javax.vecmath.Vector3f;
+import javax.vecmath.Matrix3f;
 
 public class BedrockComponentMotionParametric extends BedrockComponentMotion implements IComponentParticleInitialize, IComponentParticleUpdate
 {
@@ -64,27 +65,33 @@ public class BedrockComponentMotionParametric extends BedrockComponentMotion imp
 	@Override
 	public void apply(BedrockEmitter emitter, BedrockParticle particle)
 	{
-		Vector3f position = new Vector3f((float) this.position[0].get(), (float) this.position[1].get(), (float) this.position[2].get());
-
 		particle.manual = true;
 		particle.initialPosition.set(particle.position);
 
-		particle.matrix.transform(position);
-		particle.position.x = particle.initialPosition.x + position.x;
-		particle.position.y = particle.initialPosition.y + position.y;
-		particle.position.z = particle.initialPosition.z + position.z;
-		particle.rotation = (float) this.rotation.get();
+		this.move(particle);
 	}
 
 	@Override
 	public void update(BedrockEmitter emitter, BedrockParticle particle)
 	{
-		Vector3f position = new Vector3f((float) this.position[0].get(), (float) this.position[1].get(), (float) this.position[2].get());
+		this.move(particle);
+	}
 
-		particle.matrix.transform(position);
-		particle.position.x = particle.initialPosition.x + position.x;
-		particle.position.y = particle.initialPosition.y + position.y;
-		particle.position.z = particle.initialPosition.z + position.z;
+	/**
+	 * Move given particle to this component's offset (transformed by
+	 * particle's matrix) from its initial position, and set its rotation
+	 * (also called directly by {@link ParticleUpdateKernel})
+	 */
+	public final void move(BedrockParticle particle)
+	{
+		float x = (float) this.position[0].get();
+		float y = (float) this.position[1].get();
+		float z = (float) this.position[2].get();
+		Matrix3f matrix = particle.matrix;
+
+		particle.position.x = particle.initialPosition.x + (matrix.m00 * x + matrix.m01 * y + matrix.m02 * z);
+		particle.position.y = particle.initialPosition.y + (matrix.m10 * x + matrix.m11 * y + matrix.m12 * z);
+		particle.position.z = particle.initialPosition.z + (matrix.m20 * x + matrix.m21 * y + matrix.m22 * z);
 		particle.rotation = (float) this.rotation.get();
 	}
 
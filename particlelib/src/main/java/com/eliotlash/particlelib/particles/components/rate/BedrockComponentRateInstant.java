@@ -2,6 +2,7 @@ package com.eliotlash.particlelib.particles.components.rate;
 
 import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.eliotlash.particlelib.particles.components.IComponentEmitterUpdate;
@@ -57,10 +58,14 @@ public class BedrockComponentRateInstant extends BedrockComponentRate implements
 		{
 			emitter.setEmitterVariables(0);
 
-			for (int i = 0, c = (int) this.particles.get(); i < c; i ++)
+			int count = (int) this.particles.get();
+
+			for (int i = 0; i < count && emitter.canSpawn(); i ++)
 			{
 				emitter.spawnParticle();
 			}
+
+			ParticleEvents.burst(emitter.scheme, count);
 		}
 	}
 }
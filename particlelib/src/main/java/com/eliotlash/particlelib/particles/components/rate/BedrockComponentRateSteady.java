@@ -62,12 +62,11 @@ public class BedrockComponentRateSteady extends BedrockComponentRate implements
 			{
 				emitter.setEmitterVariables(partialTicks);
 
-				for (int i = 0; i < spawn; i++)
+				/* Once the emitter is full, there is no point in going on, and
+				 * huge spawn rates would stall the client */
+				for (int i = 0; i < spawn && emitter.particles.size() < this.particles.get() && emitter.canSpawn(); i++)
 				{
-					if (emitter.particles.size() < this.particles.get())
-					{
-						emitter.spawnParticle();
-					}
+					emitter.spawnParticle();
 				}
 
 				emitter.spawnedParticles += spawn;
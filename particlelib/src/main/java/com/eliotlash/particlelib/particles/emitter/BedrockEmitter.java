@@ -1,16 +1,25 @@
 package com.eliotlash.particlelib.particles.emitter;
 
+import com.eliotlash.particlelib.Settings;
 import com.eliotlash.particlelib.mcwrapper.AxisAlignedBB;
+import com.eliotlash.particlelib.mcwrapper.BlockCache;
+import com.eliotlash.particlelib.mcwrapper.BlockPos;
 import com.eliotlash.particlelib.mcwrapper.IWorld;
 import com.eliotlash.particlelib.mcwrapper.Size2f;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
+import com.eliotlash.particlelib.profiler.ParticleProfiler;
 import com.eliotlash.particlelib.particles.components.IComponentParticleInitialize;
+import com.eliotlash.particlelib.particles.components.IComponentParticleRenderBase;
 import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
 import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.eliotlash.particlelib.particles.components.IComponentEmitterInitialize;
 import com.eliotlash.particlelib.particles.components.IComponentEmitterUpdate;
+import com.eliotlash.particlelib.particles.components.appearance.BillboardQuad;
 //import mchorse.blockbuster.client.textures.GifTexture;
 import com.eliotlash.mclib.math.IValue;
 import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.mclib.math.VariableContext;
 //import net.minecraft.client.renderer.GlStateManager;
 //import net.minecraft.client.renderer.Tessellator;
 //import net.minecraft.entity.Entity;
@@ -35,6 +44,12 @@ public abstract class BedrockEmitter
 	public List<BedrockParticle> particles = new ArrayList<BedrockParticle>();
 	public Map<String, IValue> variables;
 
+	/* Values of scheme's variables that belong to this emitter */
+	public EmitterState state;
+
+	/* Billboard being generated for this emitter's particles */
+	public final BillboardQuad quad = new BillboardQuad();
+
 	public boolean lit;
 
 	public boolean added;
@@ -47,12 +62,31 @@ public abstract class BedrockEmitter
 	public Vector3d lastGlobal = new Vector3d();
 	public Matrix3f rotation = new Matrix3f();
 
+	/* Camera properties */
+	public int perspective;
+	public float cYaw;
+	public float cPitch;
+
+	public double cX;
+	public double cY;
+	public double cZ;
+
+	/* Limits runaway schemes */
+	public EmitterWatchdog watchdog = new EmitterWatchdog();
+
+	/* Blocks looked up during current tick */
+	public BlockCache blockCache = new BlockCache();
+	private long[] blockKeys = new long[64];
+
 	/* Runtime properties */
 	public int age;
 	public int lifetime;
 	public double spawnedParticles;
 	public boolean playing = true;
 
+	/* Fraction of a particle that may be spawned at reduced quality */
+	private float spawnCredit;
+
 	public float random1 = (float) Math.random();
 	public float random2 = (float) Math.random();
 	public float random3 = (float) Math.random();
@@ -91,22 +125,38 @@ public abstract class BedrockEmitter
 	public void setScheme(BedrockScheme scheme)
 	{
 		this.scheme = scheme;
+		this.state = null;
 
 		if (this.scheme == null)
 		{
 			return;
 		}
 
-		this.lit = true;
-		this.stop();
-		this.start();
+		this.state = new EmitterState(this.scheme);
 
-		this.setupVariables();
-		this.setEmitterVariables(0);
+		VariableContext previous = this.state.enter();
 
-		for (IComponentEmitterInitialize component : this.scheme.emitterInitializes)
+		try
 		{
-			component.apply(this);
+			this.lit = true;
+			this.watchdog.reset();
+			this.stop();
+			this.start();
+
+			this.setupVariables();
+			this.setEmitterVariables(0);
+
+			for (IComponentEmitterInitialize component : this.scheme.emitterInitializes)
+			{
+				long start = ParticleProfiler.start();
+
+				component.apply(this);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+		}
+		finally
+		{
+			VariableContext.exit(previous);
 		}
 	}
 
@@ -116,6 +166,17 @@ public abstract class BedrockEmitter
 
 	/* Variable related code */
 
+	/**
+	 * Make this emitter's variables current on this thread, which has to
+	 * be done before evaluating any of (shared) scheme's expressions.
+	 * Returns previously current context, which has to be given to
+	 * {@link VariableContext#exit(VariableContext)} when done
+	 */
+	public VariableContext enterState()
+	{
+		return this.state == null ? VariableContext.current() : this.state.enter();
+	}
+
 	public void setupVariables()
 	{
 		this.varAge = this.scheme.parser.variables.get("variable.particle_age");
@@ -135,26 +196,26 @@ public abstract class BedrockEmitter
 
 	public void setParticleVariables(BedrockParticle particle, float partialTicks)
 	{
-		if (this.varAge != null) this.varAge.set(particle.getAge(partialTicks));
-		if (this.varLifetime != null) this.varLifetime.set(particle.lifetime / 20.0);
-		if (this.varRandom1 != null) this.varRandom1.set(particle.random1);
-		if (this.varRandom2 != null) this.varRandom2.set(particle.random2);
-		if (this.varRandom3 != null) this.varRandom3.set(particle.random3);
-		if (this.varRandom4 != null) this.varRandom4.set(particle.random4);
-
-		this.scheme.updateCurves();
+		if (this.varAge != null) this.state.set(this.varAge, particle.getAge(partialTicks));
+		if (this.varLifetime != null) this.state.set(this.varLifetime, particle.lifetime / 20.0);
+		if (this.varRandom1 != null) this.state.set(this.varRandom1, particle.random1);
+		if (this.varRandom2 != null) this.state.set(this.varRandom2, particle.random2);
+		if (this.varRandom3 != null) this.state.set(this.varRandom3, particle.random3);
+		if (this.varRandom4 != null) this.state.set(this.varRandom4, particle.random4);
+
+		this.scheme.updateParticleCurves(this.state);
 	}
 
 	public void setEmitterVariables(float partialTicks)
 	{
-		if (this.varEmitterAge != null) this.varEmitterAge.set(this.getAge(partialTicks));
-		if (this.varEmitterLifetime != null) this.varEmitterLifetime.set(this.lifetime / 20.0);
-		if (this.varEmitterRandom1 != null) this.varEmitterRandom1.set(this.random1);
-		if (this.varEmitterRandom2 != null) this.varEmitterRandom2.set(this.random2);
-		if (this.varEmitterRandom3 != null) this.varEmitterRandom3.set(this.random3);
-		if (this.varEmitterRandom4 != null) this.varEmitterRandom4.set(this.random4);
-
-		this.scheme.updateCurves();
+		if (this.varEmitterAge != null) this.state.set(this.varEmitterAge, this.getAge(partialTicks));
+		if (this.varEmitterLifetime != null) this.state.set(this.varEmitterLifetime, this.lifetime / 20.0);
+		if (this.varEmitterRandom1 != null) this.state.set(this.varEmitterRandom1, this.random1);
+		if (this.varEmitterRandom2 != null) this.state.set(this.varEmitterRandom2, this.random2);
+		if (this.varEmitterRandom3 != null) this.state.set(this.varEmitterRandom3, this.random3);
+		if (this.varEmitterRandom4 != null) this.state.set(this.varEmitterRandom4, this.random4);
+
+		this.scheme.updateCurves(this.state);
 	}
 
 	public void parseVariables(Map<String, String> variables)
@@ -184,15 +245,24 @@ public abstract class BedrockEmitter
 			return;
 		}
 
-		for (Map.Entry<String, IValue> entry : this.variables.entrySet())
-		{
-			Variable var = this.scheme.parser.variables.get(entry.getKey());
+		VariableContext previous = this.enterState();
 
-			if (var != null)
+		try
+		{
+			for (Map.Entry<String, IValue> entry : this.variables.entrySet())
 			{
-				var.set(entry.getValue().get());
+				Variable var = this.scheme.parser.variables.get(entry.getKey());
+
+				if (var != null)
+				{
+					var.set(entry.getValue().get());
+				}
 			}
 		}
+		finally
+		{
+			VariableContext.exit(previous);
+		}
 	}
 
 	public void start()
@@ -228,18 +298,122 @@ public abstract class BedrockEmitter
 			return;
 		}
 
-		this.setEmitterVariables(0);
+		long updateStart = System.nanoTime();
+		Object event = ParticleEvents.beginTick();
 
-		for (IComponentEmitterUpdate component : this.scheme.emitterUpdates)
+		VariableContext previous = this.enterState();
+
+		try
 		{
-			component.update(this);
+			this.blockCache.clear();
+			this.setEmitterVariables(0);
+
+			int age = this.age;
+			int lifetime = this.lifetime;
+
+			for (IComponentEmitterUpdate component : this.scheme.emitterUpdates)
+			{
+				long start = ParticleProfiler.start();
+
+				component.update(this);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+
+			/* Variables only have to be set again if emitter components changed
+			 * the emitter, or scripts could have changed variables */
+			if (this.age != age || this.lifetime != lifetime || this.scheme.emitterScripts)
+			{
+				this.setEmitterVariables(0);
+			}
+
+			this.updateParticles();
+
+			this.age += 1;
+			this.sanityTicks += 1;
+
+			this.updateAppearance();
+
+			this.watchdog.tick(this);
+		}
+		finally
+		{
+			VariableContext.exit(previous);
+		}
+
+		ParticleMetrics.EMITTER_TICK_NANOS.record(System.nanoTime() - updateStart);
+		ParticleProfiler.record(this.scheme, ParticleProfiler.UPDATE, updateStart, this.particles.size());
+		ParticleEvents.commitTick(event, this.scheme, this.particles.size());
+	}
+
+	/**
+	 * Whether render components have to evaluate given particle's
+	 * appearance while rendering, rather than interpolate values evaluated
+	 * every tick
+	 */
+	public boolean isAppearancePerFrame(BedrockParticle particle)
+	{
+		return this.scheme == null || this.scheme.perFrameAppearance || !particle.appearanceSet;
+	}
+
+	/**
+	 * Evaluate appearance of all particles for the next tick, i.e. at the
+	 * time where rendering with partial ticks of 1 would, so interpolating
+	 * from the previous tick's values matches what rendering would compute
+	 */
+	private void updateAppearance()
+	{
+		if (this.scheme.perFrameAppearance || this.scheme.particleRender.isEmpty() || this.particles.isEmpty())
+		{
+			return;
+		}
+
+		/* Far emitters evaluate appearance only every few ticks at lower
+		 * quality levels, and hold the last evaluated values in between
+		 * (rather than replaying the same interpolation every tick) */
+		int interval = Settings.getQuality().farTickInterval;
+
+		if (interval > 1 && this.age % interval != 0 && this.isFar())
+		{
+			for (BedrockParticle particle : this.particles)
+			{
+				particle.storeAppearance();
+			}
+
+			return;
 		}
 
-		this.setEmitterVariables(0);
-		this.updateParticles();
+		this.setEmitterVariables(1);
 
-		this.age += 1;
-		this.sanityTicks += 1;
+		for (BedrockParticle particle : this.particles)
+		{
+			this.setParticleVariables(particle, 1);
+			particle.storeAppearance();
+
+			for (IComponentParticleRenderBase component : this.scheme.particleRender)
+			{
+				long start = ParticleProfiler.start();
+
+				component.updateAppearance(this, particle);
+				ParticleProfiler.record(this.scheme, component, start, 1);
+			}
+
+			if (!particle.appearanceSet)
+			{
+				particle.storeAppearance();
+				particle.appearanceSet = true;
+			}
+		}
+	}
+
+	/**
+	 * Whether this emitter is further from the camera than
+	 * {@link Settings#getFarEmitterDistance()}
+	 */
+	public boolean isFar()
+	{
+		double distance = Settings.getFarEmitterDistance();
+
+		return this.getDistanceSq() > distance * distance;
 	}
 
 	/**
@@ -249,17 +423,70 @@ public abstract class BedrockEmitter
 	{
 		Iterator<BedrockParticle> it = this.particles.iterator();
 
+		if (this.scheme.blockQueries && this.world != null)
+		{
+			/* Move all particles first, so blocks at their new positions
+			 * can be resolved in one batch before components look them up */
+			for (BedrockParticle particle : this.particles)
+			{
+				particle.update(this);
+				particle.updateBlock(this);
+			}
+
+			this.prefetchBlocks();
+
+			while (it.hasNext())
+			{
+				BedrockParticle particle = it.next();
+
+				this.updateComponents(particle);
+
+				if (particle.dead || this.watchdog.isNonFinite(particle))
+				{
+					it.remove();
+					ParticleMetrics.PARTICLES_DIED.increment();
+				}
+			}
+
+			return;
+		}
+
 		while (it.hasNext())
 		{
 			BedrockParticle particle = it.next();
 
 			this.updateParticle(particle);
 
-			if (particle.dead)
+			if (particle.dead || this.watchdog.isNonFinite(particle))
 			{
 				it.remove();
+				ParticleMetrics.PARTICLES_DIED.increment();
+			}
+		}
+	}
+
+	/**
+	 * Resolve blocks at positions of all particles that crossed a block
+	 * boundary in one world query
+	 */
+	private void prefetchBlocks()
+	{
+		int count = 0;
+
+		if (this.blockKeys.length < this.particles.size())
+		{
+			this.blockKeys = new long[Math.max(this.particles.size(), this.blockKeys.length * 2)];
+		}
+
+		for (BedrockParticle particle : this.particles)
+		{
+			if (particle.blockChanged)
+			{
+				this.blockKeys[count++] = particle.blockKey;
 			}
 		}
+
+		this.blockCache.prefetch(this.world, this.blockKeys, count);
 	}
 
 	/**
@@ -269,25 +496,75 @@ public abstract class BedrockEmitter
 	{
 		particle.update(this);
 
+		if (this.scheme.blockTracking)
+		{
+			particle.updateBlock(this);
+		}
+
+		this.updateComponents(particle);
+	}
+
+	/**
+	 * Apply particle update components to a single particle
+	 */
+	private void updateComponents(BedrockParticle particle)
+	{
+		if (this.scheme.particleKernel != null)
+		{
+			this.scheme.particleKernel.apply(this, particle);
+
+			return;
+		}
+
 		this.setParticleVariables(particle, 0);
 
 		for (IComponentParticleUpdate component : this.scheme.particleUpdates)
 		{
+			long start = ParticleProfiler.start();
+
 			component.update(this, particle);
+			ParticleProfiler.record(this.scheme, component, start, 1);
 		}
 	}
 
+	/**
+	 * Whether particles can be spawned right now, i.e. emitter is running
+	 * and its watchdog doesn't hold it back. Rate components should stop
+	 * spawning once it's false
+	 */
+	public boolean canSpawn()
+	{
+		return this.running && this.watchdog.canSpawn(this);
+	}
+
 	/**
 	 * Spawn a particle
 	 */
 	public void spawnParticle()
 	{
-		if (!this.running)
+		if (!this.canSpawn())
 		{
 			return;
 		}
 
+		this.watchdog.spawned();
+
+		float multiplier = Settings.getQuality().spawnMultiplier;
+
+		if (multiplier < 1)
+		{
+			this.spawnCredit += multiplier;
+
+			if (this.spawnCredit < 1)
+			{
+				return;
+			}
+
+			this.spawnCredit -= 1;
+		}
+
 		this.particles.add(this.createParticle(false));
+		ParticleMetrics.PARTICLES_SPAWNED.increment();
 	}
 
 	/**
@@ -302,7 +579,10 @@ public abstract class BedrockEmitter
 
 		for (IComponentParticleInitialize component : this.scheme.particleInitializes)
 		{
+			long start = ParticleProfiler.start();
+
 			component.apply(this, particle);
+			ParticleProfiler.record(this.scheme, component, start, 1);
 		}
 
 		if (particle.relativePosition && !particle.relativeRotation)
@@ -328,6 +608,28 @@ public abstract class BedrockEmitter
 		return particle;
 	}
 
+	/**
+	 * Get the light of given particle at given (interpolated) position.
+	 * Particle keeps its light for {@link Settings#getLightRefreshInterval()}
+	 * ticks, unless it crosses into another block
+	 */
+	public int getBrightnessForRender(BedrockParticle particle, float partialTicks, double x, double y, double z)
+	{
+		long key = BlockPos.pack((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+		int interval = Settings.getLightRefreshInterval();
+
+		if (interval > 0 && particle.light != -1 && particle.lightKey == key && particle.age - particle.lightAge < interval)
+		{
+			return particle.light;
+		}
+
+		particle.light = this.getBrightnessForRender(partialTicks, x, y, z);
+		particle.lightKey = key;
+		particle.lightAge = particle.age;
+
+		return particle.light;
+	}
+
 	// Rendering stubs
 	public abstract double getDistanceSq();
 	// Cannot add setTarget as it contains Entity
@@ -1,11 +1,20 @@
 package com.eliotlash.particlelib.particles.emitter;
 
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.mcwrapper.BlockCache;
+import com.eliotlash.particlelib.mcwrapper.BlockPos;
+
 import javax.vecmath.Matrix3f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 
 public class BedrockParticle
 {
+	/* Collision states of the current block */
+	public static final byte COLLISION_UNKNOWN = 0;
+	public static final byte COLLISION_EMPTY = 1;
+	public static final byte COLLISION_SOLID = 2;
+
 	/* Randoms */
 	public float random1 = (float) Math.random();
 	public float random2 = (float) Math.random();
@@ -48,6 +57,34 @@ public class BedrockParticle
 	public float b = 1;
 	public float a = 1;
 
+	/* Appearance evaluated once per tick (size, UVs, and the color above),
+	 * previous tick's values are kept for interpolation */
+	public boolean appearanceSet;
+	public float width;
+	public float height;
+	public float prevWidth;
+	public float prevHeight;
+	public float u1;
+	public float v1;
+	public float u2;
+	public float v2;
+	public float prevR = 1;
+	public float prevG = 1;
+	public float prevB = 1;
+	public float prevA = 1;
+
+	/* Block tracking */
+	public long blockKey;
+	public int blockVersion;
+	public int blockCheckAge;
+	public boolean blockChanged;
+	public byte blockCollision = COLLISION_UNKNOWN;
+
+	/* Last looked up light (-1 if none), and where and when it was done */
+	public int light = -1;
+	public long lightKey;
+	public int lightAge;
+
 	private Vector3d global = new Vector3d();
 
 	public BedrockParticle()
@@ -136,6 +173,46 @@ public class BedrockParticle
 		this.age ++;
 	}
 
+	/**
+	 * Update the packed coordinate of the block this particle is in, and
+	 * figure out whether world-dependent checks have to look at it again,
+	 * i.e. it crossed a block boundary, blocks were invalidated, or it
+	 * wasn't checked for a while
+	 */
+	public boolean updateBlock(BedrockEmitter emitter)
+	{
+		Vector3d position = this.getGlobalPosition(emitter);
+		long key = BlockPos.pack((int) Math.floor(position.x), (int) Math.floor(position.y), (int) Math.floor(position.z));
+		int version = BlockCache.getVersion();
+		int interval = Settings.getBlockRecheckInterval();
+
+		this.blockChanged = key != this.blockKey || version != this.blockVersion || this.age - this.blockCheckAge >= interval;
+
+		if (this.blockChanged)
+		{
+			this.blockKey = key;
+			this.blockVersion = version;
+			this.blockCheckAge = this.age;
+			this.blockCollision = COLLISION_UNKNOWN;
+		}
+
+		return this.blockChanged;
+	}
+
+	/**
+	 * Remember current appearance as previous one, before it's evaluated
+	 * for the next tick
+	 */
+	public void storeAppearance()
+	{
+		this.prevWidth = this.width;
+		this.prevHeight = this.height;
+		this.prevR = this.r;
+		this.prevG = this.g;
+		this.prevB = this.b;
+		this.prevA = this.a;
+	}
+
 	public void setupMatrix(BedrockEmitter emitter)
 	{
 		if (this.relativePosition)
@@ -0,0 +1,23 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+import com.eliotlash.mclib.math.VariableContext;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+
+/**
+ * Emitter state
+ *
+ * Values of scheme's variables that belong to one emitter. While an
+ * emitter evaluates scheme's expressions, its state is entered on that
+ * thread (see {@link BedrockEmitter#enterState()}), so expressions read
+ * and write emitter's values instead of the parser's variables. Scheme
+ * itself isn't written to, so many emitters can share one scheme, at
+ * the cost of a double per variable each, and be updated on different
+ * threads.
+ */
+public class EmitterState extends VariableContext
+{
+	public EmitterState(BedrockScheme scheme)
+	{
+		super(scheme.parser);
+	}
+}
@@ -0,0 +1,145 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+import com.eliotlash.particlelib.Settings;
+
+/**
+ * Emitter watchdog
+ *
+ * Guards against schemes that would flood an emitter, i.e. spawn rate or
+ * max particles expressions with huge values, or motion that makes
+ * particle positions NaN or infinite. Spawns per tick and live particles
+ * are clamped to {@link Settings#getMaxSpawnsPerTick()} and
+ * {@link Settings#getMaxEmitterParticles()}, and particles with non-finite
+ * positions are culled. An emitter that keeps hitting the spawn limit or
+ * producing non-finite particles for
+ * {@link Settings#getWatchdogSuspendTicks()} ticks in a row is suspended,
+ * i.e. it doesn't spawn anymore, and only lets its particles die. Hitting
+ * the particle limit is only clamped, since large presets may legitimately
+ * stay at it.
+ *
+ * Every kind of anomaly is reported only once per emitter (see
+ * {@link Settings#setWatchdogListener(IEmitterWatchdogListener)}).
+ */
+public class EmitterWatchdog
+{
+	public enum Anomaly
+	{
+		SPAWN_RATE, PARTICLE_COUNT, NON_FINITE, SUSPENDED
+	}
+
+	private int spawns;
+	private int culled;
+	private boolean spawnLimited;
+	private int strikes;
+	private boolean suspended;
+	private int reported;
+
+	public boolean isSuspended()
+	{
+		return this.suspended;
+	}
+
+	/**
+	 * Whether another particle may be spawned during current tick
+	 */
+	public boolean canSpawn(BedrockEmitter emitter)
+	{
+		if (this.suspended)
+		{
+			return false;
+		}
+
+		if (this.spawns >= Settings.getMaxSpawnsPerTick())
+		{
+			this.spawnLimited = true;
+			this.report(emitter, Anomaly.SPAWN_RATE);
+
+			return false;
+		}
+
+		if (emitter.particles.size() >= Settings.getMaxEmitterParticles())
+		{
+			this.report(emitter, Anomaly.PARTICLE_COUNT);
+
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Count a spawned particle
+	 */
+	public void spawned()
+	{
+		this.spawns += 1;
+	}
+
+	/**
+	 * Check whether given particle's position became NaN or infinite, in
+	 * which case it should be removed
+	 */
+	public boolean isNonFinite(BedrockParticle particle)
+	{
+		if (Double.isFinite(particle.position.x + particle.position.y + particle.position.z))
+		{
+			return false;
+		}
+
+		this.culled += 1;
+
+		return true;
+	}
+
+	/**
+	 * Finish a tick of given emitter, reporting culled particles, and
+	 * suspending the emitter if it was spawning too fast, or producing
+	 * non-finite particles, for too long
+	 */
+	public void tick(BedrockEmitter emitter)
+	{
+		if (this.culled > 0)
+		{
+			this.report(emitter, Anomaly.NON_FINITE);
+		}
+
+		this.strikes = this.spawnLimited || this.culled > 0 ? this.strikes + 1 : 0;
+
+		if (!this.suspended && this.strikes >= Settings.getWatchdogSuspendTicks())
+		{
+			this.suspended = true;
+			this.report(emitter, Anomaly.SUSPENDED);
+		}
+
+		this.spawns = 0;
+		this.culled = 0;
+		this.spawnLimited = false;
+	}
+
+	/**
+	 * Forget everything, e.g. when the emitter gets a new scheme
+	 */
+	public void reset()
+	{
+		this.spawns = this.culled = this.strikes = this.reported = 0;
+		this.spawnLimited = this.suspended = false;
+	}
+
+	private void report(BedrockEmitter emitter, Anomaly anomaly)
+	{
+		int bit = 1 << anomaly.ordinal();
+		IEmitterWatchdogListener listener = Settings.getWatchdogListener();
+
+		if ((this.reported & bit) != 0)
+		{
+			return;
+		}
+
+		this.reported |= bit;
+
+		if (listener != null)
+		{
+			listener.report(emitter.scheme == null ? "" : emitter.scheme.identifier, anomaly, emitter);
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+/**
+ * Listener of emitter anomalies found by {@link EmitterWatchdog}
+ */
+public interface IEmitterWatchdogListener
+{
+	/**
+	 * @param scheme Identifier of emitter's scheme
+	 * @param anomaly What went wrong
+	 * @param emitter Offending emitter
+	 */
+	public void report(String scheme, EmitterWatchdog.Anomaly anomaly, BedrockEmitter emitter);
+}
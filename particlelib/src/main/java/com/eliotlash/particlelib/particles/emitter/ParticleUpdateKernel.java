@@ -0,0 +1,158 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+import com.eliotlash.molang.expressions.MolangExpression;
+import com.eliotlash.particlelib.particles.components.IComponentParticleUpdate;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentKillPlane;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentParticleLifetime;
+import com.eliotlash.particlelib.particles.components.motion.BedrockComponentMotionDynamic;
+import com.eliotlash.particlelib.particles.components.motion.BedrockComponentMotionParametric;
+import com.eliotlash.particlelib.profiler.ParticleProfiler;
+
+import java.util.List;
+
+/**
+ * Particle update kernel
+ *
+ * Scheme's particle update components assembled into one routine (see
+ * {@link #create(List)}). Built-in components (dynamic and parametric
+ * motion, lifetime expression and kill plane) are run, in the same order
+ * as the components, through the final methods their update() calls,
+ * so the kernel doesn't go through interface dispatch, and computes
+ * exactly the same thing. Other components are still called through
+ * {@link IComponentParticleUpdate}. Kernel doesn't have any state of its
+ * own, so it can be used by several emitters at once.
+ *
+ * Particle variables are only set before the steps if some step might
+ * read them, i.e. there is a custom component or a non-constant
+ * expression.
+ */
+public class ParticleUpdateKernel
+{
+	private static final byte GENERIC = 0;
+	private static final byte DYNAMIC = 1;
+	private static final byte PARAMETRIC = 2;
+	private static final byte LIFETIME = 3;
+	private static final byte KILL_PLANE = 4;
+
+	private final byte[] steps;
+	private final IComponentParticleUpdate[] components;
+	private final boolean variables;
+
+	/**
+	 * Assemble a kernel from given (sorted) particle update components
+	 */
+	public static ParticleUpdateKernel create(List<IComponentParticleUpdate> components)
+	{
+		byte[] steps = new byte[components.size()];
+		boolean variables = false;
+
+		for (int i = 0; i < steps.length; i++)
+		{
+			IComponentParticleUpdate component = components.get(i);
+			Class<?> clazz = component.getClass();
+
+			/* Subclasses may override update(), so only exact classes get
+			 * specialized steps */
+			if (clazz == BedrockComponentMotionDynamic.class)
+			{
+				BedrockComponentMotionDynamic dynamic = (BedrockComponentMotionDynamic) component;
+
+				steps[i] = DYNAMIC;
+				variables |= !isConstant(dynamic.motionAcceleration) || !isConstant(dynamic.motionDrag, dynamic.rotationAcceleration, dynamic.rotationDrag);
+			}
+			else if (clazz == BedrockComponentMotionParametric.class)
+			{
+				BedrockComponentMotionParametric parametric = (BedrockComponentMotionParametric) component;
+
+				steps[i] = PARAMETRIC;
+				variables |= !isConstant(parametric.position) || !isConstant(parametric.rotation);
+			}
+			else if (clazz == BedrockComponentParticleLifetime.class)
+			{
+				BedrockComponentParticleLifetime lifetime = (BedrockComponentParticleLifetime) component;
+
+				steps[i] = LIFETIME;
+				variables |= !lifetime.max && !isConstant(lifetime.expression);
+			}
+			else if (clazz == BedrockComponentKillPlane.class)
+			{
+				steps[i] = KILL_PLANE;
+			}
+			else
+			{
+				steps[i] = GENERIC;
+				variables = true;
+			}
+		}
+
+		return new ParticleUpdateKernel(steps, components.toArray(new IComponentParticleUpdate[steps.length]), variables);
+	}
+
+	private static boolean isConstant(MolangExpression... expressions)
+	{
+		for (MolangExpression expression : expressions)
+		{
+			if (!MolangExpression.isExpressionConstant(expression))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private ParticleUpdateKernel(byte[] steps, IComponentParticleUpdate[] components, boolean variables)
+	{
+		this.steps = steps;
+		this.components = components;
+		this.variables = variables;
+	}
+
+	/**
+	 * Whether particle variables have to be set before the steps
+	 */
+	public boolean needsVariables()
+	{
+		return this.variables;
+	}
+
+	/**
+	 * Apply all update components to given particle
+	 */
+	public void apply(BedrockEmitter emitter, BedrockParticle particle)
+	{
+		if (this.variables)
+		{
+			emitter.setParticleVariables(particle, 0);
+		}
+
+		for (int i = 0; i < this.steps.length; i++)
+		{
+			long start = ParticleProfiler.start();
+
+			switch (this.steps[i])
+			{
+				case DYNAMIC:
+					((BedrockComponentMotionDynamic) this.components[i]).accelerate(particle);
+					break;
+
+				case PARAMETRIC:
+					((BedrockComponentMotionParametric) this.components[i]).move(particle);
+					break;
+
+				case LIFETIME:
+					((BedrockComponentParticleLifetime) this.components[i]).checkExpiration(particle);
+					break;
+
+				case KILL_PLANE:
+					((BedrockComponentKillPlane) this.components[i]).checkCrossing(emitter, particle);
+					break;
+
+				default:
+					this.components[i].update(emitter, particle);
+			}
+
+			ParticleProfiler.record(emitter.scheme, this.components[i], start, 1);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.eliotlash.particlelib.particles.render;
+
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+
+/**
+ * Atlas region
+ *
+ * Place of a texture within a {@link TextureAtlas} page, in pixels
+ */
+public class AtlasRegion
+{
+	public final ResourceLocation texture;
+	public final TextureAtlas.Page page;
+	public final int x;
+	public final int y;
+	public final int width;
+	public final int height;
+
+	public AtlasRegion(ResourceLocation texture, TextureAtlas.Page page, int x, int y, int width, int height)
+	{
+		this.texture = texture;
+		this.page = page;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Map U coordinate of the original texture (0..1) into the page
+	 */
+	public float getU(float u)
+	{
+		return (this.x + u * this.width) / (float) this.page.width;
+	}
+
+	/**
+	 * Map V coordinate of the original texture (0..1) into the page
+	 */
+	public float getV(float v)
+	{
+		return (this.y + v * this.height) / (float) this.page.height;
+	}
+}
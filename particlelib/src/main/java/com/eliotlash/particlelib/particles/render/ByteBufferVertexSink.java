@@ -0,0 +1,119 @@
+package com.eliotlash.particlelib.particles.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Byte buffer vertex sink
+ *
+ * Writes quads into a direct byte buffer in the same layout as Minecraft's
+ * POSITION_TEX_LMAP_COLOR vertex format (3 floats of position, 2 floats of
+ * texture coordinates, 2 shorts of light map coordinates and 4 bytes of
+ * color, 28 bytes per vertex). Every quad is packed into a scratch buffer
+ * first, and then gets copied with a single bulk put.
+ */
+public class ByteBufferVertexSink implements IParticleVertexSink
+{
+	public static final int VERTEX_SIZE = 28;
+	public static final int QUAD_SIZE = VERTEX_SIZE * 4;
+
+	private ByteBuffer buffer;
+	private ByteBuffer quad = ByteBuffer.allocate(QUAD_SIZE).order(ByteOrder.nativeOrder());
+
+	/* Translation applied to positions (like BufferBuilder.setTranslation) */
+	private double offsetX;
+	private double offsetY;
+	private double offsetZ;
+
+	public ByteBufferVertexSink()
+	{
+		this(QUAD_SIZE * 256);
+	}
+
+	public ByteBufferVertexSink(int capacity)
+	{
+		this.buffer = ByteBuffer.allocateDirect(Math.max(capacity, QUAD_SIZE)).order(ByteOrder.nativeOrder());
+	}
+
+	public void setOffset(double x, double y, double z)
+	{
+		this.offsetX = x;
+		this.offsetY = y;
+		this.offsetZ = z;
+	}
+
+	/**
+	 * Forget all written vertices (the memory gets reused)
+	 */
+	public void reset()
+	{
+		this.buffer.clear();
+	}
+
+	public int getVertexCount()
+	{
+		return this.buffer.position() / VERTEX_SIZE;
+	}
+
+	/**
+	 * Get written vertices, returned buffer is a flipped view of the
+	 * data, so it's only valid until next write
+	 */
+	public ByteBuffer getBuffer()
+	{
+		ByteBuffer buffer = this.buffer.duplicate().order(ByteOrder.nativeOrder());
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	@Override
+	public void quad(float[] positions, float u1, float v1, float u2, float v2, int light, float r, float g, float b, float a)
+	{
+		short sky = (short) (light >> 16 & 65535);
+		short block = (short) (light & 65535);
+		int color = (int) (r * 255) & 255 | ((int) (g * 255) & 255) << 8 | ((int) (b * 255) & 255) << 16 | ((int) (a * 255) & 255) << 24;
+
+		if (this.quad.order() == ByteOrder.BIG_ENDIAN)
+		{
+			color = Integer.reverseBytes(color);
+		}
+
+		this.quad.clear();
+		this.vertex(positions, 0, u1, v1, block, sky, color);
+		this.vertex(positions, 3, u2, v1, block, sky, color);
+		this.vertex(positions, 6, u2, v2, block, sky, color);
+		this.vertex(positions, 9, u1, v2, block, sky, color);
+		this.quad.flip();
+
+		this.ensureCapacity(QUAD_SIZE);
+		this.buffer.put(this.quad);
+	}
+
+	private void vertex(float[] positions, int offset, float u, float v, short block, short sky, int color)
+	{
+		this.quad.putFloat((float) (positions[offset] + this.offsetX));
+		this.quad.putFloat((float) (positions[offset + 1] + this.offsetY));
+		this.quad.putFloat((float) (positions[offset + 2] + this.offsetZ));
+		this.quad.putFloat(u);
+		this.quad.putFloat(v);
+		this.quad.putShort(block);
+		this.quad.putShort(sky);
+		this.quad.putInt(color);
+	}
+
+	private void ensureCapacity(int bytes)
+	{
+		if (this.buffer.remaining() >= bytes)
+		{
+			return;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes)).order(ByteOrder.nativeOrder());
+
+		this.buffer.flip();
+		buffer.put(this.buffer);
+		this.buffer = buffer;
+	}
+}
@@ -0,0 +1,21 @@
+package com.eliotlash.particlelib.particles.render;
+
+/**
+ * Particle vertex sink
+ *
+ * Receives geometry generated by particle render components, so it could
+ * be written into whatever vertex buffer the renderer uses (or nowhere at
+ * all)
+ */
+public interface IParticleVertexSink
+{
+	/**
+	 * Add a textured quad
+	 *
+	 * @param positions X, Y and Z of four corners (at least 12 floats), in
+	 *                  the order in which they should be output
+	 * @param light Packed light coordinates (sky light in upper 16 bits, block
+	 *              light in lower 16 bits), same as Minecraft's combined light
+	 */
+	public void quad(float[] positions, float u1, float v1, float u2, float v2, int light, float r, float g, float b, float a);
+}
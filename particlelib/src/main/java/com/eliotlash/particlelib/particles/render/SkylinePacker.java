@@ -0,0 +1,170 @@
+package com.eliotlash.particlelib.particles.render;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Skyline packer
+ *
+ * Packs rectangles into a fixed size area using the skyline bottom-left
+ * heuristic: the top edge of placed rectangles is kept as a list of
+ * horizontal segments, and every new rectangle goes where its top ends up
+ * the lowest. Works best when rectangles are inserted tallest first.
+ */
+public class SkylinePacker
+{
+	public final int width;
+	public final int height;
+
+	/**
+	 * Segments of the skyline ({x, y, width}), sorted by X and covering
+	 * the whole width
+	 */
+	private List<int[]> skyline = new ArrayList<int[]>();
+
+	/* Used area */
+	private int usedWidth;
+	private int usedHeight;
+
+	public SkylinePacker(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		this.skyline.add(new int[] {0, 0, width});
+	}
+
+	public int getUsedWidth()
+	{
+		return this.usedWidth;
+	}
+
+	public int getUsedHeight()
+	{
+		return this.usedHeight;
+	}
+
+	/**
+	 * Find a place for a rectangle of given size and reserve it
+	 *
+	 * @return {x, y} of rectangle's top left corner, or null if it doesn't
+	 *         fit anymore
+	 */
+	public int[] insert(int w, int h)
+	{
+		if (w <= 0 || h <= 0 || w > this.width || h > this.height)
+		{
+			return null;
+		}
+
+		int bestIndex = -1;
+		int bestX = 0;
+		int bestY = Integer.MAX_VALUE;
+
+		for (int i = 0; i < this.skyline.size(); i++)
+		{
+			int y = this.fit(i, w, h);
+
+			if (y >= 0 && y < bestY)
+			{
+				bestIndex = i;
+				bestX = this.skyline.get(i)[0];
+				bestY = y;
+			}
+		}
+
+		if (bestIndex < 0)
+		{
+			return null;
+		}
+
+		this.place(bestIndex, bestX, bestY + h, w);
+		this.usedWidth = Math.max(this.usedWidth, bestX + w);
+		this.usedHeight = Math.max(this.usedHeight, bestY + h);
+
+		return new int[] {bestX, bestY};
+	}
+
+	/**
+	 * Y at which a rectangle would rest if its left edge was at the start
+	 * of given segment, or -1 if it doesn't fit there
+	 */
+	private int fit(int index, int w, int h)
+	{
+		int x = this.skyline.get(index)[0];
+
+		if (x + w > this.width)
+		{
+			return -1;
+		}
+
+		int y = 0;
+		int left = w;
+
+		for (int i = index; left > 0; i++)
+		{
+			int[] segment = this.skyline.get(i);
+
+			y = Math.max(y, segment[1]);
+
+			if (y + h > this.height)
+			{
+				return -1;
+			}
+
+			left -= segment[2];
+		}
+
+		return y;
+	}
+
+	/**
+	 * Add a new segment at given segment index, shrinking or removing the
+	 * segments it covers, and merge neighbours of the same height
+	 */
+	private void place(int index, int x, int y, int w)
+	{
+		this.skyline.add(index, new int[] {x, y, w});
+
+		int end = x + w;
+
+		for (int i = index + 1; i < this.skyline.size();)
+		{
+			int[] segment = this.skyline.get(i);
+
+			if (segment[0] >= end)
+			{
+				break;
+			}
+
+			int segmentEnd = segment[0] + segment[2];
+
+			if (segmentEnd <= end)
+			{
+				this.skyline.remove(i);
+			}
+			else
+			{
+				segment[2] = segmentEnd - end;
+				segment[0] = end;
+
+				break;
+			}
+		}
+
+		for (int i = 0; i < this.skyline.size() - 1;)
+		{
+			int[] a = this.skyline.get(i);
+			int[] b = this.skyline.get(i + 1);
+
+			if (a[1] == b[1])
+			{
+				a[2] += b[2];
+				this.skyline.remove(i + 1);
+			}
+			else
+			{
+				i++;
+			}
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package com.eliotlash.particlelib.particles.render;
+
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.components.appearance.BedrockComponentAppearanceBillboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Texture atlas
+ *
+ * Packs textures of particle schemes into one or a few atlas pages, so
+ * emitters of different schemes could be drawn with the same texture. This
+ * class only decides where textures go and remaps schemes' UVs, copying
+ * the pixels and uploading pages is up to the renderer.
+ *
+ * Usage: {@link #add} every texture (with its size in pixels), {@link #pack},
+ * then {@link #apply} the atlas to the schemes.
+ */
+public class TextureAtlas
+{
+	/**
+	 * Location of atlas pages, page's index gets appended to its path
+	 */
+	public final ResourceLocation location;
+	public final int maxSize;
+
+	/**
+	 * Transparent gap around every texture, so neighbours don't bleed
+	 * into each other
+	 */
+	public final int padding;
+
+	private Map<ResourceLocation, int[]> textures = new LinkedHashMap<ResourceLocation, int[]>();
+	private Map<ResourceLocation, AtlasRegion> regions = new HashMap<ResourceLocation, AtlasRegion>();
+	private List<Page> pages = new ArrayList<Page>();
+
+	/**
+	 * Whether given scheme's texture can be put into an atlas. Only
+	 * billboards with UVs that stay within their texture can, since the
+	 * texture can't be repeated anymore once it's in an atlas. Animated
+	 * (GIF) textures are left alone too
+	 */
+	public static boolean canPack(BedrockScheme scheme)
+	{
+		if (scheme.texture == null || scheme.texture.path.endsWith(".gif"))
+		{
+			return false;
+		}
+
+		BedrockComponentAppearanceBillboard billboard = scheme.get(BedrockComponentAppearanceBillboard.class);
+
+		return billboard != null && billboard.hasBoundedUVs();
+	}
+
+	public TextureAtlas(ResourceLocation location, int maxSize, int padding)
+	{
+		this.location = location;
+		this.maxSize = maxSize;
+		this.padding = padding;
+	}
+
+	public void add(ResourceLocation texture, int width, int height)
+	{
+		this.textures.put(texture, new int[] {width, height});
+	}
+
+	public AtlasRegion getRegion(ResourceLocation texture)
+	{
+		return this.regions.get(texture);
+	}
+
+	public List<Page> getPages()
+	{
+		return Collections.unmodifiableList(this.pages);
+	}
+
+	/**
+	 * Pack added textures into pages. Textures that are too big to fit
+	 * into a page are left out. Pages are shrunk to the smallest power of
+	 * two that covers everything that was packed into them
+	 */
+	public void pack()
+	{
+		this.regions.clear();
+		this.pages.clear();
+
+		List<Map.Entry<ResourceLocation, int[]>> sorted = new ArrayList<Map.Entry<ResourceLocation, int[]>>(this.textures.entrySet());
+
+		/* Tallest first, then widest */
+		sorted.sort((a, b) ->
+		{
+			int result = Integer.compare(b.getValue()[1], a.getValue()[1]);
+
+			return result != 0 ? result : Integer.compare(b.getValue()[0], a.getValue()[0]);
+		});
+
+		for (Map.Entry<ResourceLocation, int[]> entry : sorted)
+		{
+			int w = entry.getValue()[0];
+			int h = entry.getValue()[1];
+			int pw = w + this.padding * 2;
+			int ph = h + this.padding * 2;
+
+			if (w <= 0 || h <= 0 || pw > this.maxSize || ph > this.maxSize)
+			{
+				continue;
+			}
+
+			int[] position = null;
+			Page page = null;
+
+			for (Page existing : this.pages)
+			{
+				position = existing.packer.insert(pw, ph);
+
+				if (position != null)
+				{
+					page = existing;
+
+					break;
+				}
+			}
+
+			if (position == null)
+			{
+				int index = this.pages.size();
+
+				page = new Page(index, new ResourceLocation(this.location.namespace, this.location.path + "_" + index), new SkylinePacker(this.maxSize, this.maxSize));
+				position = page.packer.insert(pw, ph);
+				this.pages.add(page);
+			}
+
+			AtlasRegion region = new AtlasRegion(entry.getKey(), page, position[0] + this.padding, position[1] + this.padding, w, h);
+
+			page.regions.add(region);
+			this.regions.put(entry.getKey(), region);
+		}
+
+		for (Page page : this.pages)
+		{
+			page.width = nextPowerOfTwo(page.packer.getUsedWidth());
+			page.height = nextPowerOfTwo(page.packer.getUsedHeight());
+		}
+	}
+
+	/**
+	 * Remap scheme's billboard into its texture's region (or back to its
+	 * own texture, if it wasn't packed)
+	 *
+	 * @return whether the scheme now renders from the atlas
+	 */
+	public boolean apply(BedrockScheme scheme)
+	{
+		AtlasRegion region = canPack(scheme) ? this.regions.get(scheme.texture) : null;
+		BedrockComponentAppearanceBillboard billboard = scheme.get(BedrockComponentAppearanceBillboard.class);
+
+		if (billboard != null)
+		{
+			billboard.setAtlasRegion(region);
+		}
+
+		scheme.atlas = region;
+
+		return region != null;
+	}
+
+	private static int nextPowerOfTwo(int x)
+	{
+		int power = 1;
+
+		while (power < x)
+		{
+			power <<= 1;
+		}
+
+		return power;
+	}
+
+	public static class Page
+	{
+		public final int index;
+		public final ResourceLocation location;
+		public final List<AtlasRegion> regions = new ArrayList<AtlasRegion>();
+		public int width;
+		public int height;
+
+		private final SkylinePacker packer;
+
+		public Page(int index, ResourceLocation location, SkylinePacker packer)
+		{
+			this.index = index;
+			this.location = location;
+			this.packer = packer;
+		}
+	}
+}
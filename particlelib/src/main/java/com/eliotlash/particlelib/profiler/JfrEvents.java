@@ -0,0 +1,262 @@
+package com.eliotlash.particlelib.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR events of the particle system, only loaded through
+ * {@link ParticleEvents} when JFR is available. Events cost nothing
+ * unless a recording enables them: whether any recording is running is
+ * tracked by a recorder listener, and event types are checked before
+ * any event gets created. Emitter tick and render events
+ * happen for every emitter every tick or frame, so by default only ones
+ * longer than a millisecond are recorded (lower their thresholds in the
+ * recording's settings to see all of them)
+ */
+class JfrEvents
+{
+	private static volatile boolean recording;
+
+	static
+	{
+		FlightRecorder.addListener(new FlightRecorderListener()
+		{
+			@Override
+			public void recordingStateChanged(Recording changed)
+			{
+				recording = findRunning();
+			}
+		});
+
+		recording = findRunning();
+	}
+
+	private static boolean findRunning()
+	{
+		if (!FlightRecorder.isInitialized())
+		{
+			return false;
+		}
+
+		for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings())
+		{
+			if (recording.getState() == RecordingState.RUNNING)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Whether any recording is running
+	 */
+	static boolean isRecording()
+	{
+		return recording;
+	}
+
+	private static boolean isEnabled(EventType type)
+	{
+		return recording && type.isEnabled();
+	}
+
+	static Object beginTick()
+	{
+		return isEnabled(Types.TICK) ? begin(new EmitterTick()) : null;
+	}
+
+	static Object beginRender()
+	{
+		return isEnabled(Types.RENDER) ? begin(new EmitterRender()) : null;
+	}
+
+	static Object beginLoad()
+	{
+		return isEnabled(Types.LOAD) ? begin(new SchemeLoad()) : null;
+	}
+
+	private static Object begin(Event event)
+	{
+		event.begin();
+
+		return event;
+	}
+
+	static void commitTick(Object object, String scheme, int particles)
+	{
+		EmitterTick event = (EmitterTick) object;
+
+		event.end();
+
+		if (event.shouldCommit())
+		{
+			event.scheme = scheme;
+			event.particles = particles;
+			event.commit();
+		}
+	}
+
+	static void commitRender(Object object, String scheme, int particles)
+	{
+		EmitterRender event = (EmitterRender) object;
+
+		event.end();
+
+		if (event.shouldCommit())
+		{
+			event.scheme = scheme;
+			event.particles = particles;
+			event.commit();
+		}
+	}
+
+	static void commitLoad(Object object, String file, long bytes, String scheme)
+	{
+		SchemeLoad event = (SchemeLoad) object;
+
+		event.end();
+
+		if (event.shouldCommit())
+		{
+			event.file = file;
+			event.bytes = bytes;
+			event.scheme = scheme;
+			event.success = scheme != null;
+			event.commit();
+		}
+	}
+
+	static void burst(String scheme, int particles)
+	{
+		if (!isEnabled(Types.BURST))
+		{
+			return;
+		}
+
+		ParticleBurst event = new ParticleBurst();
+
+		if (event.shouldCommit())
+		{
+			event.scheme = scheme;
+			event.particles = particles;
+			event.commit();
+		}
+	}
+
+	static void throttle(String scheme, String decision, double value)
+	{
+		if (!isEnabled(Types.THROTTLE))
+		{
+			return;
+		}
+
+		Throttle event = new Throttle();
+
+		if (event.shouldCommit())
+		{
+			event.scheme = scheme;
+			event.decision = decision;
+			event.value = value;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Event types, looked up the first time something records
+	 */
+	private static class Types
+	{
+		static final EventType TICK = EventType.getEventType(EmitterTick.class);
+		static final EventType RENDER = EventType.getEventType(EmitterRender.class);
+		static final EventType LOAD = EventType.getEventType(SchemeLoad.class);
+		static final EventType BURST = EventType.getEventType(ParticleBurst.class);
+		static final EventType THROTTLE = EventType.getEventType(Throttle.class);
+	}
+
+	@Name("particlelib.EmitterTick")
+	@Label("Emitter Tick")
+	@Category({"ParticleLib", "Emitters"})
+	@Threshold("1 ms")
+	static class EmitterTick extends Event
+	{
+		@Label("Scheme")
+		String scheme;
+
+		@Label("Particles")
+		int particles;
+	}
+
+	@Name("particlelib.EmitterRender")
+	@Label("Emitter Render")
+	@Category({"ParticleLib", "Emitters"})
+	@Threshold("1 ms")
+	static class EmitterRender extends Event
+	{
+		@Label("Scheme")
+		String scheme;
+
+		@Label("Particles")
+		int particles;
+	}
+
+	@Name("particlelib.SchemeLoad")
+	@Label("Scheme Load")
+	@Description("Reading and parsing of a particle scheme")
+	@Category({"ParticleLib", "Schemes"})
+	static class SchemeLoad extends Event
+	{
+		@Label("File")
+		String file;
+
+		@Label("Size")
+		@DataAmount
+		long bytes;
+
+		@Label("Scheme")
+		String scheme;
+
+		@Label("Success")
+		boolean success;
+	}
+
+	@Name("particlelib.ParticleBurst")
+	@Label("Particle Burst")
+	@Description("Many particles spawned at once")
+	@Category({"ParticleLib", "Emitters"})
+	static class ParticleBurst extends Event
+	{
+		@Label("Scheme")
+		String scheme;
+
+		@Label("Particles")
+		int particles;
+	}
+
+	@Name("particlelib.Throttle")
+	@Label("Throttle")
+	@Description("Decision to render or simulate less (or more again)")
+	@Category({"ParticleLib", "Budget"})
+	static class Throttle extends Event
+	{
+		@Label("Scheme")
+		String scheme;
+
+		@Label("Decision")
+		String decision;
+
+		@Label("Value")
+		double value;
+	}
+}
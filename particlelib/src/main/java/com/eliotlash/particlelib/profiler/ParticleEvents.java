@@ -0,0 +1,112 @@
+package com.eliotlash.particlelib.profiler;
+
+import com.eliotlash.particlelib.particles.BedrockScheme;
+
+/**
+ * Particle events
+ *
+ * Facade of Java Flight Recorder events of the particle system (see
+ * {@link JfrEvents} for the events themselves). Older Java 8 runtimes
+ * don't have JFR's event API, so event classes are only touched once
+ * it's known to be there, otherwise all methods do nothing.
+ *
+ * Sections are reported like this, where begin methods return null
+ * unless some recording has the event enabled:
+ *
+ * <pre>
+ * Object event = ParticleEvents.beginTick();
+ *
+ * ...
+ * ParticleEvents.commitTick(event, scheme, particles);
+ * </pre>
+ */
+public class ParticleEvents
+{
+	public static final boolean AVAILABLE = isAvailable();
+
+	private static boolean isAvailable()
+	{
+		try
+		{
+			Class.forName("jdk.jfr.Event");
+
+			return true;
+		}
+		catch (Throwable e)
+		{
+			return false;
+		}
+	}
+
+	private static String identifier(BedrockScheme scheme)
+	{
+		return scheme == null ? "" : scheme.identifier;
+	}
+
+	public static Object beginTick()
+	{
+		return AVAILABLE ? JfrEvents.beginTick() : null;
+	}
+
+	public static void commitTick(Object event, BedrockScheme scheme, int particles)
+	{
+		if (event != null)
+		{
+			JfrEvents.commitTick(event, identifier(scheme), particles);
+		}
+	}
+
+	public static Object beginRender()
+	{
+		return AVAILABLE ? JfrEvents.beginRender() : null;
+	}
+
+	public static void commitRender(Object event, BedrockScheme scheme, int particles)
+	{
+		if (event != null)
+		{
+			JfrEvents.commitRender(event, identifier(scheme), particles);
+		}
+	}
+
+	public static Object beginLoad()
+	{
+		return AVAILABLE ? JfrEvents.beginLoad() : null;
+	}
+
+	/**
+	 * @param scheme Loaded scheme, or null if it failed to load
+	 */
+	public static void commitLoad(Object event, String file, long bytes, BedrockScheme scheme)
+	{
+		if (event != null)
+		{
+			JfrEvents.commitLoad(event, file, bytes, scheme == null ? null : scheme.identifier);
+		}
+	}
+
+	/**
+	 * Report a burst of particles spawned at once
+	 */
+	public static void burst(BedrockScheme scheme, int particles)
+	{
+		if (AVAILABLE)
+		{
+			JfrEvents.burst(identifier(scheme), particles);
+		}
+	}
+
+	/**
+	 * Report a decision to render or simulate less (or more again)
+	 *
+	 * @param decision What was decided, e.g. new quality level
+	 * @param value The measurement the decision was based on
+	 */
+	public static void throttle(BedrockScheme scheme, String decision, double value)
+	{
+		if (AVAILABLE)
+		{
+			JfrEvents.throttle(identifier(scheme), decision, value);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.eliotlash.particlelib.profiler;
+
+import com.eliotlash.particlelib.particles.BedrockScheme;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Particle profiler
+ *
+ * Records time, calls and processed particles of emitters' update and
+ * render passes and of every component invocation, per scheme identifier.
+ * It's switched on with the {@value #PROPERTY} system property, when it's
+ * off {@link #start()} and {@link #record} do nothing, and since
+ * {@link #ENABLED} is a static final constant, JIT removes their calls
+ * altogether.
+ *
+ * Usage around a profiled section:
+ *
+ * <pre>
+ * long start = ParticleProfiler.start();
+ *
+ * component.update(emitter);
+ * ParticleProfiler.record(scheme, component, start, 0);
+ * </pre>
+ */
+public class ParticleProfiler
+{
+	public static final String PROPERTY = "particlelib.profiler";
+	public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+	/* Sections which aren't components */
+	public static final String UPDATE = "emitter.update";
+	public static final String RENDER = "emitter.render";
+	public static final String SORT = "emitter.sort";
+
+	/* Counters by scheme identifier and section (component class or name) */
+	private static final Map<String, Map<Object, Counter>> counters = new ConcurrentHashMap<String, Map<Object, Counter>>();
+
+	public static long start()
+	{
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record a section of given scheme which started at given time
+	 * (from {@link #start()}). Components are recorded by their class
+	 *
+	 * @param section Component or section name
+	 * @param particles Amount of particles processed by the section
+	 */
+	public static void record(BedrockScheme scheme, Object section, long start, int particles)
+	{
+		if (!ENABLED)
+		{
+			return;
+		}
+
+		long nanos = System.nanoTime() - start;
+		Object key = section instanceof String ? section : section.getClass();
+		String identifier = scheme == null ? "" : scheme.identifier;
+
+		counters.computeIfAbsent(identifier, (k) -> new ConcurrentHashMap<Object, Counter>())
+			.computeIfAbsent(key, (k) -> new Counter())
+			.add(nanos, particles);
+	}
+
+	public static void reset()
+	{
+		counters.clear();
+	}
+
+	/**
+	 * Get recorded statistics, by scheme identifier and then by section
+	 * name (simple class name for components)
+	 */
+	public static Map<String, Map<String, Stats>> snapshot()
+	{
+		Map<String, Map<String, Stats>> snapshot = new HashMap<String, Map<String, Stats>>();
+
+		for (Map.Entry<String, Map<Object, Counter>> scheme : counters.entrySet())
+		{
+			Map<String, Stats> sections = new HashMap<String, Stats>();
+
+			for (Map.Entry<Object, Counter> entry : scheme.getValue().entrySet())
+			{
+				Object key = entry.getKey();
+				String name = key instanceof Class ? ((Class<?>) key).getSimpleName() : key.toString();
+				Counter counter = entry.getValue();
+
+				sections.merge(name, new Stats(counter.nanos.sum(), counter.calls.sum(), counter.particles.sum()), Stats::add);
+			}
+
+			snapshot.put(scheme.getKey(), Collections.unmodifiableMap(sections));
+		}
+
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	private static class Counter
+	{
+		public final LongAdder nanos = new LongAdder();
+		public final LongAdder calls = new LongAdder();
+		public final LongAdder particles = new LongAdder();
+
+		public void add(long nanos, int particles)
+		{
+			this.nanos.add(nanos);
+			this.calls.increment();
+
+			if (particles != 0)
+			{
+				this.particles.add(particles);
+			}
+		}
+	}
+
+	/**
+	 * Statistics of one profiled section
+	 */
+	public static class Stats
+	{
+		public final long nanos;
+		public final long calls;
+		public final long particles;
+
+		public Stats(long nanos, long calls, long particles)
+		{
+			this.nanos = nanos;
+			this.calls = calls;
+			this.particles = particles;
+		}
+
+		public Stats add(Stats stats)
+		{
+			return new Stats(this.nanos + stats.nanos, this.calls + stats.calls, this.particles + stats.particles);
+		}
+
+		public double getNanosPerCall()
+		{
+			return this.calls == 0 ? 0 : this.nanos / (double) this.calls;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.nanos + " ns, " + this.calls + " calls, " + this.particles + " particles";
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.eliotlash.particlelib.quality;
+
+/**
+ * Hysteresis quality policy
+ *
+ * Smooths frame times with an exponential moving average, and lowers
+ * quality by one level once the average stays over the budget for
+ * {@link #degradeFrames} frames in a row. Quality only goes back up once
+ * the average stays under {@link #recoverRatio} of the budget for (many
+ * more) {@link #recoverFrames} frames, so a level that barely fits the
+ * budget isn't toggled back and forth.
+ */
+public class HysteresisQualityPolicy implements IQualityPolicy
+{
+	public double smoothing = 0.2;
+	public int degradeFrames = 10;
+	public int recoverFrames = 120;
+	public double recoverRatio = 0.6;
+
+	private double average = -1;
+	private int over;
+	private int under;
+
+	public HysteresisQualityPolicy()
+	{}
+
+	public HysteresisQualityPolicy(int degradeFrames, int recoverFrames, double recoverRatio)
+	{
+		this.degradeFrames = degradeFrames;
+		this.recoverFrames = recoverFrames;
+		this.recoverRatio = recoverRatio;
+	}
+
+	public double getAverage()
+	{
+		return Math.max(this.average, 0);
+	}
+
+	@Override
+	public int decide(int level, int levels, double frameMillis, double budgetMillis)
+	{
+		this.average = this.average < 0 ? frameMillis : this.average + (frameMillis - this.average) * this.smoothing;
+
+		if (this.average > budgetMillis)
+		{
+			this.over += 1;
+			this.under = 0;
+		}
+		else if (this.average < budgetMillis * this.recoverRatio)
+		{
+			this.under += 1;
+			this.over = 0;
+		}
+		else
+		{
+			this.over = this.under = 0;
+		}
+
+		if (this.over >= this.degradeFrames && level < levels - 1)
+		{
+			this.over = 0;
+
+			return level + 1;
+		}
+
+		if (this.under >= this.recoverFrames && level > 0)
+		{
+			this.under = 0;
+
+			return level - 1;
+		}
+
+		return level;
+	}
+
+	@Override
+	public void reset()
+	{
+		this.average = -1;
+		this.over = this.under = 0;
+	}
+}
@@ -0,0 +1,25 @@
+package com.eliotlash.particlelib.quality;
+
+/**
+ * Quality policy
+ *
+ * Decides which quality level should be used from measured particle
+ * frame times. Policies are stateful (they see every frame in order), so
+ * one instance belongs to one governor.
+ */
+public interface IQualityPolicy
+{
+	/**
+	 * @param level Current level index, 0 being full quality
+	 * @param levels Count of levels, so the cheapest one is levels - 1
+	 * @param frameMillis Time spent on particles in last frame
+	 * @param budgetMillis Time that may be spent on particles per frame
+	 * @return New level index
+	 */
+	public int decide(int level, int levels, double frameMillis, double budgetMillis);
+
+	/**
+	 * Forget what was measured so far
+	 */
+	public void reset();
+}
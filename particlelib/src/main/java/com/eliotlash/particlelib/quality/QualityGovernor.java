@@ -0,0 +1,129 @@
+package com.eliotlash.particlelib.quality;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quality governor
+ *
+ * Keeps time spent on particles within a frame budget. Whoever updates
+ * and renders emitters reports how long it took, through
+ * {@link #addUpdate(long)} every tick and {@link #frame(long)} every
+ * frame. The governor then asks its policy for a quality level, and
+ * applies it through {@link Settings#setQuality(QualityLevel)}.
+ *
+ * A budget of 0 or less disables the governor, and restores full
+ * quality. Timings are plain numbers, so policies can be tested (or
+ * tuned) with synthetic frames.
+ */
+public class QualityGovernor
+{
+	private final List<QualityLevel> levels;
+	private final IQualityPolicy policy;
+
+	private double budgetMillis;
+	private int level;
+	private long pendingUpdate;
+
+	public QualityGovernor()
+	{
+		this(0, new HysteresisQualityPolicy(), QualityLevel.DEFAULT_LEVELS);
+	}
+
+	public QualityGovernor(double budgetMillis, IQualityPolicy policy, List<QualityLevel> levels)
+	{
+		if (levels.isEmpty())
+		{
+			throw new IllegalArgumentException("Quality governor needs at least one level");
+		}
+
+		this.budgetMillis = budgetMillis;
+		this.policy = policy;
+		this.levels = new ArrayList<QualityLevel>(levels);
+	}
+
+	public double getBudget()
+	{
+		return this.budgetMillis;
+	}
+
+	/**
+	 * Set how many milliseconds per frame particles may take, 0 or less
+	 * to disable the governor
+	 */
+	public void setBudget(double budgetMillis)
+	{
+		this.budgetMillis = budgetMillis;
+
+		if (!this.isEnabled())
+		{
+			this.policy.reset();
+			this.setLevel(0, 0);
+		}
+	}
+
+	public boolean isEnabled()
+	{
+		return this.budgetMillis > 0;
+	}
+
+	public int getLevelIndex()
+	{
+		return this.level;
+	}
+
+	public QualityLevel getLevel()
+	{
+		return this.levels.get(this.level);
+	}
+
+	/**
+	 * Add time spent updating emitters. Ticks and frames don't line up,
+	 * so update time counts towards the next frame
+	 */
+	public void addUpdate(long nanos)
+	{
+		this.pendingUpdate += nanos;
+	}
+
+	/**
+	 * Finish a frame, which took given time to render particles
+	 *
+	 * @return Quality level that should be used from now on
+	 */
+	public QualityLevel frame(long renderNanos)
+	{
+		double millis = (this.pendingUpdate + renderNanos) / 1000000D;
+
+		this.pendingUpdate = 0;
+
+		if (this.isEnabled())
+		{
+			int level = this.policy.decide(this.level, this.levels.size(), millis, this.budgetMillis);
+
+			this.setLevel(Math.max(Math.min(level, this.levels.size() - 1), 0), millis);
+		}
+
+		return this.getLevel();
+	}
+
+	private void setLevel(int level, double millis)
+	{
+		boolean changed = level != this.level;
+
+		this.level = level;
+
+		if (changed || Settings.getQuality() != this.getLevel())
+		{
+			Settings.setQuality(this.getLevel());
+		}
+
+		if (changed)
+		{
+			ParticleEvents.throttle(null, this.getLevel().name, millis);
+		}
+	}
+}
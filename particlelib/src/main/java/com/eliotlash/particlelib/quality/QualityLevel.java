@@ -0,0 +1,66 @@
+package com.eliotlash.particlelib.quality;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Quality level
+ *
+ * Set of quality reductions that are applied to all emitters (see
+ * {@link com.eliotlash.particlelib.Settings#getQuality()}). Levels are
+ * immutable, and {@link #DEFAULT_LEVELS} go from full quality to the
+ * cheapest one, each giving up a bit more than the previous one.
+ */
+public class QualityLevel
+{
+	public static final QualityLevel FULL = new QualityLevel("full", true, 1, 1, true);
+
+	public static final List<QualityLevel> DEFAULT_LEVELS = Collections.unmodifiableList(Arrays.asList(
+		FULL,
+		new QualityLevel("no_sorting", false, 1, 1, true),
+		new QualityLevel("reduced", false, 0.5F, 2, true),
+		new QualityLevel("low", false, 0.5F, 4, false),
+		new QualityLevel("minimal", false, 0.25F, 8, false)
+	));
+
+	public final String name;
+
+	/**
+	 * Whether particles (and emitters) may be sorted by distance, if
+	 * sorting is enabled in the first place
+	 */
+	public final boolean sorting;
+
+	/**
+	 * Fraction of particles that actually get spawned
+	 */
+	public final float spawnMultiplier;
+
+	/**
+	 * How often (in ticks) emitters further than
+	 * {@link com.eliotlash.particlelib.Settings#getFarEmitterDistance()}
+	 * evaluate their particles' appearance
+	 */
+	public final int farTickInterval;
+
+	/**
+	 * Whether particles collide with blocks
+	 */
+	public final boolean collision;
+
+	public QualityLevel(String name, boolean sorting, float spawnMultiplier, int farTickInterval, boolean collision)
+	{
+		this.name = name;
+		this.sorting = sorting;
+		this.spawnMultiplier = Math.max(Math.min(spawnMultiplier, 1), 0);
+		this.farTickInterval = Math.max(farTickInterval, 1);
+		this.collision = collision;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.name;
+	}
+}
@@ -0,0 +1,110 @@
+package com.eliotlash.particlelib;
+
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.headless.HeadlessSimulation;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Scheme JSON and fixtures shared by tests, so every test only states
+ * the components it checks
+ */
+public final class TestSchemes {
+    public static final String POINT = "\"minecraft:emitter_shape_point\":{}";
+    public static final String BILLBOARD = "\"minecraft:particle_appearance_billboard\":{\"size\":[0.1,0.1],\"facing_camera_mode\":\"lookat_xyz\"}";
+
+    /**
+     * Scheme using curves, variables and most kinds of components
+     */
+    public static final String SCRIPTED = scripted();
+
+    private TestSchemes() {
+    }
+
+    /**
+     * {@link #SCRIPTED} with given extra components
+     */
+    public static String scripted(String... extra) {
+        List<String> components = new ArrayList<>(Arrays.asList(
+            "\"minecraft:emitter_initialization\":{\"per_update_expression\":\"variable.ticks = variable.ticks + 1;\"}",
+            "\"minecraft:emitter_rate_steady\":{\"spawn_rate\":\"10 + variable.emitter_random_1\",\"max_particles\":50}",
+            "\"minecraft:emitter_lifetime_looping\":{\"active_time\":2}",
+            "\"minecraft:emitter_shape_sphere\":{\"radius\":\"math.random(1, 2)\",\"direction\":\"outwards\"}",
+            "\"minecraft:particle_initial_speed\":3",
+            lifetime("\"1 + variable.particle_random_1\""),
+            "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[0,\"-9.8 * variable.wave\",0],\"linear_drag_coefficient\":0.5}",
+            "\"minecraft:particle_motion_collision\":{\"collision_radius\":0.1,\"coefficient_of_restitution\":0.5}",
+            "\"minecraft:particle_appearance_billboard\":{\"size\":[\"0.1 * variable.wave\",0.1],\"facing_camera_mode\":\"lookat_xyz\"}",
+            "\"minecraft:particle_appearance_tinting\":{\"color\":{\"interpolant\":\"variable.particle_age / variable.particle_lifetime\",\"gradient\":{\"0.0\":\"#FFFF0000\",\"1.0\":\"#FF0000FF\"}}}"
+        ));
+
+        components.addAll(Arrays.asList(extra));
+
+        return jsonWithCurves("test:scripted", "particles_blend",
+            "\"variable.wave\":{\"type\":\"catmull_rom\",\"input\":\"variable.particle_age\",\"horizontal_range\":\"variable.particle_lifetime\",\"nodes\":[0,1,0.5,0]}",
+            components.toArray(new String[0]));
+    }
+
+    /**
+     * Components of a single burst of given number of particles from a point
+     */
+    public static String burst(int particles) {
+        return "\"minecraft:emitter_rate_instant\":{\"num_particles\":" + particles + "},"
+            + "\"minecraft:emitter_lifetime_once\":{\"active_time\":1},"
+            + POINT;
+    }
+
+    /**
+     * @param max JSON value of the max lifetime (a number, or a quoted expression)
+     */
+    public static String lifetime(String max) {
+        return "\"minecraft:particle_lifetime_expression\":{\"max_lifetime\":" + max + "}";
+    }
+
+    public static String json(String id, String... components) {
+        return jsonWithCurves(id, "particles_alpha", null, components);
+    }
+
+    /**
+     * @param curves Content of the curves object, or null for none
+     */
+    public static String jsonWithCurves(String id, String material, String curves, String... components) {
+        return "{\"format_version\":\"1.10.0\",\"particle_effect\":{\"description\":{\"identifier\":\"" + id + "\","
+            + "\"basic_render_parameters\":{\"material\":\"" + material + "\",\"texture\":\"textures/particle/particles\"}},"
+            + (curves == null ? "" : "\"curves\":{" + curves + "},")
+            + "\"components\":{" + String.join(",", components) + "}}}";
+    }
+
+    public static BedrockScheme scheme(String id, String... components) {
+        return HeadlessSimulation.parse(json(id, components));
+    }
+
+    public static HeadlessBedrockEmitter emitter(MemoryWorld world, String id, String... components) {
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+        emitter.setScheme(scheme(id, components));
+
+        return emitter;
+    }
+
+    /**
+     * JSON of a preset bundled with the mod
+     */
+    public static String preset(String name) throws IOException {
+        try (InputStream stream = TestSchemes.class.getResourceAsStream("/assets/particleman/particles/" + name + ".particle.json")) {
+            assertNotNull(stream, name);
+
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
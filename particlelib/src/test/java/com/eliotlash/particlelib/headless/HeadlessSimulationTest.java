@@ -0,0 +1,190 @@
+package com.eliotlash.particlelib.headless;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.mcwrapper.IBlock;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.render.ByteBufferVertexSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessSimulationTest {
+    MemoryWorld world;
+    HeadlessSimulation simulation;
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        simulation = new HeadlessSimulation(world);
+    }
+
+    @Test
+    void runsBundledPresets() throws IOException {
+        simulation.emitters = 4;
+        simulation.ticks = 100;
+
+        SimulationReport rainbow = simulation.run(TestSchemes.preset("rainbow"));
+        SimulationReport loading = simulation.run(TestSchemes.preset("loading"));
+
+        assertEquals("snowstorm:rainbow", rainbow.identifier);
+        assertTrue(rainbow.particleTicks > 0);
+        assertTrue(rainbow.peakParticles <= 4 * 500);
+        assertTrue(rainbow.getParticlesPerSecond() > 0);
+        assertTrue(rainbow.componentNanos.containsKey("BedrockComponentMotionDynamic"));
+
+        assertEquals("snowstorm:loading", loading.identifier);
+        assertTrue(loading.peakParticles <= 4 * 60);
+    }
+
+    @Test
+    void collidesWithSolidBlocks() {
+        world.fillSolid(-2, 60, -2, 2, 60, 2, world.lookupBlock(new ResourceLocation("minecraft", "stone")));
+
+        BedrockScheme scheme = TestSchemes.scheme("test:fall",
+            TestSchemes.burst(50),
+            TestSchemes.lifetime("10"),
+            "\"minecraft:particle_initial_speed\":0",
+            "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[0,-20,0]}",
+            "\"minecraft:particle_motion_collision\":{\"expire_on_contact\":true}");
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+        emitter.lastGlobal.set(0.5, 64.5, 0.5);
+        emitter.setScheme(scheme);
+
+        for (int i = 0; i < 60; i++) {
+            emitter.update();
+        }
+
+        assertTrue(world.collisionQueries > 0);
+        assertTrue(emitter.particles.isEmpty());
+    }
+
+    @Test
+    void expiresInBlocks() {
+        IBlock water = world.lookupBlock(new ResourceLocation("minecraft", "water"));
+        world.setBlock(0, 64, 0, water);
+
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+        emitter.lastGlobal.set(0.5, 64.5, 0.5);
+        emitter.setScheme(TestSchemes.scheme("test:water",
+            TestSchemes.burst(20),
+            TestSchemes.lifetime("10"),
+            "\"minecraft:particle_initial_speed\":0",
+            "\"minecraft:particle_expire_if_in_blocks\":[\"minecraft:water\"]"));
+        emitter.update();
+        emitter.update();
+
+        assertTrue(emitter.particles.isEmpty());
+    }
+
+    @Test
+    void interpolatedAppearanceMatchesPerFrame() {
+        BedrockScheme scheme = TestSchemes.scheme("test:grow",
+            TestSchemes.burst(3),
+            TestSchemes.lifetime("10"),
+            "\"minecraft:particle_appearance_billboard\":{\"size\":[\"0.1 + variable.particle_age * 2\",\"0.2 + variable.emitter_age\"],\"facing_camera_mode\":\"lookat_xyz\",\"uv\":{\"texture_width\":16,\"texture_height\":16,\"uv\":[0,0],\"uv_size\":[8,8]}}",
+            "\"minecraft:particle_appearance_tinting\":{\"color\":[\"variable.particle_age\",\"variable.particle_random_1\",1,1]}");
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+        emitter.lastGlobal.set(0.5, 64.5, 0.5);
+        emitter.cY = 70;
+        emitter.setScheme(scheme);
+
+        for (int i = 0; i < 5; i++) {
+            emitter.update();
+        }
+
+        emitter.render(0.3F);
+
+        ByteBuffer actual = emitter.sink.getBuffer().duplicate();
+        byte[] bytes = new byte[actual.remaining()];
+
+        actual.get(bytes);
+        actual = ByteBuffer.wrap(bytes).order(emitter.sink.getBuffer().order());
+
+        /* Evaluating every frame overwrites particles' colors, so it goes second */
+        scheme.perFrameAppearance = true;
+        emitter.render(0.3F);
+
+        ByteBuffer expected = emitter.sink.getBuffer();
+
+        assertEquals(3 * 4, emitter.sink.getVertexCount());
+        assertEquals(expected.remaining(), actual.remaining());
+
+        for (int i = 0; i < emitter.sink.getVertexCount(); i++) {
+            int offset = i * ByteBufferVertexSink.VERTEX_SIZE;
+
+            /* Position */
+            for (int j = 0; j < 3; j++) {
+                assertEquals(expected.getFloat(offset + j * 4), actual.getFloat(offset + j * 4), 0.0001);
+            }
+
+            /* Color */
+            for (int j = 24; j < 28; j++) {
+                assertEquals(expected.get(offset + j) & 0xff, actual.get(offset + j) & 0xff, 1);
+            }
+        }
+    }
+
+    @Test
+    void splitsCurvesByScope() {
+        String curves = "\"variable.emitter_curve\":{\"type\":\"linear\",\"input\":\"variable.emitter_age\",\"horizontal_range\":\"variable.emitter_lifetime\",\"nodes\":[0,1]},"
+            + "\"variable.chained\":{\"type\":\"linear\",\"input\":\"variable.emitter_curve * 2\",\"horizontal_range\":1,\"nodes\":[0,1]},"
+            + "\"variable.particle_curve\":{\"type\":\"linear\",\"input\":\"variable.particle_age + variable.chained\",\"horizontal_range\":1,\"nodes\":[0,1]}";
+        BedrockScheme scheme = HeadlessSimulation.parse(TestSchemes.jsonWithCurves("test:curves", "particles_alpha", curves,
+            TestSchemes.POINT,
+            TestSchemes.lifetime("\"variable.particle_curve\"")));
+
+        assertEquals(1, scheme.particleCurves.size());
+        assertSame(scheme.curves.get("variable.particle_curve"), scheme.particleCurves.get(0));
+    }
+
+    @Test
+    void kernelMatchesComponentLoop() {
+        String json = TestSchemes.json("test:kernel",
+            "\"minecraft:emitter_rate_instant\":{\"num_particles\":5}",
+            "\"minecraft:emitter_lifetime_once\":{\"active_time\":1}",
+            "\"minecraft:emitter_shape_point\":{\"direction\":[1,1,0]}",
+            "\"minecraft:particle_initial_speed\":4",
+            TestSchemes.lifetime("1"),
+            "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[\"variable.particle_age\",-9.8,0],\"linear_drag_coefficient\":0.5}",
+            "\"minecraft:particle_kill_plane\":[0,1,0,-0.5]");
+        BedrockScheme fused = HeadlessSimulation.parse(json);
+        BedrockScheme looped = HeadlessSimulation.parse(json);
+        HeadlessBedrockEmitter a = new HeadlessBedrockEmitter(world);
+        HeadlessBedrockEmitter b = new HeadlessBedrockEmitter(world);
+
+        assertNotNull(fused.particleKernel);
+        assertTrue(fused.particleKernel.needsVariables());
+        looped.particleKernel = null;
+        a.setScheme(fused);
+        b.setScheme(looped);
+
+        int peak = 0;
+
+        for (int tick = 0; tick < 40; tick++) {
+            a.update();
+            b.update();
+
+            assertEquals(b.particles.size(), a.particles.size());
+            peak = Math.max(peak, a.particles.size());
+
+            for (int i = 0; i < a.particles.size(); i++) {
+                assertEquals(b.particles.get(i).position, a.particles.get(i).position);
+                assertEquals(b.particles.get(i).speed, a.particles.get(i).speed);
+            }
+        }
+
+        assertEquals(5, peak);
+        assertTrue(a.particles.isEmpty());
+    }
+}
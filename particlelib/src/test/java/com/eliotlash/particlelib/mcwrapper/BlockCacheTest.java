@@ -0,0 +1,119 @@
+package com.eliotlash.particlelib.mcwrapper;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.molang.expressions.MolangValue;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentExpireInBlocks;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentParticleLifetime;
+import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockCacheTest {
+    static final IBlock STONE = () -> new ResourceLocation("minecraft", "stone");
+
+    MemoryWorld world;
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+        world.setBlock(1, 2, 3, STONE);
+    }
+
+    @Test
+    void packRoundTrip() {
+        long packed = BlockPos.pack(-30000, -64, 29999);
+        assertEquals(-30000, BlockPos.unpackX(packed));
+        assertEquals(-64, BlockPos.unpackY(packed));
+        assertEquals(29999, BlockPos.unpackZ(packed));
+    }
+
+    @Test
+    void getCachesUntilCleared() {
+        BlockCache cache = new BlockCache();
+
+        assertSame(STONE, cache.get(world, 1, 2, 3));
+        assertSame(STONE, cache.get(world, 1, 2, 3));
+        assertSame(IBlock.Blocks.AIR, cache.get(world, 0, 0, 0));
+        assertEquals(2, world.lookups);
+
+        cache.clear();
+        cache.get(world, 1, 2, 3);
+        assertEquals(3, world.lookups);
+    }
+
+    @Test
+    void prefetchResolvesUniquePositionsInOneBatch() {
+        BlockCache cache = new BlockCache();
+        long[] positions = new long[1000];
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = BlockPos.pack(i % 10, 2, 3);
+        }
+
+        cache.prefetch(world, positions, positions.length);
+
+        assertEquals(1, world.batches);
+        assertEquals(10, cache.size());
+        assertSame(STONE, cache.get(world, 1, 2, 3));
+        assertEquals(0, world.lookups);
+    }
+
+    @Test
+    void expireInBlocksUsesBatchedLookups() {
+        BedrockScheme scheme = new BedrockScheme();
+        BedrockComponentExpireInBlocks expire = new BedrockComponentExpireInBlocks();
+        BedrockComponentParticleLifetime lifetime = new BedrockComponentParticleLifetime();
+
+        expire.blocks.add(STONE);
+        expire.updateFilter();
+        lifetime.expression = new MolangValue(null, new Constant(10));
+        lifetime.max = true;
+        scheme.components.add(expire);
+        scheme.components.add(lifetime);
+        scheme.setup();
+
+        BedrockEmitter emitter = new BedrockEmitter() {
+            public double getDistanceSq() { return 0; }
+            public void renderOnScreen(int x, int y, float scale) {}
+            public void render(float partialTicks) {}
+            public void setupCameraProperties(float partialTicks) {}
+            public int getBrightnessForRender(float partialTicks, double x, double y, double z) { return 0; }
+        };
+
+        emitter.world = world;
+        emitter.setScheme(scheme);
+
+        for (int i = 0; i < 500; i++) {
+            emitter.spawnParticle();
+        }
+
+        for (BedrockParticle particle : emitter.particles) {
+            particle.speed.set(0, 0, 0);
+            particle.position.set(particle.random1 < 0.5 ? 1.5 : 5.5, 2.5, 3.5);
+        }
+
+        emitter.update();
+
+        assertEquals(0, world.lookups);
+        assertEquals(1, world.batches);
+
+        for (BedrockParticle particle : emitter.particles) {
+            assertEquals(5.5, particle.position.x);
+        }
+
+        /* Particles stay in the same block, so the world isn't asked again */
+        emitter.update();
+        assertEquals(1, world.batches);
+
+        world.setBlock(5, 2, 3, STONE);
+        BlockCache.invalidate();
+        emitter.update();
+
+        assertEquals(2, world.batches);
+        assertTrue(emitter.particles.isEmpty());
+    }
+}
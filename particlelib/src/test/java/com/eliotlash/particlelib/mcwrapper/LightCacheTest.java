@@ -0,0 +1,66 @@
+package com.eliotlash.particlelib.mcwrapper;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightCacheTest {
+    MemoryWorld world;
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+        world.setLight(1, 2, 3, 0x500070);
+        LightCache.SHARED.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.setLightRefreshInterval(0);
+    }
+
+    @Test
+    void getCachesUntilCleared() {
+        LightCache cache = new LightCache();
+
+        assertEquals(0x500070, cache.get(world, BlockPos.pack(1, 2, 3)));
+        assertEquals(0x500070, cache.get(world, BlockPos.pack(1, 2, 3)));
+        assertEquals(15728880, cache.get(world, BlockPos.pack(0, 0, 0)));
+        assertEquals(2, world.lightQueries);
+
+        cache.clear();
+        cache.get(world, BlockPos.pack(1, 2, 3));
+        assertEquals(3, world.lightQueries);
+    }
+
+    @Test
+    void particlesKeepLightUntilIntervalOrBlockCrossing() {
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+        BedrockParticle particle = new BedrockParticle();
+
+        Settings.setLightRefreshInterval(5);
+
+        assertEquals(0x500070, emitter.getBrightnessForRender(particle, 0, 1.5, 2.5, 3.5));
+
+        /* Light changes, but neither the tick nor the particle moved on */
+        world.setLight(1, 2, 3, 0);
+        LightCache.SHARED.clear();
+        particle.age = 4;
+
+        assertEquals(0x500070, emitter.getBrightnessForRender(particle, 0, 1.9, 2.1, 3.1));
+        assertEquals(1, world.lightQueries);
+
+        particle.age = 5;
+
+        assertEquals(0, emitter.getBrightnessForRender(particle, 0, 1.5, 2.5, 3.5));
+
+        /* Crossing into another block looks light up right away */
+        assertEquals(15728880, emitter.getBrightnessForRender(particle, 0, 2.5, 2.5, 3.5));
+        assertEquals(3, world.lightQueries);
+    }
+}
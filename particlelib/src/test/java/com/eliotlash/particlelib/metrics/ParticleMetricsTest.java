@@ -0,0 +1,74 @@
+package com.eliotlash.particlelib.metrics;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticleMetricsTest {
+    @Test
+    void histogramPercentilesAreBucketBounds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Histogram histogram = registry.histogram("test");
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean(), 0.0001);
+        assertEquals(63, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(0.99));
+        assertSame(histogram, registry.histogram("test"));
+
+        Map<String, Double> snapshot = registry.snapshot();
+
+        assertEquals(100, snapshot.get("test.count"), 0);
+        assertEquals(100, snapshot.get("test.max"), 0);
+
+        registry.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    void emittersFeedMetricsExposedOverJmx() throws Exception {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+        BedrockScheme scheme = TestSchemes.scheme("test:metrics", TestSchemes.burst(10), TestSchemes.lifetime("0.1"));
+        long spawned = ParticleMetrics.PARTICLES_SPAWNED.get();
+        long died = ParticleMetrics.PARTICLES_DIED.get();
+
+        emitter.setScheme(scheme);
+
+        for (int i = 0; i < 10; i++) {
+            emitter.update();
+        }
+
+        assertEquals(10, ParticleMetrics.PARTICLES_SPAWNED.get() - spawned);
+        assertEquals(10, ParticleMetrics.PARTICLES_DIED.get() - died);
+        assertTrue(ParticleMetrics.EMITTER_TICK_NANOS.getCount() >= 10);
+
+        ParticleMetrics.register();
+        ParticleMetrics.register();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ParticleMetrics.OBJECT_NAME);
+
+        assertEquals(ParticleMetrics.PARTICLES_SPAWNED.get(), server.getAttribute(name, "ParticlesSpawned"));
+        assertNotNull(server.getAttribute(name, "Metrics"));
+    }
+}
@@ -0,0 +1,244 @@
+package com.eliotlash.particlelib.particles;
+
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.molang.expressions.MolangExpression;
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessSchemeJsonAdapter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BedrockLibraryTest {
+    @TempDir
+    File root;
+    File folder;
+
+    @BeforeEach
+    void setUp() {
+        folder = new File(root, "particles");
+        folder.mkdirs();
+
+        Settings.setBlockLookupImpl(new MemoryWorld()::lookupBlock);
+        BedrockScheme.setJsonAdapter(new HeadlessSchemeJsonAdapter());
+    }
+
+    @Test
+    void reloadAsyncPublishesParsedPresets() throws Exception {
+        FileUtils.writeStringToFile(new File(folder, "rainbow.json"), TestSchemes.preset("rainbow"), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(folder, "scripted.json"), TestSchemes.SCRIPTED, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(folder, "broken.json"), "{", StandardCharsets.UTF_8);
+
+        BedrockLibrary library = new BedrockLibrary(folder);
+        Map<String, BedrockScheme> before = library.presets;
+        Map<String, BedrockScheme> presets = library.reloadAsync().get();
+
+        assertSame(presets, library.presets);
+        assertTrue(before.isEmpty());
+        assertEquals("test:scripted", presets.get("scripted").identifier);
+        assertNotNull(presets.get("rainbow"));
+        assertFalse(presets.containsKey("broken"));
+        assertThrows(UnsupportedOperationException.class, () -> presets.remove("rainbow"));
+
+        assertTrue(library.loadTimes.get("rainbow") > 0);
+        assertTrue(library.loadTimes.containsKey("broken"));
+
+        library.close();
+    }
+
+    @Test
+    void reloadKeepsPresetsSavedWhileLoading() throws Exception {
+        FileUtils.writeStringToFile(new File(folder, "rainbow.json"), TestSchemes.preset("rainbow"), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(folder, "scripted.json"), TestSchemes.SCRIPTED, StandardCharsets.UTF_8);
+
+        BedrockLibrary library = new BedrockLibrary(folder);
+        CompletableFuture<Map<String, BedrockScheme>> reload;
+        BedrockScheme saved;
+
+        try {
+            library.reload();
+
+            /* The reload can't publish before the save, as both lock the library */
+            synchronized (library) {
+                reload = library.reloadAsync();
+                library.save("scripted", BedrockScheme.parse(TestSchemes.SCRIPTED));
+                saved = library.presets.get("scripted");
+            }
+
+            long version = library.getVersion("scripted");
+
+            reload.get();
+
+            assertSame(saved, library.presets.get("scripted"));
+            assertEquals(version, library.getVersion("scripted"));
+            assertEquals(2, library.getVersion("rainbow"));
+        } finally {
+            library.close();
+        }
+    }
+
+    @Test
+    void watcherRefreshesOnlyChangedPresets() throws Exception {
+        File rainbow = new File(folder, "rainbow.json");
+        File scripted = new File(folder, "scripted.json");
+
+        FileUtils.writeStringToFile(rainbow, TestSchemes.preset("rainbow"), StandardCharsets.UTF_8);
+
+        BedrockLibrary library = new BedrockLibrary(folder);
+
+        try {
+            library.reload();
+
+            BedrockScheme before = library.presets.get("rainbow");
+            long version = library.getVersion("rainbow");
+
+            library.startWatching();
+
+            FileUtils.writeStringToFile(scripted, TestSchemes.SCRIPTED, StandardCharsets.UTF_8);
+            awaitVersion(library, "scripted", 1);
+
+            assertEquals("test:scripted", library.presets.get("scripted").identifier);
+            assertSame(before, library.presets.get("rainbow"));
+            assertEquals(version, library.getVersion("rainbow"));
+
+            /* A broken save keeps the last good version, once it was
+             * actually read */
+            library.loadTimes.remove("scripted");
+            FileUtils.writeStringToFile(scripted, "{", StandardCharsets.UTF_8);
+            await(() -> library.loadTimes.containsKey("scripted"), "broken scripted");
+            assertEquals(1, library.getVersion("scripted"));
+
+            assertTrue(scripted.delete());
+            awaitVersion(library, "scripted", 2);
+
+            assertFalse(library.presets.containsKey("scripted"));
+        } finally {
+            library.close();
+        }
+    }
+
+    @Test
+    void saveStoresCopyWithoutParsing() {
+        BedrockLibrary library = new BedrockLibrary(folder);
+        BedrockScheme scheme = BedrockScheme.parse(TestSchemes.SCRIPTED);
+
+        library.save("scripted", scheme);
+
+        BedrockScheme saved = library.presets.get("scripted");
+
+        assertNotSame(scheme, saved);
+        assertEquals(BedrockScheme.toJson(scheme), BedrockScheme.toJson(saved));
+        assertEquals(1, library.getVersion("scripted"));
+        assertFalse(library.loadTimes.containsKey("scripted"));
+        assertTrue(library.file("scripted").isFile());
+
+        library.close();
+    }
+
+    @Test
+    void listenersSeeReloadedAndRefreshedPresets() throws Exception {
+        FileUtils.writeStringToFile(new File(folder, "rainbow.json"), TestSchemes.preset("rainbow"), StandardCharsets.UTF_8);
+
+        BedrockLibrary library = new BedrockLibrary(folder);
+        Map<String, BedrockScheme> changed = new ConcurrentHashMap<>();
+
+        library.addListener((name, scheme) -> changed.put(name, scheme));
+        library.reload();
+
+        assertSame(library.presets.get("rainbow"), changed.get("rainbow"));
+        assertSame(library.presets.get("default_fire"), changed.get("default_fire"));
+
+        changed.clear();
+        FileUtils.writeStringToFile(new File(folder, "rainbow.json"), TestSchemes.preset("loading"), StandardCharsets.UTF_8);
+        BedrockScheme refreshed = library.refresh("rainbow").get();
+
+        assertEquals(1, changed.size());
+        assertSame(refreshed, changed.get("rainbow"));
+
+        library.close();
+    }
+
+    @Test
+    void watcherStopsWhenFolderIsDeleted() throws Exception {
+        BedrockLibrary library = new BedrockLibrary(folder);
+
+        try {
+            library.startWatching();
+            FileUtils.deleteDirectory(folder);
+            await(() -> !library.isWatching(), "watcher to stop");
+
+            assertTrue(folder.mkdirs());
+            library.startWatching();
+
+            assertTrue(library.isWatching());
+        } finally {
+            library.close();
+        }
+    }
+
+    static void awaitVersion(BedrockLibrary library, String name, long version) throws InterruptedException {
+        await(() -> library.getVersion(name) >= version, name);
+    }
+
+    /**
+     * Wait for a change seen by the watcher. Some platforms poll the
+     * folder every 10 seconds, so the deadline is well above that
+     */
+    static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60000;
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for " + what);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void parserCanBeSharedBetweenThreads() throws Exception {
+        MolangParser parser = new MolangParser();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<MolangExpression>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+
+                futures.add(executor.submit(() -> parser.parseExpression("variable.t" + n + " = " + n + "; return variable.t" + n + " + variable.shared;")));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, futures.get(i).get().get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        parser.setValue("variable.shared", 1);
+
+        assertEquals(200, parser.locals.size());
+        assertEquals(8, futures.get(7).get().get());
+
+        /* Parsing the same statements again reuses their locals */
+        int slots = parser.getSlotCount();
+
+        assertEquals(8, parser.parseExpression("variable.t7 = 7; return variable.t7 + variable.shared;").get());
+        assertEquals(200, parser.locals.size());
+        assertEquals(slots, parser.getSlotCount());
+    }
+}
@@ -0,0 +1,147 @@
+package com.eliotlash.particlelib.particles;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessSchemeJsonAdapter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
+import com.eliotlash.particlelib.particles.components.expiration.BedrockComponentExpireInBlocks;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemeCacheTest {
+    static final String BLOCKS = TestSchemes.scripted("\"minecraft:particle_expire_if_in_blocks\":[\"minecraft:water\",\"minecraft:lava\"]");
+
+    @TempDir
+    File root;
+
+    MemoryWorld world;
+    SchemeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+        cache = new SchemeCache(root);
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        BedrockScheme.setJsonAdapter(new HeadlessSchemeJsonAdapter());
+    }
+
+    @Test
+    void cachedSchemesMatchParsedOnes() throws Exception {
+        for (String json : new String[] {TestSchemes.preset("rainbow"), TestSchemes.preset("loading"), TestSchemes.SCRIPTED, BLOCKS}) {
+            String key = SchemeCache.key(json);
+            BedrockScheme parsed = BedrockScheme.parse(json);
+
+            cache.write(key, parsed);
+
+            BedrockScheme cached = cache.read(key);
+
+            assertNotNull(cached);
+            assertEquals(BedrockScheme.toJson(parsed), BedrockScheme.toJson(cached));
+            assertEquals(parsed.parser.getSlotCount(), cached.parser.getSlotCount());
+            assertNotSame(parsed.parser, cached.parser);
+        }
+    }
+
+    @Test
+    void blocksAreLookedUpAgain() {
+        String key = SchemeCache.key(BLOCKS);
+
+        cache.write(key, BedrockScheme.parse(BLOCKS));
+
+        BedrockComponentExpireInBlocks component = cache.read(key).get(BedrockComponentExpireInBlocks.class);
+
+        assertTrue(component.contains(world.lookupBlock(new ResourceLocation("minecraft", "lava"))));
+        assertFalse(component.contains(world.lookupBlock(new ResourceLocation("minecraft", "stone"))));
+        assertTrue(BedrockScheme.parse(BLOCKS).copy().get(BedrockComponentExpireInBlocks.class).contains(world.lookupBlock(new ResourceLocation("minecraft", "water"))));
+    }
+
+    @Test
+    void brokenEntriesAreDeleted() throws Exception {
+        String key = SchemeCache.key(TestSchemes.SCRIPTED);
+
+        cache.write(key, BedrockScheme.parse(TestSchemes.SCRIPTED));
+
+        byte[] bytes = FileUtils.readFileToByteArray(cache.file(key));
+
+        FileUtils.writeByteArrayToFile(cache.file(key), java.util.Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertNull(cache.read(key));
+        assertFalse(cache.file(key).exists());
+
+        /* Entries of other JSON don't match */
+        cache.write(key, BedrockScheme.parse(TestSchemes.SCRIPTED));
+        FileUtils.copyFile(cache.file(key), cache.file(SchemeCache.key(BLOCKS)));
+
+        assertNull(cache.read(SchemeCache.key(BLOCKS)));
+    }
+
+    @Test
+    void forgedLengthsAreRejectedBeforeAllocating() throws Exception {
+        String key = SchemeCache.key(TestSchemes.SCRIPTED);
+        ByteArrayOutputStream string = new ByteArrayOutputStream();
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+
+        /* A key string as long as the largest array */
+        header(string);
+        string.write(new byte[] {1, (byte) 0xf0, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07});
+
+        /* A double array as long as the largest array, after a valid key */
+        header(array);
+        array.write(1);
+        array.write(key.length());
+        array.write(key.getBytes(StandardCharsets.UTF_8));
+        array.write(new byte[] {8, 0, 1, 2, '[', 'D', (byte) 0xf0, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07});
+
+        for (ByteArrayOutputStream bytes : new ByteArrayOutputStream[] {string, array}) {
+            FileUtils.writeByteArrayToFile(cache.file(key), bytes.toByteArray());
+
+            assertNull(cache.read(key));
+            assertFalse(cache.file(key).exists());
+        }
+    }
+
+    static void header(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(SchemeCache.MAGIC);
+        out.writeInt(SchemeCache.FORMAT_VERSION);
+    }
+
+    @Test
+    void libraryReadsUnchangedFilesFromCache() throws Exception {
+        File folder = new File(root, "particles");
+        File cacheFolder = new File(root, "cache");
+
+        folder.mkdirs();
+        FileUtils.writeStringToFile(new File(folder, "scripted.json"), TestSchemes.SCRIPTED, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(folder, "rainbow.json"), TestSchemes.preset("rainbow"), StandardCharsets.UTF_8);
+        new BedrockLibrary(folder, cacheFolder).reload();
+
+        long hits = ParticleMetrics.SCHEME_CACHE_HITS.get();
+
+        FileUtils.writeStringToFile(new File(folder, "scripted.json"), BLOCKS, StandardCharsets.UTF_8);
+
+        BedrockLibrary library = new BedrockLibrary(folder, cacheFolder);
+
+        library.reload();
+
+        assertEquals(hits + 1, ParticleMetrics.SCHEME_CACHE_HITS.get());
+        assertNotNull(library.presets.get("scripted").get(BedrockComponentExpireInBlocks.class));
+
+        /* The entry of the old scripted.json is gone */
+        assertEquals(2, cacheFolder.listFiles().length);
+    }
+}
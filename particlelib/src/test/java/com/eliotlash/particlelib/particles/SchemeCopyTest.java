@@ -0,0 +1,81 @@
+package com.eliotlash.particlelib.particles;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.headless.HeadlessSchemeJsonAdapter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.components.BedrockComponentBase;
+import com.eliotlash.particlelib.particles.components.motion.BedrockComponentMotionDynamic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemeCopyTest {
+    MemoryWorld world;
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        BedrockScheme.setJsonAdapter(new HeadlessSchemeJsonAdapter());
+    }
+
+    static void assertEquivalent(BedrockScheme scheme) {
+        BedrockScheme copy = scheme.copy();
+        BedrockScheme reparsed = BedrockScheme.parse(BedrockScheme.toJson(scheme));
+
+        assertEquals(BedrockScheme.toJson(reparsed), BedrockScheme.toJson(copy));
+        assertNotSame(scheme.parser, copy.parser);
+        assertEquals(scheme.components.size(), copy.components.size());
+        assertEquals(scheme.particleUpdates.size(), copy.particleUpdates.size());
+
+        for (int i = 0; i < scheme.components.size(); i++) {
+            BedrockComponentBase component = copy.components.get(i);
+
+            assertNotSame(scheme.components.get(i), component);
+            assertSame(scheme.components.get(i).getClass(), component.getClass());
+        }
+    }
+
+    @Test
+    void copiesBundledPresetsLikeJson() throws IOException {
+        assertEquivalent(BedrockScheme.parse(TestSchemes.preset("rainbow")));
+        assertEquivalent(BedrockScheme.parse(TestSchemes.preset("loading")));
+    }
+
+    @Test
+    void copyHasItsOwnVariables() {
+        BedrockScheme scheme = BedrockScheme.parse(TestSchemes.SCRIPTED);
+
+        assertEquivalent(scheme);
+
+        BedrockScheme copy = scheme.copy();
+        BedrockComponentMotionDynamic dynamic = copy.get(BedrockComponentMotionDynamic.class);
+
+        scheme.parser.variables.get("variable.wave").set(1);
+        copy.parser.variables.get("variable.wave").set(2);
+
+        assertEquals(-19.6, dynamic.motionAcceleration[1].get(), 0.0001);
+        assertEquals(-9.8, scheme.get(BedrockComponentMotionDynamic.class).motionAcceleration[1].get(), 0.0001);
+        assertSame(copy.parser.variables.get("variable.wave"), copy.curves.get("variable.wave").variable);
+        assertEquals(scheme.parser.getSlotCount(), copy.parser.getSlotCount());
+        assertNotSame(scheme.parser.getSlot(scheme.parser.getSlotCount() - 1), copy.parser.getSlot(copy.parser.getSlotCount() - 1));
+
+        HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+        emitter.setScheme(copy);
+
+        for (int i = 0; i < 10; i++) {
+            emitter.update();
+            emitter.render(0.5F);
+        }
+
+        assertFalse(emitter.particles.isEmpty());
+        assertEquals(10, emitter.state.get("variable.ticks"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.eliotlash.particlelib.particles.components.appearance;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.molang.MolangParser;
+import com.eliotlash.molang.expressions.MolangValue;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BakedLookupTest {
+    @Test
+    void bakedGradientMatchesStopSearch() throws Exception {
+        MolangParser parser = new MolangParser();
+        Variable interpolant = new Variable("variable.factor", 0);
+        String json = "{\"interpolant\": \"variable.factor\", \"gradient\": {\"0.0\": \"#d71c1c\", \"0.16\": \"#ffdf00\", \"0.5\": \"#00ffff\", \"1.0\": \"#e21111\"}}";
+
+        parser.register(interpolant);
+
+        Tint.Gradient exact = (Tint.Gradient) Tint.parseGradient(JsonParser.parseString(json).getAsJsonObject(), parser);
+        Tint.Gradient gradient = (Tint.Gradient) Tint.parseGradient(JsonParser.parseString(json).getAsJsonObject(), parser);
+        BedrockParticle expected = new BedrockParticle();
+        BedrockParticle actual = new BedrockParticle();
+
+        gradient.bake();
+
+        assertTrue(gradient.isBaked());
+
+        for (double factor = -0.5; factor <= 1.5; factor += 0.0173) {
+            interpolant.set(factor);
+            exact.compute(expected);
+            gradient.compute(actual);
+
+            assertEquals(expected.r, actual.r, 0.02);
+            assertEquals(expected.g, actual.g, 0.02);
+            assertEquals(expected.b, actual.b, 0.02);
+            assertEquals(expected.a, actual.a, 0.02);
+        }
+
+        /* Stops that depend on particles can't be baked */
+        gradient.stops.get(1).color.g = new MolangValue(parser, interpolant);
+        gradient.bake();
+
+        assertFalse(gradient.isBaked());
+    }
+
+    @Test
+    void bakedFlipbookMatchesFrameFormula() {
+        for (boolean loop : new boolean[] {false, true}) {
+            BedrockComponentAppearanceBillboard billboard = new BedrockComponentAppearanceBillboard();
+            BedrockParticle particle = new BedrockParticle();
+            BillboardQuad quad = new BillboardQuad();
+
+            billboard.flipbook = true;
+            billboard.loop = loop;
+            billboard.fps = 8;
+            billboard.stepX = 8;
+            billboard.stepY = 2;
+            billboard.uvX = new MolangValue(null, new Constant(4));
+            billboard.uvW = new MolangValue(null, new Constant(8));
+            billboard.uvH = new MolangValue(null, new Constant(16));
+            billboard.maxFrame = new MolangValue(null, new Constant(6));
+            particle.lifetime = 40;
+
+            for (int age = 0; age < 40; age++) {
+                particle.age = age;
+
+                billboard.bakeFrames();
+                assertTrue(billboard.hasBakedFrames());
+                billboard.calculateUVs(quad, particle, 0.5F);
+
+                float[] baked = {quad.u1, quad.v1, quad.u2, quad.v2};
+
+                billboard.maxFrame = new MolangValue(null, new Variable("variable.max", 6));
+                billboard.bakeFrames();
+                assertFalse(billboard.hasBakedFrames());
+                billboard.calculateUVs(quad, particle, 0.5F);
+
+                assertArrayEquals(new float[] {quad.u1, quad.v1, quad.u2, quad.v2}, baked);
+
+                billboard.maxFrame = new MolangValue(null, new Constant(6));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmitterStateTest {
+    static BedrockScheme scheme() {
+        return TestSchemes.scheme("test:shared",
+            "\"minecraft:emitter_initialization\":{\"per_update_expression\":\"variable.ticks = variable.ticks + 1;\"}",
+            "\"minecraft:emitter_rate_instant\":{\"num_particles\":1}",
+            "\"minecraft:emitter_lifetime_looping\":{\"active_time\":10}",
+            TestSchemes.POINT,
+            TestSchemes.lifetime("1"),
+            TestSchemes.BILLBOARD);
+    }
+
+    @Test
+    void emittersSharingSchemeKeepOwnVariables() {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+
+        BedrockScheme scheme = scheme();
+        HeadlessBedrockEmitter a = new HeadlessBedrockEmitter(world);
+        HeadlessBedrockEmitter b = new HeadlessBedrockEmitter(world);
+
+        a.setScheme(scheme);
+
+        for (int i = 0; i < 3; i++) {
+            a.update();
+        }
+
+        b.setScheme(scheme);
+        b.update();
+        a.update();
+        a.render(0.5F);
+        b.render(0.5F);
+
+        assertEquals(4, a.state.get("variable.ticks"));
+        assertEquals(1, b.state.get("variable.ticks"));
+
+        /* Emitters don't write into the scheme */
+        for (Map<String, Variable> locals : scheme.parser.locals.values()) {
+            for (Variable variable : locals.values()) {
+                assertEquals(0, variable.getDefault());
+            }
+        }
+    }
+
+    @Test
+    void emittersSharingSchemeCanBeUpdatedOnSeveralThreads() throws Exception {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+
+        BedrockScheme scheme = scheme();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Double>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                int updates = 50 + i;
+
+                futures.add(executor.submit(() -> {
+                    HeadlessBedrockEmitter emitter = new HeadlessBedrockEmitter(world);
+
+                    emitter.setScheme(scheme);
+
+                    for (int j = 0; j < updates; j++) {
+                        emitter.update();
+                        emitter.render(0.5F);
+                    }
+
+                    return emitter.state.get("variable.ticks");
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(50 + i, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.eliotlash.particlelib.particles.emitter;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmitterWatchdogTest {
+    MemoryWorld world;
+    List<String> reports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        Settings.setMaxSpawnsPerTick(100);
+        Settings.setMaxEmitterParticles(250);
+        Settings.setWatchdogSuspendTicks(5);
+        Settings.setWatchdogListener((scheme, anomaly, emitter) -> reports.add(scheme + " " + anomaly));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.setMaxSpawnsPerTick(4096);
+        Settings.setMaxEmitterParticles(16384);
+        Settings.setWatchdogSuspendTicks(100);
+        Settings.setWatchdogListener(null);
+    }
+
+    static HeadlessBedrockEmitter emitter(MemoryWorld world, String... components) {
+        List<String> all = new ArrayList<>(Arrays.asList(components));
+
+        all.add("\"minecraft:emitter_lifetime_looping\":{\"active_time\":10}");
+        all.add(TestSchemes.POINT);
+        all.add(TestSchemes.lifetime("100"));
+        all.add(TestSchemes.BILLBOARD);
+
+        return TestSchemes.emitter(world, "test:runaway", all.toArray(new String[0]));
+    }
+
+    @Test
+    void clampsAndSuspendsRunawaySpawns() {
+        Settings.setMaxEmitterParticles(10000);
+
+        HeadlessBedrockEmitter emitter = emitter(world, "\"minecraft:emitter_rate_steady\":{\"spawn_rate\":1000000000,\"max_particles\":1000000000}");
+
+        emitter.update();
+        emitter.render(0.5F);
+
+        assertEquals(100, emitter.particles.size());
+        assertEquals(Arrays.asList("test:runaway SPAWN_RATE"), reports);
+
+        for (int i = 0; i < 5; i++) {
+            emitter.update();
+            emitter.render(0.5F);
+        }
+
+        assertEquals(500, emitter.particles.size());
+        assertTrue(emitter.watchdog.isSuspended());
+        assertFalse(emitter.canSpawn());
+        assertEquals(Arrays.asList("test:runaway SPAWN_RATE", "test:runaway SUSPENDED"), reports);
+    }
+
+    @Test
+    void clampsStableEmittersAtParticleLimit() {
+        HeadlessBedrockEmitter emitter = emitter(world, "\"minecraft:emitter_rate_steady\":{\"spawn_rate\":1000,\"max_particles\":1000}");
+
+        for (int i = 0; i < 20; i++) {
+            emitter.update();
+            emitter.render(0.5F);
+        }
+
+        assertEquals(250, emitter.particles.size());
+        assertFalse(emitter.watchdog.isSuspended());
+        assertEquals(Arrays.asList("test:runaway PARTICLE_COUNT"), reports);
+    }
+
+    @Test
+    void cullsNonFiniteParticles() {
+        HeadlessBedrockEmitter emitter = emitter(world, "\"minecraft:emitter_rate_instant\":{\"num_particles\":10}",
+            "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[\"math.sqrt(-1)\",0,0]}");
+
+        emitter.update();
+        emitter.update();
+
+        assertTrue(emitter.particles.isEmpty());
+        assertEquals(Arrays.asList("test:runaway NON_FINITE"), reports);
+    }
+}
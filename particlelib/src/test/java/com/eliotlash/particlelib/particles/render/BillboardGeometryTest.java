@@ -0,0 +1,229 @@
+package com.eliotlash.particlelib.particles.render;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.molang.expressions.MolangValue;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.particles.components.appearance.BedrockComponentAppearanceBillboard;
+import com.eliotlash.particlelib.particles.components.appearance.CameraFacing;
+import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillboardGeometryTest {
+    static final double EPSILON = 0.0001;
+
+    HeadlessBedrockEmitter emitter;
+    BedrockComponentAppearanceBillboard billboard;
+    BedrockParticle particle;
+    ByteBufferVertexSink sink;
+
+    @BeforeEach
+    void setUp() {
+        emitter = new HeadlessBedrockEmitter();
+        billboard = new BedrockComponentAppearanceBillboard();
+        billboard.sizeW = new MolangValue(null, new Constant(0.4));
+        billboard.sizeH = new MolangValue(null, new Constant(0.2));
+        billboard.uvW = new MolangValue(null, new Constant(8));
+        billboard.uvH = new MolangValue(null, new Constant(8));
+        particle = new BedrockParticle();
+        particle.position.set(10, 64, -5);
+        particle.prevPosition.set(particle.position);
+        sink = new ByteBufferVertexSink(ByteBufferVertexSink.QUAD_SIZE);
+    }
+
+    float[] render() {
+        sink.reset();
+        billboard.render(emitter, particle, sink, 0);
+
+        assertEquals(4, sink.getVertexCount());
+
+        ByteBuffer buffer = sink.getBuffer();
+        float[] positions = new float[12];
+
+        for (int i = 0; i < 4; i++) {
+            positions[i * 3] = buffer.getFloat(i * ByteBufferVertexSink.VERTEX_SIZE);
+            positions[i * 3 + 1] = buffer.getFloat(i * ByteBufferVertexSink.VERTEX_SIZE + 4);
+            positions[i * 3 + 2] = buffer.getFloat(i * ByteBufferVertexSink.VERTEX_SIZE + 8);
+        }
+
+        return positions;
+    }
+
+    static double distance(float[] p, int a, int b) {
+        double dx = p[a * 3] - p[b * 3];
+        double dy = p[a * 3 + 1] - p[b * 3 + 1];
+        double dz = p[a * 3 + 2] - p[b * 3 + 2];
+
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    void assertBillboard(float[] p) {
+        double w = 0.4 * 2.25;
+        double h = 0.2 * 2.25;
+
+        assertEquals(w, distance(p, 0, 1), EPSILON);
+        assertEquals(h, distance(p, 1, 2), EPSILON);
+        assertEquals(w, distance(p, 2, 3), EPSILON);
+        assertEquals(Math.sqrt(w * w + h * h), distance(p, 0, 2), EPSILON);
+
+        /* Center of the quad is the particle */
+        assertEquals(10, (p[0] + p[3] + p[6] + p[9]) / 4, EPSILON);
+        assertEquals(64, (p[1] + p[4] + p[7] + p[10]) / 4, EPSILON);
+        assertEquals(-5, (p[2] + p[5] + p[8] + p[11]) / 4, EPSILON);
+    }
+
+    @Test
+    void rotatesTowardsCamera() {
+        emitter.cYaw = 37;
+        emitter.cPitch = 150;
+
+        for (CameraFacing facing : CameraFacing.values()) {
+            billboard.facing = facing;
+            assertBillboard(render());
+        }
+    }
+
+    @Test
+    void lookAtFacesCamera() {
+        billboard.facing = CameraFacing.LOOKAT_XYZ;
+        emitter.cX = 13;
+        emitter.cY = 66;
+        emitter.cZ = -1;
+
+        float[] p = render();
+
+        /* Edges of the quad are perpendicular to the direction to the camera */
+        double dx = emitter.cX - 10, dy = emitter.cY - 64, dz = emitter.cZ + 5;
+
+        for (int i = 1; i < 4; i++) {
+            double ex = p[i * 3] - p[(i - 1) * 3], ey = p[i * 3 + 1] - p[(i - 1) * 3 + 1], ez = p[i * 3 + 2] - p[(i - 1) * 3 + 2];
+
+            assertEquals(0, ex * dx + ey * dy + ez * dz, EPSILON);
+        }
+    }
+
+    /**
+     * Billboard corners computed with rotation matrices, the way it was
+     * done before the camera basis was introduced
+     */
+    float[] renderWithMatrices(float angle) {
+        float w = 0.4F * 2.25F;
+        float h = 0.2F * 2.25F;
+        double px = particle.position.x, py = particle.position.y, pz = particle.position.z;
+        float yaw = emitter.cYaw;
+        float pitch = emitter.cPitch;
+        CameraFacing facing = billboard.facing;
+        boolean lookAt = facing == CameraFacing.LOOKAT_XYZ || facing == CameraFacing.LOOKAT_Y;
+
+        if (emitter.perspective == 2) {
+            w = -w;
+        } else if (emitter.perspective == 100 && !lookAt) {
+            yaw = 180 - yaw;
+            w = -w;
+            h = -h;
+        }
+
+        if (lookAt) {
+            double dX = emitter.cX - px, dY = emitter.cY - py, dZ = emitter.cZ - pz;
+            double horizontal = Math.sqrt(dX * dX + dZ * dZ);
+
+            yaw = 180 - (float) (Math.atan2(dZ, dX) * (180D / Math.PI)) - 90.0F;
+            pitch = (float) (-(Math.atan2(dY, horizontal) * (180D / Math.PI))) + 180;
+        }
+
+        Matrix4f transform = new Matrix4f();
+        Matrix4f rotation = new Matrix4f();
+        Vector4f[] vertices = {new Vector4f(-w / 2, -h / 2, 0, 1), new Vector4f(w / 2, -h / 2, 0, 1), new Vector4f(w / 2, h / 2, 0, 1), new Vector4f(-w / 2, h / 2, 0, 1)};
+
+        transform.setIdentity();
+
+        if (facing == CameraFacing.ROTATE_XYZ || facing == CameraFacing.LOOKAT_XYZ) {
+            rotation.rotY(yaw / 180 * (float) Math.PI);
+            transform.mul(rotation);
+            rotation.rotX(pitch / 180 * (float) Math.PI);
+            transform.mul(rotation);
+        } else if (facing == CameraFacing.ROTATE_Y || facing == CameraFacing.LOOKAT_Y) {
+            rotation.rotY(yaw / 180 * (float) Math.PI);
+            transform.mul(rotation);
+        }
+
+        rotation.rotZ(angle / 180 * (float) Math.PI);
+        transform.mul(rotation);
+        transform.setTranslation(new Vector3f((float) px, (float) py, (float) pz));
+
+        float[] positions = new float[12];
+
+        for (int i = 0; i < 4; i++) {
+            transform.transform(vertices[i]);
+            positions[i * 3] = vertices[i].x;
+            positions[i * 3 + 1] = vertices[i].y;
+            positions[i * 3 + 2] = vertices[i].z;
+        }
+
+        return positions;
+    }
+
+    @Test
+    void matchesMatrixTransform() {
+        float[][] cameras = {{0, 180}, {37, 150}, {-120, 200}, {90, 270}, {180, 90}};
+        double[][] eyes = {{13, 66, -1}, {10, 70, -5}, {10, 64, -5}, {-3, 50, 8}};
+        float[] angles = {0, 30, -75, 180};
+
+        for (CameraFacing facing : CameraFacing.values()) {
+            for (int perspective : new int[] {0, 1, 2, 100}) {
+                for (int i = 0; i < cameras.length; i++) {
+                    for (float angle : angles) {
+                        billboard.facing = facing;
+                        emitter.perspective = perspective;
+                        emitter.cYaw = cameras[i][0];
+                        emitter.cPitch = cameras[i][1];
+                        emitter.cX = eyes[i % eyes.length][0];
+                        emitter.cY = eyes[i % eyes.length][1];
+                        emitter.cZ = eyes[i % eyes.length][2];
+                        particle.rotation = particle.prevRotation = angle;
+
+                        float[] expected = renderWithMatrices(angle);
+                        float[] actual = render();
+                        String message = facing + " " + perspective + " " + i + " " + angle;
+
+                        for (int j = 0; j < 12; j++) {
+                            assertEquals(expected[j], actual[j], 0.001, message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesPackedVertices() {
+        particle.r = 1;
+        particle.g = 0.5F;
+        particle.b = 0;
+        particle.a = 1;
+        billboard.render(emitter, particle, sink, 0);
+        billboard.render(emitter, particle, sink, 0);
+
+        ByteBuffer buffer = sink.getBuffer();
+
+        assertEquals(8, sink.getVertexCount());
+        assertEquals(ByteBufferVertexSink.QUAD_SIZE * 2, buffer.remaining());
+
+        /* UVs of the second vertex, light and color */
+        assertEquals(8 / 128F, buffer.getFloat(ByteBufferVertexSink.VERTEX_SIZE + 12), EPSILON);
+        assertEquals(0, buffer.getFloat(ByteBufferVertexSink.VERTEX_SIZE + 16), EPSILON);
+        assertEquals(240, buffer.getShort(20));
+        assertEquals(240, buffer.getShort(22));
+        assertEquals((byte) 255, buffer.get(24));
+        assertEquals((byte) 127, buffer.get(25));
+        assertEquals((byte) 0, buffer.get(26));
+        assertEquals((byte) 255, buffer.get(27));
+    }
+}
@@ -0,0 +1,122 @@
+package com.eliotlash.particlelib.particles.render;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.molang.expressions.MolangValue;
+import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.components.appearance.BedrockComponentAppearanceBillboard;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureAtlasTest {
+    static final ResourceLocation ATLAS = new ResourceLocation("test", "atlas");
+
+    @Test
+    void packedRectanglesDontOverlap() {
+        SkylinePacker packer = new SkylinePacker(256, 256);
+        Random random = new Random(42);
+        List<int[]> placed = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            int w = 1 + random.nextInt(32);
+            int h = 1 + random.nextInt(32);
+            int[] position = packer.insert(w, h);
+
+            if (position == null) {
+                continue;
+            }
+
+            int[] rect = {position[0], position[1], w, h};
+
+            assertTrue(rect[0] >= 0 && rect[1] >= 0 && rect[0] + w <= 256 && rect[1] + h <= 256);
+
+            for (int[] other : placed) {
+                boolean overlaps = rect[0] < other[0] + other[2] && other[0] < rect[0] + rect[2]
+                    && rect[1] < other[1] + other[3] && other[1] < rect[1] + rect[3];
+
+                assertFalse(overlaps);
+            }
+
+            placed.add(rect);
+        }
+
+        assertTrue(placed.size() > 50);
+        assertNull(packer.insert(257, 1));
+    }
+
+    @Test
+    void overflowsIntoNewPages() {
+        TextureAtlas atlas = new TextureAtlas(ATLAS, 64, 0);
+
+        for (int i = 0; i < 5; i++) {
+            atlas.add(new ResourceLocation("test", "texture_" + i), 32, 32);
+        }
+
+        atlas.add(new ResourceLocation("test", "huge"), 128, 16);
+        atlas.pack();
+
+        assertEquals(2, atlas.getPages().size());
+        assertEquals(64, atlas.getPages().get(0).width);
+        assertEquals(64, atlas.getPages().get(0).height);
+        assertEquals(32, atlas.getPages().get(1).width);
+        assertEquals("atlas_1", atlas.getPages().get(1).location.path);
+        assertNull(atlas.getRegion(new ResourceLocation("test", "huge")));
+    }
+
+    @Test
+    void remapsBillboardUVs() {
+        ResourceLocation texture = new ResourceLocation("test", "particles.png");
+        BedrockScheme scheme = new BedrockScheme();
+        BedrockComponentAppearanceBillboard billboard = new BedrockComponentAppearanceBillboard();
+
+        billboard.textureWidth = billboard.textureHeight = 16;
+        billboard.uvX = new MolangValue(null, new Constant(8));
+        billboard.uvW = new MolangValue(null, new Constant(8));
+        billboard.uvH = new MolangValue(null, new Constant(16));
+        scheme.texture = texture;
+        scheme.components.add(billboard);
+
+        TextureAtlas atlas = new TextureAtlas(ATLAS, 256, 1);
+
+        atlas.add(new ResourceLocation("test", "big.png"), 64, 64);
+        atlas.add(texture, 32, 32);
+        atlas.pack();
+
+        assertTrue(atlas.apply(scheme));
+        assertEquals(atlas.getPages().get(0).location, scheme.getRenderTexture());
+
+        AtlasRegion region = scheme.atlas;
+        UvSink sink = new UvSink();
+
+        billboard.renderOnScreen(new com.eliotlash.particlelib.particles.emitter.BedrockParticle(), 0, 0, 1, 0, sink);
+
+        assertEquals(region.getU(0.5F), sink.u1, 0.0001);
+        assertEquals(region.getU(1), sink.u2, 0.0001);
+        assertEquals(region.getV(0), sink.v1, 0.0001);
+        assertEquals(region.getV(1), sink.v2, 0.0001);
+
+        /* Repeating UVs can't be put into an atlas */
+        billboard.uvW = new MolangValue(null, new Constant(32));
+
+        assertFalse(atlas.apply(scheme));
+        assertNull(scheme.atlas);
+        assertEquals(texture, scheme.getRenderTexture());
+    }
+
+    static class UvSink implements IParticleVertexSink {
+        float u1, v1, u2, v2;
+
+        @Override
+        public void quad(float[] positions, float u1, float v1, float u2, float v2, int light, float r, float g, float b, float a) {
+            this.u1 = u1;
+            this.v1 = v1;
+            this.u2 = u2;
+            this.v2 = v2;
+        }
+    }
+}
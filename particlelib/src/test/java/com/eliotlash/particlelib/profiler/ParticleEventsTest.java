@@ -0,0 +1,76 @@
+package com.eliotlash.particlelib.profiler;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ParticleEventsTest {
+    @Test
+    void doesNothingWithoutRecording() {
+        assertFalse(ParticleEvents.AVAILABLE && JfrEvents.isRecording());
+        assertNull(ParticleEvents.beginTick());
+        assertNull(ParticleEvents.beginRender());
+
+        ParticleEvents.commitTick(null, null, 0);
+        ParticleEvents.burst(null, 10);
+        ParticleEvents.throttle(null, "low", 1);
+    }
+
+    @Test
+    void recordsTicksRendersAndBursts() throws Exception {
+        assumeTrue(ParticleEvents.AVAILABLE);
+
+        MemoryWorld world = new MemoryWorld();
+        Path file = Files.createTempFile("particles", ".jfr");
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+
+        try (Recording recording = new Recording()) {
+            recording.enable("particlelib.EmitterTick").withThreshold(null);
+            recording.enable("particlelib.EmitterRender").withThreshold(null);
+            recording.enable("particlelib.ParticleBurst");
+            recording.start();
+
+            HeadlessBedrockEmitter emitter = TestSchemes.emitter(world, "test:recorded", TestSchemes.burst(12), TestSchemes.lifetime("10"), TestSchemes.BILLBOARD);
+
+            for (int i = 0; i < 2; i++) {
+                emitter.update();
+                emitter.render(0.5F);
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        Files.delete(file);
+
+        assertEquals(2, count(events, "particlelib.EmitterTick"));
+        assertEquals(2, count(events, "particlelib.EmitterRender"));
+        assertEquals(1, count(events, "particlelib.ParticleBurst"));
+
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("particlelib.ParticleBurst")) {
+                assertEquals("test:recorded", event.getString("scheme"));
+                assertEquals(12, event.getInt("particles"));
+            }
+        }
+    }
+
+    static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter((event) -> event.getEventType().getName().equals(name)).count();
+    }
+}
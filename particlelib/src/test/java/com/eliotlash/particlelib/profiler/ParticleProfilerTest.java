@@ -0,0 +1,69 @@
+package com.eliotlash.particlelib.profiler;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ParticleProfilerTest {
+    static void simulate() {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+
+        HeadlessBedrockEmitter emitter = TestSchemes.emitter(world, "test:profiled",
+            TestSchemes.burst(10),
+            TestSchemes.lifetime("10"),
+            "\"minecraft:particle_motion_dynamic\":{\"linear_acceleration\":[0,-9.8,0]}",
+            TestSchemes.BILLBOARD);
+
+        ParticleProfiler.reset();
+
+        for (int i = 0; i < 3; i++) {
+            emitter.update();
+            emitter.render(0.5F);
+        }
+    }
+
+    /* Run by the main test task, which uses the default settings */
+    @Test
+    void recordsNothingWhenDisabled() {
+        assumeFalse(ParticleProfiler.ENABLED, "Run without -D" + ParticleProfiler.PROPERTY + "=true");
+
+        simulate();
+
+        assertEquals(0, ParticleProfiler.start());
+        assertTrue(ParticleProfiler.snapshot().isEmpty());
+    }
+
+    /* Run by the profilerTest task */
+    @Test
+    void recordsComponentsAndPasses() {
+        assumeTrue(ParticleProfiler.ENABLED, "Run with -D" + ParticleProfiler.PROPERTY + "=true");
+
+        simulate();
+
+        Map<String, ParticleProfiler.Stats> sections = ParticleProfiler.snapshot().get("test:profiled");
+
+        assertNotNull(sections);
+        assertEquals(3, sections.get(ParticleProfiler.UPDATE).calls);
+        assertEquals(3, sections.get(ParticleProfiler.RENDER).calls);
+        assertEquals(30, sections.get(ParticleProfiler.RENDER).particles);
+
+        /* Particles spawn before they're updated, so they move every tick */
+        assertEquals(30, sections.get("BedrockComponentMotionDynamic").particles);
+        assertTrue(sections.get("BedrockComponentAppearanceBillboard").particles >= 30);
+        assertTrue(sections.get(ParticleProfiler.UPDATE).nanos > 0);
+
+        ParticleProfiler.reset();
+
+        assertTrue(ParticleProfiler.snapshot().isEmpty());
+    }
+}
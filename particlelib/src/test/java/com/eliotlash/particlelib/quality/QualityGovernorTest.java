@@ -0,0 +1,134 @@
+package com.eliotlash.particlelib.quality;
+
+import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.TestSchemes;
+import com.eliotlash.particlelib.headless.HeadlessBedrockEmitter;
+import com.eliotlash.particlelib.mcwrapper.MemoryWorld;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QualityGovernorTest {
+    static final long MS = 1000000L;
+
+    @AfterEach
+    void tearDown() {
+        Settings.setQuality(null);
+    }
+
+    @Test
+    void degradesOverBudgetAndRecoversWithHysteresis() {
+        QualityGovernor governor = new QualityGovernor(4, new HysteresisQualityPolicy(5, 20, 0.5), QualityLevel.DEFAULT_LEVELS);
+
+        for (int i = 0; i < 4; i++) {
+            governor.frame(10 * MS);
+        }
+
+        assertEquals(0, governor.getLevelIndex());
+
+        governor.frame(10 * MS);
+
+        assertEquals(1, governor.getLevelIndex());
+        assertSame(governor.getLevel(), Settings.getQuality());
+        assertFalse(Settings.getQuality().sorting);
+
+        /* Update time of ticks counts towards the next frame */
+        for (int i = 0; i < 100; i++) {
+            governor.addUpdate(6 * MS);
+            governor.frame(1 * MS);
+        }
+
+        assertEquals(QualityLevel.DEFAULT_LEVELS.size() - 1, governor.getLevelIndex());
+
+        /* Within the budget, but not below the recovery threshold */
+        for (int i = 0; i < 200; i++) {
+            governor.frame(3 * MS);
+        }
+
+        assertEquals(QualityLevel.DEFAULT_LEVELS.size() - 1, governor.getLevelIndex());
+
+        for (int i = 0; i < 39; i++) {
+            governor.frame(1 * MS);
+        }
+
+        assertEquals(QualityLevel.DEFAULT_LEVELS.size() - 2, governor.getLevelIndex());
+
+        governor.setBudget(0);
+
+        assertEquals(0, governor.getLevelIndex());
+        assertSame(QualityLevel.FULL, Settings.getQuality());
+    }
+
+    @Test
+    void customPolicyDecidesLevel() {
+        IQualityPolicy policy = new IQualityPolicy() {
+            @Override
+            public int decide(int level, int levels, double frameMillis, double budgetMillis) {
+                return frameMillis > budgetMillis ? levels + 5 : -1;
+            }
+
+            @Override
+            public void reset() {
+            }
+        };
+
+        QualityGovernor governor = new QualityGovernor(2, policy, QualityLevel.DEFAULT_LEVELS);
+
+        assertEquals("minimal", governor.frame(3 * MS).name);
+        assertEquals("full", governor.frame(1 * MS).name);
+    }
+
+    @Test
+    void reducedQualitySpawnsFewerParticles() {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        Settings.setQuality(new QualityLevel("quarter", false, 0.25F, 1, true));
+
+        HeadlessBedrockEmitter emitter = TestSchemes.emitter(world, "test:quality", TestSchemes.burst(100), TestSchemes.lifetime("10"), TestSchemes.BILLBOARD);
+
+        emitter.update();
+
+        assertEquals(25, emitter.particles.size());
+    }
+
+    @Test
+    void farEmittersHoldAppearanceBetweenEvaluations() {
+        MemoryWorld world = new MemoryWorld();
+
+        Settings.setBlockLookupImpl(world::lookupBlock);
+        Settings.setQuality(new QualityLevel("far", false, 1, 4, true));
+
+        HeadlessBedrockEmitter emitter = TestSchemes.emitter(world, "test:far",
+            TestSchemes.burst(1),
+            TestSchemes.lifetime("10"),
+            "\"minecraft:particle_appearance_billboard\":{\"size\":[\"0.1 + variable.particle_age\",0.1],\"facing_camera_mode\":\"lookat_xyz\"}");
+
+        emitter.cX = Settings.getFarEmitterDistance() * 2;
+
+        /* Until the first evaluation, appearance is evaluated every frame */
+        for (int i = 0; i < 4; i++) {
+            emitter.update();
+        }
+
+        emitter.render(1);
+
+        float last = emitter.quad.w;
+
+        /* Three skipped ticks, an evaluated one and three more skipped */
+        for (int i = 0; i < 7; i++) {
+            emitter.update();
+            emitter.render(0);
+
+            assertEquals(last, emitter.quad.w, 0.0001F);
+
+            emitter.render(1);
+
+            assertTrue(emitter.quad.w >= last);
+            last = emitter.quad.w;
+        }
+
+        assertTrue(last > 0.2F);
+    }
+}
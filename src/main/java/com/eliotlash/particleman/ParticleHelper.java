@@ -4,6 +4,7 @@ import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particleman.client.RenderingHandler;
 import com.eliotlash.particleman.client.particles.emitter.RenderableBedrockEmitter;
+import com.eliotlash.particleman.client.textures.ParticleAtlasTexture;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import net.minecraft.client.Minecraft;
@@ -33,7 +34,9 @@ public class ParticleHelper {
         ) {
             Gson GSON = new Gson();
             JsonObject jsonobject = JsonUtils.fromJson(GSON, reader, JsonObject.class);
-            return BedrockScheme.parse(jsonobject);
+            BedrockScheme scheme = BedrockScheme.parse(jsonobject);
+            ParticleAtlasTexture.track(scheme);
+            return scheme;
         }
     }
 
@@ -3,9 +3,12 @@ package com.eliotlash.particleman;
 import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
 import com.eliotlash.particleman.mcwrapper.ConversionUtils;
 import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
 import com.eliotlash.particlelib.particles.BedrockScheme;
 import com.eliotlash.particleman.client.RenderingHandler;
 import com.eliotlash.particleman.client.particles.RenderableBedrockSchemeJsonAdapter;
+import com.eliotlash.particleman.client.particles.components.IComponentParticleRender;
+import com.eliotlash.particleman.client.textures.ParticleAtlasTexture;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventHandler;
@@ -26,17 +29,22 @@ public class ParticleMan
     public void preInit(FMLPreInitializationEvent event)
     {
         logger = event.getModLog();
+
+        Settings.setWatchdogListener((scheme, anomaly, emitter) -> logger.warn("Particle emitter of \"{}\" was limited: {}", scheme, anomaly));
     }
 
     @EventHandler
     public void init(FMLInitializationEvent event)
     {
         MinecraftForge.EVENT_BUS.register(new RenderingHandler()); // For instance event handlers
+        ParticleAtlasTexture.init();
+        ParticleMetrics.register();
     }
 
     static {
         Settings.setBlockLookupImpl(ConversionUtils::blockLookup);
         BedrockScheme.setJsonAdapter(new RenderableBedrockSchemeJsonAdapter());
+        BedrockScheme.registerDispatchType(IComponentParticleRender.class);
         BedrockScheme.setDefaultTexture(new ResourceLocation(MODID, "textures/default_particles.png"));
     }
 }
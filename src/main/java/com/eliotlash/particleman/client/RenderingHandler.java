@@ -1,8 +1,14 @@
 package com.eliotlash.particleman.client;
 
 import com.eliotlash.particlelib.Settings;
+import com.eliotlash.particlelib.mcwrapper.BlockCache;
+import com.eliotlash.particlelib.mcwrapper.LightCache;
 import com.eliotlash.particlelib.mcwrapper.Size2f;
+import com.eliotlash.particlelib.metrics.ParticleMetrics;
+import com.eliotlash.particlelib.quality.QualityGovernor;
+import com.eliotlash.particleman.client.particles.ParticleBatcher;
 import com.eliotlash.particleman.client.particles.emitter.RenderableBedrockEmitter;
+import com.eliotlash.particleman.client.textures.ParticleAtlasTexture;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
@@ -12,7 +18,9 @@ import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.world.World;
 import net.minecraftforge.client.event.RenderPlayerEvent;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -34,6 +42,17 @@ public class RenderingHandler
      */
     private static final List<RenderableBedrockEmitter> emitters = new ArrayList<>();
 
+    /**
+     * Merges emitters sharing the same texture into one draw call
+     */
+    private static final ParticleBatcher batcher = new ParticleBatcher();
+
+    /**
+     * Lowers particle quality when particles take longer than a frame
+     * budget (disabled until a budget is set)
+     */
+    public static final QualityGovernor governor = new QualityGovernor();
+
     /**
      * Render lit particles (call by ASM, but not used for anything yet...
      * I might use it for morph based Snowstorm system)...
@@ -46,8 +65,13 @@ public class RenderingHandler
      */
     public static void renderParticles(float partialTicks)
     {
-        if (!emitters.isEmpty())
+        if (emitters.isEmpty())
+        {
+            governor.frame(0);
+        }
+        else
         {
+            long start = System.nanoTime();
             Entity camera = Minecraft.getMinecraft().getRenderViewEntity();
             double playerX = camera.prevPosX + (camera.posX - camera.prevPosX) * (double) partialTicks;
             double playerY = camera.prevPosY + (camera.posY - camera.prevPosY) * (double) partialTicks;
@@ -67,7 +91,9 @@ public class RenderingHandler
             GlStateManager.disableCull();
             GlStateManager.enableTexture2D();
 
-            if (Settings.getParticleSorting())
+            boolean sorting = Settings.getParticleSorting() && Settings.getQuality().sorting;
+
+            if (sorting)
             {
                 emitters.sort((a, b) ->
                 {
@@ -87,9 +113,10 @@ public class RenderingHandler
                 });
             }
 
+            batcher.render(emitters, sorting, partialTicks);
+
             for (RenderableBedrockEmitter emitter : emitters)
             {
-                emitter.render(partialTicks);
                 emitter.running = emitter.sanityTicks < 2;
             }
 
@@ -97,6 +124,12 @@ public class RenderingHandler
 
             GlStateManager.disableBlend();
             GlStateManager.alphaFunc(516, 0.1F);
+
+            long nanos = System.nanoTime() - start;
+
+            ParticleMetrics.FRAME_NANOS.record(nanos);
+            governor.frame(nanos);
+            ParticleMetrics.DRAW_CALLS.set(batcher.drawCalls);
         }
     }
 
@@ -127,7 +160,12 @@ public class RenderingHandler
 
     public static void updateEmitters()
     {
+        long start = System.nanoTime();
+
+        LightCache.SHARED.clear();
+
         Iterator<RenderableBedrockEmitter> it = emitters.iterator();
+        int particles = 0;
 
         while (it.hasNext())
         {
@@ -139,7 +177,40 @@ public class RenderingHandler
             {
                 it.remove();
                 emitter.added = false;
+                ParticleMetrics.EMITTERS_REMOVED.increment();
             }
+            else
+            {
+                particles += emitter.particles.size();
+            }
+        }
+
+        ParticleMetrics.LIVE_EMITTERS.set(emitters.size());
+        ParticleMetrics.LIVE_PARTICLES.set(particles);
+        governor.addUpdate(System.nanoTime() - start);
+    }
+
+    /**
+     * Blocks remembered by particles belong to the previous world, so
+     * make them recheck
+     */
+    @SubscribeEvent
+    public void onWorldLoad(WorldEvent.Load event)
+    {
+        BlockCache.invalidate();
+        LightCache.SHARED.clear();
+    }
+
+    /**
+     * Upload particle atlas pages on the client thread, so presets
+     * replaced on other threads never touch GL
+     */
+    @SubscribeEvent
+    public void onClientTick(TickEvent.ClientTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END)
+        {
+            ParticleAtlasTexture.tick();
         }
     }
 
@@ -0,0 +1,51 @@
+package com.eliotlash.particleman.client.particles;
+
+import com.eliotlash.particlelib.particles.render.IParticleVertexSink;
+import net.minecraft.client.renderer.BufferBuilder;
+
+/**
+ * Vertex sink that writes into Minecraft's buffer builder. The builder
+ * should be started either with POSITION_TEX_LMAP_COLOR format (when
+ * lightmap is enabled), or with POSITION_TEX_COLOR format
+ */
+public class BufferBuilderVertexSink implements IParticleVertexSink
+{
+    public BufferBuilder builder;
+    public boolean lightmap;
+
+    public BufferBuilderVertexSink(boolean lightmap)
+    {
+        this.lightmap = lightmap;
+    }
+
+    public BufferBuilderVertexSink set(BufferBuilder builder)
+    {
+        this.builder = builder;
+
+        return this;
+    }
+
+    @Override
+    public void quad(float[] positions, float u1, float v1, float u2, float v2, int light, float r, float g, float b, float a)
+    {
+        int lightX = light >> 16 & 65535;
+        int lightY = light & 65535;
+
+        this.vertex(positions, 0, u1, v1, lightX, lightY, r, g, b, a);
+        this.vertex(positions, 3, u2, v1, lightX, lightY, r, g, b, a);
+        this.vertex(positions, 6, u2, v2, lightX, lightY, r, g, b, a);
+        this.vertex(positions, 9, u1, v2, lightX, lightY, r, g, b, a);
+    }
+
+    private void vertex(float[] positions, int offset, float u, float v, int lightX, int lightY, float r, float g, float b, float a)
+    {
+        this.builder.pos(positions[offset], positions[offset + 1], positions[offset + 2]).tex(u, v);
+
+        if (this.lightmap)
+        {
+            this.builder.lightmap(lightX, lightY);
+        }
+
+        this.builder.color(r, g, b, a).endVertex();
+    }
+}
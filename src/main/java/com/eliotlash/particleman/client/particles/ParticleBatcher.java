@@ -0,0 +1,175 @@
+package com.eliotlash.particleman.client.particles;
+
+import com.eliotlash.particlelib.particles.BedrockMaterial;
+import com.eliotlash.particleman.client.particles.emitter.RenderableBedrockEmitter;
+import com.eliotlash.particleman.client.textures.GifTexture;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import org.lwjgl.opengl.GL11;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particle batcher
+ *
+ * Groups emitters which can be drawn with the same state (texture, GIF
+ * frame, material and lighting) and draws every group with one buffer
+ * fill and one draw call, instead of one per emitter. When emitters are
+ * sorted back to front, only consecutive emitters get merged so the
+ * order is kept.
+ */
+@SideOnly(Side.CLIENT)
+public class ParticleBatcher
+{
+    /**
+     * Batches are reused between frames, only first {@link #count} are used
+     */
+    private final List<Batch> batches = new ArrayList<>();
+    private int count;
+
+    /* Statistics of the last frame */
+    public int drawCalls;
+    public int emitters;
+
+    public void render(List<RenderableBedrockEmitter> emitters, boolean sorted, float partialTicks)
+    {
+        this.count = 0;
+        this.drawCalls = 0;
+        this.emitters = 0;
+
+        for (RenderableBedrockEmitter emitter : emitters)
+        {
+            if (emitter.scheme == null)
+            {
+                continue;
+            }
+
+            ResourceLocation texture = emitter.getTexture();
+            int frame = GifTexture.getFrame(texture, emitter.age, partialTicks);
+            BedrockMaterial material = emitter.scheme.material;
+            Batch batch = null;
+
+            if (sorted)
+            {
+                Batch last = this.count > 0 ? this.batches.get(this.count - 1) : null;
+
+                if (last != null && last.matches(texture, frame, material, emitter.lit))
+                {
+                    batch = last;
+                }
+            }
+            else
+            {
+                for (int i = 0; i < this.count; i++)
+                {
+                    if (this.batches.get(i).matches(texture, frame, material, emitter.lit))
+                    {
+                        batch = this.batches.get(i);
+
+                        break;
+                    }
+                }
+            }
+
+            if (batch == null)
+            {
+                batch = this.next();
+                batch.set(texture, frame, material, emitter.lit, emitter.age);
+            }
+
+            batch.emitters.add(emitter);
+            this.emitters += 1;
+        }
+
+        for (int i = 0; i < this.count; i++)
+        {
+            this.draw(this.batches.get(i), partialTicks);
+        }
+    }
+
+    private Batch next()
+    {
+        if (this.count == this.batches.size())
+        {
+            this.batches.add(new Batch());
+        }
+
+        return this.batches.get(this.count++);
+    }
+
+    private void draw(Batch batch, float partialTicks)
+    {
+        boolean empty = true;
+
+        for (RenderableBedrockEmitter emitter : batch.emitters)
+        {
+            if (!emitter.particles.isEmpty())
+            {
+                empty = false;
+
+                break;
+            }
+        }
+
+        if (empty)
+        {
+            /* Components still expect pre and post render calls */
+            for (RenderableBedrockEmitter emitter : batch.emitters)
+            {
+                emitter.renderParticles(null, partialTicks);
+            }
+        }
+        else
+        {
+            BufferBuilder builder = Tessellator.getInstance().getBuffer();
+
+            GifTexture.bindTexture(batch.texture, batch.ticks, partialTicks);
+            builder.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_LMAP_COLOR);
+
+            for (RenderableBedrockEmitter emitter : batch.emitters)
+            {
+                emitter.renderParticles(builder, partialTicks);
+            }
+
+            Tessellator.getInstance().draw();
+            this.drawCalls += 1;
+        }
+
+        batch.emitters.clear();
+        batch.texture = null;
+    }
+
+    private static class Batch
+    {
+        public final List<RenderableBedrockEmitter> emitters = new ArrayList<>();
+
+        public ResourceLocation texture;
+        public int frame;
+        public BedrockMaterial material;
+        public boolean lit;
+
+        /**
+         * Age of the first emitter, used to bind the right GIF frame
+         */
+        public int ticks;
+
+        public void set(ResourceLocation texture, int frame, BedrockMaterial material, boolean lit, int ticks)
+        {
+            this.texture = texture;
+            this.frame = frame;
+            this.material = material;
+            this.lit = lit;
+            this.ticks = ticks;
+        }
+
+        public boolean matches(ResourceLocation texture, int frame, BedrockMaterial material, boolean lit)
+        {
+            return this.texture.equals(texture) && this.frame == frame && this.material == material && this.lit == lit;
+        }
+    }
+}
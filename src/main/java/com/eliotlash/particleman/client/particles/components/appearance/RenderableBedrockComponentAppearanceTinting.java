@@ -12,19 +12,15 @@ public class RenderableBedrockComponentAppearanceTinting extends BedrockComponen
 	@Override
 	public void render(RenderableBedrockEmitter emitter, BedrockParticle particle, BufferBuilder builder, float partialTicks)
 	{
-		this.renderOnScreen(particle, 0, 0, 0, 0);
+		if (emitter.isAppearancePerFrame(particle))
+		{
+			this.compute(particle);
+		}
 	}
 
 	@Override
 	public void renderOnScreen(BedrockParticle particle, int x, int y, float scale, float partialTicks)
 	{
-		if (this.color != null)
-		{
-			this.color.compute(particle);
-		}
-		else
-		{
-			particle.r = particle.g = particle.b = particle.a = 1;
-		}
+		this.compute(particle);
 	}
 }
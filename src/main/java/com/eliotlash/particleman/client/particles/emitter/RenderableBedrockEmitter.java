@@ -1,14 +1,19 @@
 package com.eliotlash.particleman.client.particles.emitter;
 
 import com.eliotlash.particlelib.mcwrapper.IWorld;
+import com.eliotlash.particlelib.mcwrapper.LightCache;
 import com.eliotlash.particlelib.mcwrapper.Size2f;
 import com.eliotlash.particleman.mcwrapper.ConversionUtils;
 import com.eliotlash.particleman.mcwrapper.WorldWrapper;
+import com.eliotlash.mclib.math.VariableContext;
 import com.eliotlash.mclib.utils.Interpolations;
 import com.eliotlash.particlelib.Settings;
 import com.eliotlash.particlelib.particles.components.IComponentParticleRenderBase;
 import com.eliotlash.particlelib.particles.emitter.BedrockEmitter;
 import com.eliotlash.particlelib.particles.emitter.BedrockParticle;
+import com.eliotlash.particlelib.profiler.ParticleEvents;
+import com.eliotlash.particlelib.profiler.ParticleProfiler;
+import com.eliotlash.particleman.client.particles.BufferBuilderVertexSink;
 import com.eliotlash.particleman.client.textures.GifTexture;
 import com.eliotlash.particleman.client.particles.components.IComponentParticleRender;
 import net.minecraft.client.Minecraft;
@@ -18,7 +23,8 @@ import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import org.lwjgl.opengl.GL11;
 
@@ -29,16 +35,13 @@ public class RenderableBedrockEmitter extends BedrockEmitter
 {
 	private World concreteWorld;
 
-	private BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos();
+	/* Texture of the scheme (or its atlas page) resolved to Minecraft's
+	 * resource location, resolved again only when it changes */
+	private com.eliotlash.particlelib.mcwrapper.ResourceLocation texture;
+	private ResourceLocation concreteTexture;
 
-	/* Camera properties */
-	public int perspective;
-	public float cYaw;
-	public float cPitch;
-
-	public double cX;
-	public double cY;
-	public double cZ;
+	/* Sink that billboards of this emitter are written through */
+	public final BufferBuilderVertexSink sink = new BufferBuilderVertexSink(true);
 
 	public double getDistanceSq()
 	{
@@ -93,29 +96,37 @@ public class RenderableBedrockEmitter extends BedrockEmitter
 		}
 
 		float partialTicks = Minecraft.getMinecraft().getRenderPartialTicks();
-		List<IComponentParticleRender> list = this.scheme.getComponents(IComponentParticleRender.class);
+		List<IComponentParticleRender> list = this.scheme.getDispatch(IComponentParticleRender.class);
 
 		if (!list.isEmpty())
 		{
-		    // TODO cache or safe delete
-			GifTexture.bindTexture(ConversionUtils.abstractToConcreteRL(this.scheme.texture));
+			GifTexture.bindTexture(this.getTexture());
 
 			GlStateManager.enableBlend();
 			GlStateManager.disableCull();
 
-			if (this.guiParticle == null || this.guiParticle.dead)
+			VariableContext previous = this.enterState();
+
+			try
 			{
-				this.guiParticle = this.createParticle(true);
-			}
+				if (this.guiParticle == null || this.guiParticle.dead)
+				{
+					this.guiParticle = this.createParticle(true);
+				}
 
-			this.rotation.setIdentity();
-			this.guiParticle.update(this);
-			this.setEmitterVariables(partialTicks);
-			this.setParticleVariables(this.guiParticle, partialTicks);
+				this.rotation.setIdentity();
+				this.guiParticle.update(this);
+				this.setEmitterVariables(partialTicks);
+				this.setParticleVariables(this.guiParticle, partialTicks);
 
-			for (IComponentParticleRender render : list)
+				for (IComponentParticleRender render : list)
+				{
+					render.renderOnScreen(this.guiParticle, x, y, scale, partialTicks);
+				}
+			}
+			finally
 			{
-				render.renderOnScreen(this.guiParticle, x, y, scale, partialTicks);
+				VariableContext.exit(previous);
 			}
 
 			GlStateManager.disableBlend();
@@ -123,6 +134,28 @@ public class RenderableBedrockEmitter extends BedrockEmitter
 		}
 	}
 
+	/**
+	 * Get the texture to render scheme with (which may be a texture atlas
+	 * page), or null if there is no scheme
+	 */
+	public ResourceLocation getTexture()
+	{
+		if (this.scheme == null)
+		{
+			return null;
+		}
+
+		com.eliotlash.particlelib.mcwrapper.ResourceLocation texture = this.scheme.getRenderTexture();
+
+		if (texture != this.texture || this.concreteTexture == null)
+		{
+			this.texture = texture;
+			this.concreteTexture = ConversionUtils.cachedConcreteRL(this.texture);
+		}
+
+		return this.concreteTexture;
+	}
+
 	/**
 	 * Render all the particles in this particle emitter
 	 */
@@ -133,62 +166,125 @@ public class RenderableBedrockEmitter extends BedrockEmitter
 			return;
 		}
 
-		this.setupCameraProperties(partialTicks);
+		if (this.particles.isEmpty())
+		{
+			this.renderParticles(null, partialTicks);
+
+			return;
+		}
 
 		BufferBuilder builder = Tessellator.getInstance().getBuffer();
-		List<IComponentParticleRenderBase> renders = this.scheme.particleRender;
 
-		for (IComponentParticleRenderBase component : renders)
+		GifTexture.bindTexture(this.getTexture(), this.age, partialTicks);
+		builder.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_LMAP_COLOR);
+
+		this.renderParticles(builder, partialTicks);
+
+		Tessellator.getInstance().draw();
+	}
+
+	/**
+	 * Write all the particles in this particle emitter into given buffer,
+	 * which should be already started (with POSITION_TEX_LMAP_COLOR format)
+	 * and have emitter's texture bound. Binding and drawing is left to the
+	 * caller, so emitters sharing the same texture can be drawn at once
+	 * (see {@link com.eliotlash.particleman.client.particles.ParticleBatcher}).
+	 * Buffer may be null only if there are no particles
+	 */
+	public void renderParticles(BufferBuilder builder, float partialTicks)
+	{
+		if (this.scheme == null)
 		{
-			component.preRender(this, partialTicks);
+			return;
 		}
 
-		if (!this.particles.isEmpty())
+		this.setupCameraProperties(partialTicks);
+
+		List<IComponentParticleRenderBase> renders = this.scheme.particleRender;
+		List<IComponentParticleRender> particleRenders = this.scheme.getDispatch(IComponentParticleRender.class);
+		long renderStart = ParticleProfiler.start();
+		Object event = ParticleEvents.beginRender();
+
+		VariableContext previous = this.enterState();
+
+		try
 		{
-			if (Settings.getParticleSorting())
+			for (IComponentParticleRenderBase component : renders)
+			{
+				long start = ParticleProfiler.start();
+
+				component.preRender(this, partialTicks);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+
+			if (!this.particles.isEmpty())
 			{
-				this.particles.sort((a, b) ->
+				if (Settings.getParticleSorting() && Settings.getQuality().sorting)
 				{
-					double ad = this.getDistanceSq(a);
-					double bd = this.getDistanceSq(b);
+					long start = ParticleProfiler.start();
 
-					if (ad < bd)
-					{
-						return 1;
-					}
-					else if (ad > bd)
+					this.particles.sort((a, b) ->
 					{
-						return -1;
-					}
+						double ad = this.getDistanceSq(a);
+						double bd = this.getDistanceSq(b);
+
+						if (ad < bd)
+						{
+							return 1;
+						}
+						else if (ad > bd)
+						{
+							return -1;
+						}
+
+						return 0;
+					});
+
+					ParticleProfiler.record(this.scheme, ParticleProfiler.SORT, start, this.particles.size());
+				}
 
-					return 0;
-				});
-			}
+				/* Emitter variables are the same for all particles, so they're
+				 * set once, and only if some particle is evaluated this frame */
+				boolean emitterVariables = false;
 
-			// TODO cache or delete
-			GifTexture.bindTexture(ConversionUtils.abstractToConcreteRL(this.scheme.texture), this.age, partialTicks);
-			builder.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_LMAP_COLOR);
+				for (BedrockParticle particle : this.particles)
+				{
+					if (this.isAppearancePerFrame(particle))
+					{
+						if (!emitterVariables)
+						{
+							this.setEmitterVariables(partialTicks);
+							emitterVariables = true;
+						}
 
-			for (BedrockParticle particle : this.particles)
-			{
-				this.setEmitterVariables(partialTicks);
-				this.setParticleVariables(particle, partialTicks);
+						this.setParticleVariables(particle, partialTicks);
+					}
 
-				for (IComponentParticleRenderBase component : renders)
-				{
-					if(component instanceof IComponentParticleRender) {
-						((IComponentParticleRender) component).render(this, particle, builder, partialTicks);
+					for (IComponentParticleRender component : particleRenders)
+					{
+						long start = ParticleProfiler.start();
+
+						component.render(this, particle, builder, partialTicks);
+						ParticleProfiler.record(this.scheme, component, start, 1);
 					}
 				}
 			}
 
-			Tessellator.getInstance().draw();
-		}
+			for (IComponentParticleRenderBase component : renders)
+			{
+				long start = ParticleProfiler.start();
 
-		for (IComponentParticleRenderBase component : renders)
+				component.postRender(this, partialTicks);
+				ParticleProfiler.record(this.scheme, component, start, 0);
+			}
+		}
+		finally
 		{
-			component.postRender(this, partialTicks);
+			VariableContext.exit(previous);
 		}
+
+		ParticleProfiler.record(this.scheme, ParticleProfiler.RENDER, renderStart, this.particles.size());
+		ParticleEvents.commitRender(event, this.scheme, this.particles.size());
 	}
 
 	public void setupCameraProperties(float partialTicks)
@@ -207,17 +303,16 @@ public class RenderableBedrockEmitter extends BedrockEmitter
 	}
 
 	/**
-	 * Get brightness for the block
+	 * Get brightness for the block (looked up through the shared light
+	 * cache, which is cleared every tick by the rendering handler)
 	 */
 	public int getBrightnessForRender(float partialTicks, double x, double y, double z)
 	{
-		if (this.lit || this.concreteWorld == null)
+		if (this.lit || this.world == null)
 		{
 			return 15728880;
 		}
 
-		this.blockPos.setPos(x, y, z);
-
-		return this.concreteWorld.isBlockLoaded(this.blockPos) ? this.concreteWorld.getCombinedLight(this.blockPos, 0) : 0;
+		return LightCache.SHARED.get(this.world, com.eliotlash.particlelib.mcwrapper.BlockPos.pack(MathHelper.floor(x), MathHelper.floor(y), MathHelper.floor(z)));
 	}
 }
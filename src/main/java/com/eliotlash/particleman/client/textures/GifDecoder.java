@@ -0,0 +1,174 @@
+package com.eliotlash.particleman.client.textures;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import org.w3c.dom.NodeList;
+
+/**
+ * GIF decoder
+ *
+ * Decodes all frames of a GIF into full size RGBA buffers, ready to be
+ * uploaded with glTexImage2D. It doesn't touch OpenGL, so it's safe to
+ * run off the render thread
+ */
+public class GifDecoder
+{
+    public int width;
+    public int height;
+    public List<Frame> frames = new ArrayList<Frame>();
+
+    public static GifDecoder decode(InputStream input) throws IOException
+    {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+
+        if (!readers.hasNext())
+        {
+            throw new IOException("No GIF image reader available");
+        }
+
+        ImageReader reader = readers.next();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input))
+        {
+            reader.setInput(stream, false);
+
+            GifDecoder gif = new GifDecoder();
+            int count = reader.getNumImages(true);
+
+            gif.readScreenSize(reader);
+
+            BufferedImage canvas = null;
+            Graphics2D graphics = null;
+
+            for (int i = 0; i < count; i++)
+            {
+                BufferedImage image = reader.read(i);
+                IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                IIOMetadataNode descriptor = child(root, "ImageDescriptor");
+                IIOMetadataNode control = child(root, "GraphicControlExtension");
+
+                if (canvas == null)
+                {
+                    if (gif.width <= 0 || gif.height <= 0)
+                    {
+                        gif.width = image.getWidth();
+                        gif.height = image.getHeight();
+                    }
+
+                    canvas = new BufferedImage(gif.width, gif.height, BufferedImage.TYPE_INT_ARGB);
+                    graphics = canvas.createGraphics();
+                }
+
+                int x = descriptor == null ? 0 : Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+                int y = descriptor == null ? 0 : Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+                int delay = control == null ? 0 : Integer.parseInt(control.getAttribute("delayTime"));
+                String disposal = control == null ? "none" : control.getAttribute("disposalMethod");
+                int[] previous = disposal.equals("restoreToPrevious") ? canvas.getRGB(0, 0, gif.width, gif.height, null, 0, gif.width) : null;
+
+                graphics.setComposite(AlphaComposite.SrcOver);
+                graphics.drawImage(image, x, y, null);
+
+                /* Browsers play frames with (almost) no delay at 10 FPS */
+                gif.frames.add(new Frame(delay <= 1 ? 10 : delay, toBuffer(canvas)));
+
+                if (disposal.equals("restoreToBackgroundColor"))
+                {
+                    graphics.setComposite(AlphaComposite.Clear);
+                    graphics.fillRect(x, y, image.getWidth(), image.getHeight());
+                }
+                else if (previous != null)
+                {
+                    canvas.setRGB(0, 0, gif.width, gif.height, previous, 0, gif.width);
+                }
+            }
+
+            if (graphics != null)
+            {
+                graphics.dispose();
+            }
+
+            return gif;
+        }
+        finally
+        {
+            reader.dispose();
+        }
+    }
+
+    private void readScreenSize(ImageReader reader) throws IOException
+    {
+        IIOMetadata metadata = reader.getStreamMetadata();
+
+        if (metadata == null)
+        {
+            return;
+        }
+
+        IIOMetadataNode screen = child((IIOMetadataNode) metadata.getAsTree("javax_imageio_gif_stream_1.0"), "LogicalScreenDescriptor");
+
+        if (screen != null)
+        {
+            this.width = Integer.parseInt(screen.getAttribute("logicalScreenWidth"));
+            this.height = Integer.parseInt(screen.getAttribute("logicalScreenHeight"));
+        }
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode root, String name)
+    {
+        NodeList nodes = root.getElementsByTagName(name);
+
+        return nodes.getLength() == 0 ? null : (IIOMetadataNode) nodes.item(0);
+    }
+
+    /**
+     * Convert ARGB image into a direct RGBA buffer
+     */
+    private static ByteBuffer toBuffer(BufferedImage image)
+    {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(w * h * 4).order(ByteOrder.nativeOrder());
+
+        for (int pixel : pixels)
+        {
+            buffer.put((byte) (pixel >> 16 & 0xff));
+            buffer.put((byte) (pixel >> 8 & 0xff));
+            buffer.put((byte) (pixel & 0xff));
+            buffer.put((byte) (pixel >> 24 & 0xff));
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    public static class Frame
+    {
+        /**
+         * Delay in hundredths of a second
+         */
+        public final int delay;
+        public final ByteBuffer buffer;
+
+        public Frame(int delay, ByteBuffer buffer)
+        {
+            this.delay = delay;
+            this.buffer = buffer;
+        }
+    }
+}
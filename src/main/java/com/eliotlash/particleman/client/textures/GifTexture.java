@@ -1,9 +1,15 @@
 package com.eliotlash.particleman.client.textures;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
 
 import org.lwjgl.opengl.GL11;
 
@@ -13,16 +19,46 @@ import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.client.renderer.texture.ITextureObject;
 import net.minecraft.client.renderer.texture.ITickableTextureObject;
 import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.client.resources.IResource;
 import net.minecraft.client.resources.IResourceManager;
 import net.minecraft.util.ResourceLocation;
 
+/**
+ * Animated GIF texture
+ *
+ * Every frame is a separate GL texture. Frames are decoded on a background
+ * thread (see {@link GifDecoder}), only uploading them is done on the
+ * client thread, until then the missing texture is bound
+ */
 public class GifTexture extends AbstractTexture implements ITickableTextureObject
 {
+    private static final ExecutorService DECODER = Executors.newSingleThreadExecutor((runnable) ->
+    {
+        Thread thread = new Thread(runnable, "Particle GIF decoder");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
     public ResourceLocation texture;
     public List<GifElement> elements = new ArrayList<GifElement>();
     public int index;
     public int duration;
 
+    /**
+     * End of every frame (sum of its and previous frames' delays), so the
+     * frame at given time can be found by binary search
+     */
+    private int[] ends = new int[0];
+
+    /**
+     * Incremented on every (re)load and deletion, so decoded frames
+     * arriving late don't get uploaded
+     */
+    private int generation;
+
     public int width;
     public int height;
 
@@ -44,22 +80,18 @@ public class GifTexture extends AbstractTexture implements ITickableTextureObjec
         {
             ITextureObject object = textures.getTexture(location);
 
+            if (object == null)
+            {
+                object = new GifTexture(location);
+                textures.loadTexture(location, object);
+            }
+
             if (object instanceof GifTexture)
             {
                 GifTexture texture = (GifTexture) object;
-                int lastIndex = texture.index;
-
-                if (ticks >= 0)
-                {
-                    texture.calculateIndex(ticks, partialTicks);
-                }
+                int index = ticks >= 0 ? texture.findIndex(ticks, partialTicks) : texture.index;
 
-                GlStateManager.bindTexture(object.getGlTextureId());
-
-                if (ticks >= 0)
-                {
-                    texture.index = lastIndex;
-                }
+                GlStateManager.bindTexture(texture.getGlTextureId(index));
 
                 return;
             }
@@ -68,6 +100,27 @@ public class GifTexture extends AbstractTexture implements ITickableTextureObjec
         textures.bindTexture(location);
     }
 
+    /**
+     * Get the frame of a GIF texture which would be bound at given time,
+     * or -1 if it isn't a (loaded) GIF texture
+     */
+    public static int getFrame(ResourceLocation location, int ticks, float partialTicks)
+    {
+        if (ticks < 0 || !location.getResourcePath().endsWith("gif"))
+        {
+            return -1;
+        }
+
+        ITextureObject object = Minecraft.getMinecraft().renderEngine.getTexture(location);
+
+        if (object instanceof GifTexture)
+        {
+            return ((GifTexture) object).findIndex(ticks, partialTicks);
+        }
+
+        return -1;
+    }
+
     public GifTexture(ResourceLocation texture)
     {
         this.texture = texture;
@@ -81,16 +134,65 @@ public class GifTexture extends AbstractTexture implements ITickableTextureObjec
     public void calculateDuration()
     {
         this.duration = 0;
+        this.ends = new int[this.elements.size()];
 
-        for (GifElement element : this.elements)
+        for (int i = 0; i < this.ends.length; i++)
         {
-            this.duration += element.delay;
+            this.duration += this.elements.get(i).delay;
+            this.ends[i] = this.duration;
         }
     }
 
+    /**
+     * Read the file here, but decode it on the background thread, and
+     * upload decoded frames on the client thread once they're ready
+     */
     @Override
     public void loadTexture(IResourceManager resourceManager) throws IOException
-    {}
+    {
+        byte[] bytes;
+
+        try (IResource resource = resourceManager.getResource(this.texture); InputStream stream = resource.getInputStream())
+        {
+            bytes = IOUtils.toByteArray(stream);
+        }
+
+        this.deleteGlTexture();
+
+        int generation = this.generation;
+
+        DECODER.execute(() ->
+        {
+            try
+            {
+                GifDecoder gif = GifDecoder.decode(new ByteArrayInputStream(bytes));
+
+                Minecraft.getMinecraft().addScheduledTask(() -> this.upload(gif, generation));
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void upload(GifDecoder gif, int generation)
+    {
+        if (generation != this.generation)
+        {
+            return;
+        }
+
+        this.width = gif.width;
+        this.height = gif.height;
+
+        for (GifDecoder.Frame frame : gif.frames)
+        {
+            this.add(frame.delay, frame.buffer);
+        }
+
+        this.calculateDuration();
+    }
 
     @Override
     public void tick()
@@ -108,37 +210,59 @@ public class GifTexture extends AbstractTexture implements ITickableTextureObjec
 
     public void calculateIndex(int ticks, float partial)
     {
-        int tick = (int) ((ticks + partial) * 5 % this.duration);
+        this.index = this.findIndex(ticks, partial);
+    }
 
-        int duration = 0;
-        int index = 0;
+    /**
+     * Find the frame shown at given time, without changing {@link #index},
+     * as the texture is shared by all emitters using it
+     */
+    public int findIndex(int ticks, float partial)
+    {
+        int tick = (int) ((ticks + partial) * 5 % this.duration);
 
-        this.index = 0;
+        /* First frame that ends after the tick */
+        int low = 0;
+        int high = this.ends.length - 1;
+        int found = -1;
 
-        for (GifElement element : this.elements)
+        while (low <= high)
         {
-            duration += element.delay;
+            int middle = (low + high) >>> 1;
 
-            if (tick < duration)
+            if (tick < this.ends[middle])
             {
-                this.index = index == 0 ? 0 : index - 1;
-
-                break;
+                found = middle;
+                high = middle - 1;
+            }
+            else
+            {
+                low = middle + 1;
             }
-
-            index++;
         }
+
+        return found <= 0 ? 0 : found - 1;
     }
 
     @Override
     public int getGlTextureId()
     {
-        if (this.index < 0 || this.index >= this.elements.size())
+        return this.getGlTextureId(this.index);
+    }
+
+    public int getGlTextureId(int index)
+    {
+        if (this.elements.isEmpty())
+        {
+            return TextureUtil.MISSING_TEXTURE.getGlTextureId();
+        }
+
+        if (index < 0 || index >= this.elements.size())
         {
             return -1;
         }
 
-        return this.elements.get(this.index).id;
+        return this.elements.get(index).id;
     }
 
     @Override
@@ -149,6 +273,10 @@ public class GifTexture extends AbstractTexture implements ITickableTextureObjec
             GL11.glDeleteTextures(element.id);
             element.id = -1;
         }
+
+        this.elements.clear();
+        this.calculateDuration();
+        this.generation += 1;
     }
 
     public static class GifElement
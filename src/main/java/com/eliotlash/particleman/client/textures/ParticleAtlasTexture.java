@@ -0,0 +1,284 @@
+package com.eliotlash.particleman.client.textures;
+
+import com.eliotlash.particlelib.particles.BedrockLibrary;
+import com.eliotlash.particlelib.particles.BedrockScheme;
+import com.eliotlash.particlelib.particles.render.AtlasRegion;
+import com.eliotlash.particlelib.particles.render.TextureAtlas;
+import com.eliotlash.particleman.ParticleMan;
+import com.eliotlash.particleman.mcwrapper.ConversionUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.client.resources.IReloadableResourceManager;
+import net.minecraft.client.resources.IResource;
+import net.minecraft.client.resources.IResourceManager;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Particle atlas texture
+ *
+ * Uploads {@link TextureAtlas} pages built from schemes' textures, so
+ * emitters of different schemes can be batched together
+ *
+ * Schemes and libraries have to be {@link #track(BedrockScheme) tracked}
+ * to get into the atlas. Tracking, replaced library presets and resource
+ * reloads only mark the atlas as outdated, whatever thread they happen
+ * on. {@link #tick()} then remaps replaced presets into the current
+ * atlas, or, if their textures aren't in it yet, reads and packs the
+ * textures on a loader thread, and uploads the pages on the client
+ * thread once they're ready
+ */
+@SideOnly(Side.CLIENT)
+public class ParticleAtlasTexture
+{
+    public static final com.eliotlash.particlelib.mcwrapper.ResourceLocation LOCATION = new com.eliotlash.particlelib.mcwrapper.ResourceLocation(ParticleMan.MODID, "textures/atlas/particles");
+
+    private static final int MAX_SIZE = 2048;
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor((runnable) ->
+    {
+        Thread thread = new Thread(runnable, "Particle atlas loader");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private static List<net.minecraft.util.ResourceLocation> pages = new ArrayList<>();
+
+    private static final List<BedrockLibrary> libraries = new CopyOnWriteArrayList<>();
+    private static final Set<BedrockScheme> schemes = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final Queue<BedrockScheme> replaced = new ConcurrentLinkedQueue<>();
+
+    private static TextureAtlas atlas;
+    private static CompletableFuture<Stitched> stitching;
+    private static volatile boolean dirty;
+
+    /**
+     * Stitch tracked schemes again after every resource reload
+     */
+    public static void init()
+    {
+        ((IReloadableResourceManager) Minecraft.getMinecraft().getResourceManager()).registerReloadListener((manager) -> dirty = true);
+    }
+
+    /**
+     * Put given scheme into the atlas. Schemes are held weakly, so
+     * there's no need to untrack them
+     */
+    public static void track(BedrockScheme scheme)
+    {
+        schemes.add(scheme);
+        replaced.add(scheme);
+    }
+
+    /**
+     * Put presets of given library into the atlas, including presets
+     * that get reloaded, refreshed or saved later
+     */
+    public static void track(BedrockLibrary library)
+    {
+        libraries.add(library);
+        library.addListener((name, scheme) ->
+        {
+            if (scheme != null)
+            {
+                replaced.add(scheme);
+            }
+        });
+
+        dirty = true;
+    }
+
+    /**
+     * Upload pages that finished loading, remap schemes tracked since the
+     * last tick into the atlas, and start loading pages again if one of
+     * them has a texture that isn't in it. Has to be called on the client
+     * thread every tick
+     */
+    public static void tick()
+    {
+        if (stitching != null && stitching.isDone())
+        {
+            try
+            {
+                upload(stitching.join());
+            }
+            catch (CompletionException e)
+            {
+                e.printStackTrace();
+            }
+
+            stitching = null;
+        }
+
+        BedrockScheme scheme;
+
+        while ((scheme = replaced.poll()) != null)
+        {
+            /* Schemes replaced while stitching get remapped once it's done */
+            if (stitching == null && (atlas == null || (!atlas.apply(scheme) && TextureAtlas.canPack(scheme))))
+            {
+                dirty = true;
+            }
+        }
+
+        if (dirty && stitching == null)
+        {
+            dirty = false;
+            stitching = stitch(getTracked());
+        }
+    }
+
+    private static List<BedrockScheme> getTracked()
+    {
+        List<BedrockScheme> tracked;
+
+        synchronized (schemes)
+        {
+            tracked = new ArrayList<>(schemes);
+        }
+
+        for (BedrockLibrary library : libraries)
+        {
+            tracked.addAll(library.presets.values());
+        }
+
+        return tracked;
+    }
+
+    /**
+     * Read textures of given schemes and pack them into atlas pages on
+     * the loader thread
+     */
+    private static CompletableFuture<Stitched> stitch(List<BedrockScheme> schemes)
+    {
+        Set<com.eliotlash.particlelib.mcwrapper.ResourceLocation> textures = new HashSet<>();
+        int maxSize = Math.min(Minecraft.getGLMaximumTextureSize(), MAX_SIZE);
+
+        for (BedrockScheme scheme : schemes)
+        {
+            if (TextureAtlas.canPack(scheme))
+            {
+                textures.add(scheme.texture);
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> load(textures, maxSize), loader);
+    }
+
+    private static Stitched load(Set<com.eliotlash.particlelib.mcwrapper.ResourceLocation> textures, int maxSize)
+    {
+        IResourceManager resources = Minecraft.getMinecraft().getResourceManager();
+        TextureAtlas atlas = new TextureAtlas(LOCATION, maxSize, 1);
+        Map<com.eliotlash.particlelib.mcwrapper.ResourceLocation, BufferedImage> images = new HashMap<>();
+
+        for (com.eliotlash.particlelib.mcwrapper.ResourceLocation texture : textures)
+        {
+            try (IResource resource = resources.getResource(ConversionUtils.abstractToConcreteRL(texture)))
+            {
+                BufferedImage image = TextureUtil.readBufferedImage(resource.getInputStream());
+
+                images.put(texture, image);
+                atlas.add(texture, image.getWidth(), image.getHeight());
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        atlas.pack();
+
+        List<BufferedImage> pages = new ArrayList<>();
+
+        for (TextureAtlas.Page page : atlas.getPages())
+        {
+            BufferedImage image = new BufferedImage(page.width, page.height, BufferedImage.TYPE_INT_ARGB);
+
+            for (AtlasRegion region : page.regions)
+            {
+                BufferedImage texture = images.get(region.texture);
+                int[] pixels = texture.getRGB(0, 0, region.width, region.height, null, 0, region.width);
+
+                image.setRGB(region.x, region.y, region.width, region.height, pixels, 0, region.width);
+            }
+
+            pages.add(image);
+        }
+
+        return new Stitched(atlas, pages);
+    }
+
+    /**
+     * Replace the atlas pages with freshly stitched ones, and remap all
+     * tracked schemes into them. Schemes that can't be packed keep their
+     * own textures
+     */
+    private static void upload(Stitched stitched)
+    {
+        TextureManager textures = Minecraft.getMinecraft().renderEngine;
+
+        for (net.minecraft.util.ResourceLocation page : pages)
+        {
+            textures.deleteTexture(page);
+        }
+
+        pages.clear();
+
+        for (TextureAtlas.Page page : stitched.atlas.getPages())
+        {
+            net.minecraft.util.ResourceLocation location = ConversionUtils.cachedConcreteRL(page.location);
+
+            textures.loadTexture(location, new DynamicTexture(stitched.pages.get(page.index)));
+            pages.add(location);
+        }
+
+        atlas = stitched.atlas;
+
+        /* Schemes with textures that were tracked after stitching started
+         * need another round */
+        for (BedrockScheme scheme : getTracked())
+        {
+            if (!atlas.apply(scheme) && TextureAtlas.canPack(scheme))
+            {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Packed atlas and its page images, ready to be uploaded
+     */
+    private static class Stitched
+    {
+        public final TextureAtlas atlas;
+        public final List<BufferedImage> pages;
+
+        public Stitched(TextureAtlas atlas, List<BufferedImage> pages)
+        {
+            this.atlas = atlas;
+            this.pages = pages;
+        }
+    }
+}
@@ -5,9 +5,21 @@ import com.eliotlash.particlelib.mcwrapper.ResourceLocation;
 import net.minecraft.block.Block;
 import net.minecraftforge.fml.common.registry.ForgeRegistries;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class BlockWrapper<T extends Block> implements IBlock {
+    /**
+     * One wrapper per block, so particlelib can compare blocks by identity
+     */
+    private static final Map<Block, BlockWrapper> WRAPPERS = new ConcurrentHashMap<>();
+
     T block;
 
+    public static BlockWrapper of(Block block) {
+        return WRAPPERS.computeIfAbsent(block, BlockWrapper::new);
+    }
+
     public BlockWrapper(T block) {
         this.block = block;
     }
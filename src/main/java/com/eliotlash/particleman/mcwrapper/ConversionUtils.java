@@ -8,7 +8,12 @@ import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.common.registry.ForgeRegistries;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ConversionUtils {
+    private static final Map<ResourceLocation, net.minecraft.util.ResourceLocation> CONCRETE_RLS = new ConcurrentHashMap<>();
+
     public static BlockPos abstractToConcreteBlockPos(
             com.eliotlash.particlelib.mcwrapper.BlockPos abstractPos) {
         return new BlockPos(abstractPos.getX(), abstractPos.getY(), abstractPos.getZ());
@@ -18,6 +23,14 @@ public class ConversionUtils {
         return new net.minecraft.util.ResourceLocation(abstractRL.namespace, abstractRL.path);
     }
 
+    /**
+     * Same as {@link #abstractToConcreteRL(ResourceLocation)}, but returns the same instance
+     * for equal locations instead of allocating a new one every time
+     */
+    public static net.minecraft.util.ResourceLocation cachedConcreteRL(ResourceLocation abstractRL) {
+        return CONCRETE_RLS.computeIfAbsent(abstractRL, ConversionUtils::abstractToConcreteRL);
+    }
+
     public static ResourceLocation concreteToAbstractRL(net.minecraft.util.ResourceLocation concreteRL) {
         return new ResourceLocation(concreteRL.getResourceDomain(), concreteRL.getResourcePath());
     }
@@ -35,6 +48,6 @@ public class ConversionUtils {
     }
 
     public static IBlock blockLookup(ResourceLocation resourceLocation) {
-        return new BlockWrapper(ForgeRegistries.BLOCKS.getValue(abstractToConcreteRL(resourceLocation)));
+        return BlockWrapper.of(ForgeRegistries.BLOCKS.getValue(abstractToConcreteRL(resourceLocation)));
     }
 }
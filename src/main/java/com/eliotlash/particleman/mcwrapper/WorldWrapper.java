@@ -10,25 +10,40 @@ import java.util.stream.Collectors;
 public class WorldWrapper implements IWorld {
     World world;
 
+    private net.minecraft.util.math.BlockPos.MutableBlockPos mutablePos = new net.minecraft.util.math.BlockPos.MutableBlockPos();
+
     public WorldWrapper(World world) {
         this.world = world;
     }
 
     @Override
     public boolean isBlockLoaded(BlockPos pos) {
-        // TODO This could potentially create a lot of garbage depending on how often this method is called
-        return world.isBlockLoaded(ConversionUtils.abstractToConcreteBlockPos(pos));
+        return world.isBlockLoaded(this.mutablePos.setPos(pos.getX(), pos.getY(), pos.getZ()));
     }
 
     @Override
     public IBlock getBlockAtPos(BlockPos pos) {
-        // TODO This could potentially create a lot of garbage depending on how often this method is called
-        return new BlockWrapper(world.getBlockState(ConversionUtils.abstractToConcreteBlockPos(pos)).getBlock());
+        return BlockWrapper.of(world.getBlockState(this.mutablePos.setPos(pos.getX(), pos.getY(), pos.getZ())).getBlock());
+    }
+
+    @Override
+    public void getBlocksAtPos(long[] positions, int count, IBlock[] result) {
+        for (int i = 0; i < count; i++) {
+            long packed = positions[i];
+
+            this.mutablePos.setPos(BlockPos.unpackX(packed), BlockPos.unpackY(packed), BlockPos.unpackZ(packed));
+            result[i] = BlockWrapper.of(world.getBlockState(this.mutablePos).getBlock());
+        }
+    }
+
+    @Override
+    public int getCombinedLight(BlockPos pos, int lightValue) {
+        return world.getCombinedLight(this.mutablePos.setPos(pos.getX(), pos.getY(), pos.getZ()), lightValue);
     }
 
     @Override
     public List<AxisAlignedBB> getCollisionBoxes(Size2f size, AxisAlignedBB aabb) {
-        Entity entity = (Entity)size.entity;
+        Entity entity = size == null ? null : (Entity)size.entity;
         // TODO This could potentially create a lot of garbage depending on how often this method is called - may need
         // to optimize allocations of abstract AABBs using an object pool, or switch to using a mixin interface
         return world.getCollisionBoxes(entity, ConversionUtils.abstractToConcreteAABB(aabb))